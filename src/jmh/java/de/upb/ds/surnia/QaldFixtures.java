@@ -0,0 +1,213 @@
+package de.upb.ds.surnia;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.upb.ds.surnia.preprocessing.TokenMerger;
+import de.upb.ds.surnia.preprocessing.model.NGrams;
+import de.upb.ds.surnia.preprocessing.model.Token;
+import de.upb.ds.surnia.preprocessing.tasks.StanfordNERTask;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryException;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementVisitorBase;
+import org.apache.jena.sparql.syntax.ElementWalker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inputs of the benchmarks: the English questions of the QALD-7 training set and the Autoindex
+ * responses for them, so no benchmark needs the network.
+ *
+ * <p>The Autoindex responses are replayed from a recording made with
+ * {@link de.upb.ds.surnia.preprocessing.tasks.AutoindexRecorder} if the system property
+ * {@value #RECORDING_PROPERTY} names one. Otherwise they are derived from the gold SPARQL query of
+ * each question: every DBpedia resource, class and property of the query is returned with a label
+ * made from its local name, e.g. {@code dbo:birthPlace} with the label "birth place". This is the
+ * response of an Autoindex that finds exactly the right URIs.</p>
+ */
+public final class QaldFixtures {
+
+  /**
+   * System property with the path of the QALD-7 file, by default
+   * {@code test-client/qald-7-train-multilingual.json}.
+   */
+  public static final String QALD_FILE_PROPERTY = "surnia.qald.file";
+
+  /**
+   * System property with the path of recorded Autoindex responses.
+   */
+  public static final String RECORDING_PROPERTY = "surnia.autoindex.recording";
+
+  private static final String DBPEDIA = "http://dbpedia.org/";
+
+  private static QaldFixtures shared;
+
+  private final List<String> questions = new ArrayList<>();
+  private final List<Map<String, Set<String>>> autoindexResponses = new ArrayList<>();
+  private List<List<Token>> taggedTokens;
+
+  private QaldFixtures() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    File qaldFile = new File(System.getProperty(QALD_FILE_PROPERTY,
+      "test-client/qald-7-train-multilingual.json"));
+    String recording = System.getProperty(RECORDING_PROPERTY);
+    Map<String, Map<String, Set<String>>> recordedResponses = recording == null ? null
+      : mapper.readValue(new File(recording),
+        new TypeReference<Map<String, Map<String, Set<String>>>>() {
+        });
+    for (JsonNode question : mapper.readTree(qaldFile).path("questions")) {
+      for (JsonNode translation : question.path("question")) {
+        if ("en".equals(translation.path("language").asText())) {
+          String text = translation.path("string").asText();
+          questions.add(text);
+          if (recordedResponses != null) {
+            autoindexResponses.add(
+              recordedResponses.getOrDefault(text, Collections.emptyMap()));
+          } else {
+            autoindexResponses.add(
+              deriveAutoindexResponse(question.path("query").path("sparql").asText()));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the fixtures, which are read once per JVM.
+   *
+   * @return the shared fixtures
+   * @throws IOException if the QALD-7 file or the recording cannot be read
+   */
+  public static synchronized QaldFixtures get() throws IOException {
+    if (shared == null) {
+      shared = new QaldFixtures();
+    }
+    return shared;
+  }
+
+  /**
+   * Maps the labels of all DBpedia URIs in the triple patterns of the query to these URIs.
+   */
+  private static Map<String, Set<String>> deriveAutoindexResponse(String sparql) {
+    Map<String, Set<String>> response = new HashMap<>();
+    Query query;
+    try {
+      query = QueryFactory.create(sparql);
+    } catch (QueryException e) {
+      return response;
+    }
+    ElementWalker.walk(query.getQueryPattern(), new ElementVisitorBase() {
+      @Override
+      public void visit(ElementPathBlock block) {
+        for (TriplePath triplePath : block.getPattern()) {
+          addUri(triplePath.getSubject(), response);
+          if (triplePath.isTriple()) {
+            addUri(triplePath.getPredicate(), response);
+          }
+          addUri(triplePath.getObject(), response);
+        }
+      }
+    });
+    return response;
+  }
+
+  private static void addUri(Node node, Map<String, Set<String>> response) {
+    if (node.isURI() && node.getURI().startsWith(DBPEDIA)) {
+      String uri = node.getURI();
+      response.computeIfAbsent(toLabel(uri), label -> new HashSet<>()).add(uri);
+    }
+  }
+
+  /**
+   * Makes a label from the local name of a URI: res:Battle_of_Gettysburg becomes
+   * "Battle of Gettysburg", dbo:birthPlace becomes "birth place".
+   */
+  static String toLabel(String uri) {
+    String localName = uri.substring(Math.max(uri.lastIndexOf('/'), uri.lastIndexOf('#')) + 1);
+    try {
+      localName = URLDecoder.decode(localName, "UTF-8");
+    } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+      // Keep the local name as it is
+    }
+    String label = localName.replace('_', ' ')
+      .replaceAll("\\s*\\(.*\\)$", "")
+      .replaceAll("(?<=\\p{Ll})(?=\\p{Lu})", " ");
+    return !localName.isEmpty() && Character.isLowerCase(localName.charAt(0))
+      ? label.toLowerCase(Locale.ROOT) : label;
+  }
+
+  public int size() {
+    return questions.size();
+  }
+
+  public List<String> getQuestions() {
+    return Collections.unmodifiableList(questions);
+  }
+
+  public String getQuestion(int index) {
+    return questions.get(index);
+  }
+
+  /**
+   * Returns the Autoindex response for a question.
+   *
+   * @param index index of the question
+   * @return labels mapped to their URIs
+   */
+  public Map<String, Set<String>> getAutoindexResponse(int index) {
+    return autoindexResponses.get(index);
+  }
+
+  /**
+   * Returns the tokens the Autoindex task produces for a question.
+   *
+   * @param index index of the question
+   * @return n-gram tokens with URIs and offsets
+   */
+  public List<Token> getAutoindexTokens(int index) {
+    return new NGrams(questions.get(index), autoindexResponses.get(index)).produceTokens();
+  }
+
+  /**
+   * Returns the POS-tagged tokens of a question. All questions are tagged with CoreNLP on the first
+   * call, which takes a while.
+   *
+   * @param index index of the question
+   * @return tokens with POS-tags, lemmas and offsets
+   */
+  public synchronized List<Token> getTaggedTokens(int index) {
+    if (taggedTokens == null) {
+      StanfordNERTask stanfordTask = new StanfordNERTask();
+      taggedTokens = new ArrayList<>();
+      for (String question : questions) {
+        taggedTokens.add(stanfordTask.processTokens(question, Collections.emptyList()));
+      }
+    }
+    return taggedTokens.get(index);
+  }
+
+  /**
+   * Returns the tokens of a question after the whole pre-processing pipeline.
+   *
+   * @param index index of the question
+   * @return POS-tagged tokens merged with the Autoindex tokens
+   */
+  public List<Token> getMergedTokens(int index) {
+    return new TokenMerger().integrateTokens(getTaggedTokens(index), getAutoindexTokens(index));
+  }
+}
@@ -0,0 +1,78 @@
+package de.upb.ds.surnia.kg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookups of the triple index for the shapes {@code s p ?x} and {@code ?x p o},
+ * including the dictionary lookups of the bound terms, on a synthetic graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TripleIndexBenchmark {
+
+  private static final String RESOURCE = "<http://dbpedia.org/resource/R";
+  private static final String PROPERTY = "<http://dbpedia.org/ontology/p";
+
+  @Param({"100000", "1000000"})
+  private int triples;
+
+  private Path file;
+  private TripleIndex index;
+  private String subject;
+  private String predicate;
+  private String object;
+
+  @Setup
+  public void setUp() throws IOException {
+    Random random = new Random(42);
+    int resources = triples / 3;
+    TripleIndexBuilder builder = new TripleIndexBuilder();
+    for (int i = 0; i < triples; i++) {
+      builder.add(RESOURCE + random.nextInt(resources) + ">",
+        PROPERTY + random.nextInt(50) + ">", RESOURCE + random.nextInt(resources) + ">");
+    }
+    file = Files.createTempFile("triples", ".idx");
+    builder.write(file);
+    index = TripleIndex.open(file);
+    System.out.println("Triple index: " + index.describeSize());
+    subject = RESOURCE + 1 + ">";
+    predicate = PROPERTY + 1 + ">";
+    object = RESOURCE + 2 + ">";
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    index.close();
+    Files.delete(file);
+  }
+
+  @Benchmark
+  public int objects() {
+    int[] ids = index.getObjects(index.getId(subject), index.getId(predicate));
+    int length = 0;
+    for (int id : ids) {
+      length += index.getTerm(id).length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int subjects() {
+    return index.getSubjects(index.getId(predicate), index.getId(object)).length;
+  }
+}
@@ -0,0 +1,46 @@
+package de.upb.ds.surnia.preprocessing;
+
+import de.upb.ds.surnia.QaldFixtures;
+import de.upb.ds.surnia.preprocessing.model.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures merging the POS-tagged tokens of the QALD-7 questions with their Autoindex tokens. The
+ * questions are tagged with CoreNLP once in the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenMergerBenchmark {
+
+  private final List<List<Token>> taggedTokens = new ArrayList<>();
+  private final List<List<Token>> autoindexTokens = new ArrayList<>();
+  private final TokenMerger tokenMerger = new TokenMerger();
+  private int question;
+
+  @Setup
+  public void setUp() throws IOException {
+    QaldFixtures fixtures = QaldFixtures.get();
+    for (int i = 0; i < fixtures.size(); i++) {
+      taggedTokens.add(fixtures.getTaggedTokens(i));
+      autoindexTokens.add(fixtures.getAutoindexTokens(i));
+    }
+  }
+
+  @Benchmark
+  public List<Token> integrateTokens() {
+    question = (question + 1) % taggedTokens.size();
+    return tokenMerger.integrateTokens(taggedTokens.get(question), autoindexTokens.get(question));
+  }
+}
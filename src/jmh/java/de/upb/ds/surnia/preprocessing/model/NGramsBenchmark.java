@@ -0,0 +1,49 @@
+package de.upb.ds.surnia.preprocessing.model;
+
+import de.upb.ds.surnia.QaldFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the n-grams of the QALD-7 questions and matching them against the Autoindex
+ * labels. Every invocation takes the next question.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NGramsBenchmark {
+
+  private QaldFixtures fixtures;
+  private int question;
+
+  @Setup
+  public void setUp() throws IOException {
+    fixtures = QaldFixtures.get();
+  }
+
+  private int nextQuestion() {
+    question = (question + 1) % fixtures.size();
+    return question;
+  }
+
+  @Benchmark
+  public NGrams nGrams() {
+    return new NGrams(fixtures.getQuestion(nextQuestion()));
+  }
+
+  @Benchmark
+  public List<Token> produceTokens() {
+    int index = nextQuestion();
+    return new NGrams(fixtures.getQuestion(index), fixtures.getAutoindexResponse(index))
+      .produceTokens();
+  }
+}
@@ -0,0 +1,36 @@
+package de.upb.ds.surnia.preprocessing.tasks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.upb.ds.surnia.QaldFixtures;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the responses of an Autoindex-endpoint to the QALD-7 questions, so the benchmarks can
+ * replay them with {@code ./gradlew jmh -PautoindexRecording=<file>}.
+ *
+ * <p>Arguments: the URL of the endpoint (default {@value AutoindexTask#DEFAULT_URL}) and the file
+ * to write (default {@code build/autoindex-qald7.json}).</p>
+ */
+public class AutoindexRecorder {
+
+  public static void main(String[] args) throws IOException {
+    String url = args.length > 0 ? args[0] : AutoindexTask.DEFAULT_URL;
+    File file = new File(args.length > 1 ? args[1] : "build/autoindex-qald7.json");
+    AutoindexTask autoindexTask = new AutoindexTask(url);
+    Map<String, Map<String, Set<String>>> responses = new LinkedHashMap<>();
+    try {
+      for (String question : QaldFixtures.get().getQuestions()) {
+        responses.put(question, autoindexTask.getAnswerMapFromAutoindex(question));
+      }
+    } finally {
+      AutoindexTask.closeDefaultRestTemplate();
+    }
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, responses);
+    System.out.println("Recorded " + responses.size() + " responses of " + url + " in " + file);
+  }
+}
@@ -0,0 +1,73 @@
+package de.upb.ds.surnia.queries;
+
+import org.apache.jena.query.ParameterizedSparqlString;
+import org.apache.jena.query.Query;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares binding the parameters of a query template by text replacement and re-parsing, as done
+ * with {@link ParameterizedSparqlString}, to binding them on the precompiled template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBindingBenchmark {
+
+  @Param({
+    "SELECT DISTINCT ?x WHERE { ?R1 ?O1 ?x . }",
+    "SELECT DISTINCT ?x WHERE { ?x <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> ?O1 . "
+      + "?x ?O2 ?R1 . }"
+  })
+  private String sparqlTemplate;
+
+  private QueryTemplate queryTemplate;
+  private Map<String, String> parameterReplacement;
+
+  @Setup
+  public void setUp() {
+    queryTemplate = new QueryTemplate();
+    queryTemplate.setSparqlTemplate(sparqlTemplate);
+    parameterReplacement = new HashMap<>();
+    parameterReplacement.put("R1", "http://dbpedia.org/resource/Berlin");
+    parameterReplacement.put("O1", "http://dbpedia.org/ontology/country");
+    parameterReplacement.put("O2", "http://dbpedia.org/ontology/birthPlace");
+    queryTemplate.setSparqlParams(parameterReplacement.keySet().stream()
+      .filter(param -> sparqlTemplate.contains("?" + param)).toArray(String[]::new));
+    queryTemplate.getCompiledQuery();
+  }
+
+  /**
+   * The former path: replace the parameters in the text, then parse the query for execution and
+   * for each look at the projection.
+   */
+  @Benchmark
+  public void parameterizedSparqlString(Blackhole blackhole) {
+    ParameterizedSparqlString query = new ParameterizedSparqlString(sparqlTemplate);
+    for (String param : queryTemplate.getSparqlParams()) {
+      query.setParam(param, ResourceFactory.createResource(parameterReplacement.get(param)));
+    }
+    blackhole.consume(query.toString());
+    blackhole.consume(query.asQuery());
+    blackhole.consume(query.asQuery().getProjectVars());
+    blackhole.consume(query.asQuery().getAggregators());
+    blackhole.consume(query.asQuery().getProjectVars().get(0));
+  }
+
+  @Benchmark
+  public Query precompiledTemplate() {
+    return queryTemplate.bind(parameterReplacement);
+  }
+}
@@ -0,0 +1,75 @@
+package de.upb.ds.surnia.queries;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.upb.ds.surnia.QaldFixtures;
+import de.upb.ds.surnia.preprocessing.model.Token;
+import org.apache.jena.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replacing the parameters of the matching query templates of the pre-processed QALD-7
+ * questions. Every invocation takes the next pair of question and matching template.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryParameterReplacerBenchmark {
+
+  private final List<List<Token>> questionTokens = new ArrayList<>();
+  private final List<QueryTemplateIndex.TemplateMatch> matches = new ArrayList<>();
+  private int match;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<QueryTemplate> queryTemplates;
+    try (InputStream stream = getClass().getClassLoader().getResourceAsStream("Queries.json")) {
+      queryTemplates = new ObjectMapper().readValue(stream,
+        new TypeReference<List<QueryTemplate>>() {
+        });
+    }
+    QueryTemplateIndex queryTemplateIndex = new QueryTemplateIndex(queryTemplates,
+      QueryPatternMatcher.QUERY_RANKING_THRESHOlD);
+    QaldFixtures fixtures = QaldFixtures.get();
+    for (int i = 0; i < fixtures.size(); i++) {
+      List<Token> tokens = fixtures.getMergedTokens(i);
+      for (QueryTemplateIndex.TemplateMatch templateMatch :
+        queryTemplateIndex.findMatchingTemplates(new QuestionProperties(tokens))) {
+        questionTokens.add(tokens);
+        matches.add(templateMatch);
+      }
+    }
+    if (matches.isEmpty()) {
+      throw new IllegalStateException("No query template matches any QALD-7 question");
+    }
+  }
+
+  private QueryParameterReplacer nextReplacer() {
+    match = (match + 1) % matches.size();
+    QueryTemplateIndex.TemplateMatch templateMatch = matches.get(match);
+    return new QueryParameterReplacer(questionTokens.get(match),
+      templateMatch.getExampleQuestion(), templateMatch.getQueryTemplate());
+  }
+
+  @Benchmark
+  public Query firstQuery() {
+    return nextReplacer().streamQueriesWithReplacedParameters().findFirst().orElse(null);
+  }
+
+  @Benchmark
+  public BatchedQuery batchedQuery() {
+    return nextReplacer().getBatchedQuery();
+  }
+}
@@ -0,0 +1,45 @@
+package de.upb.ds.surnia.queries;
+
+import de.upb.ds.surnia.QaldFixtures;
+import de.upb.ds.surnia.preprocessing.model.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding the query templates for the pre-processed QALD-7 questions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryPatternMatcherBenchmark {
+
+  private final List<List<Token>> questionTokens = new ArrayList<>();
+  private QueryPatternMatcher queryPatternMatcher;
+  private int question;
+
+  @Setup
+  public void setUp() throws IOException {
+    QaldFixtures fixtures = QaldFixtures.get();
+    for (int i = 0; i < fixtures.size(); i++) {
+      questionTokens.add(fixtures.getMergedTokens(i));
+    }
+    queryPatternMatcher = new QueryPatternMatcher("Queries.json");
+  }
+
+  @Benchmark
+  public Map<Float, QueryParameterReplacer> findMatchingTemplates() {
+    question = (question + 1) % questionTokens.size();
+    return queryPatternMatcher.findMatchingTemplates(questionTokens.get(question));
+  }
+}
@@ -0,0 +1,98 @@
+package de.upb.ds.surnia.util;
+
+import de.upb.ds.surnia.QaldFixtures;
+import de.upb.ds.surnia.preprocessing.model.NGrams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the full edit distance with the bounded one for the checks "distance at most 2" and
+ * "similarity at least 0.5" done when matching n-grams to Autoindex labels. Besides three fixed
+ * pairs, {@code qald7} takes the pairs of n-grams and Autoindex labels of the QALD-7 questions,
+ * the next pair on every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EditDistanceBenchmark {
+
+  @Param({"similar", "different", "long", "qald7"})
+  private String pair;
+
+  private final List<String> as = new ArrayList<>();
+  private final List<String> bs = new ArrayList<>();
+  private int index;
+
+  @Setup
+  public void setUp() throws IOException {
+    switch (pair) {
+      case "similar":
+        addPair("capital of germany", "capitals of germany");
+        break;
+      case "different":
+        addPair("capital of germany", "chancellor of germany");
+        break;
+      case "long":
+        addPair("the largest city in the federal republic of germany by population",
+          "the largest cities in the federal republic of germany by population");
+        break;
+      default:
+        QaldFixtures fixtures = QaldFixtures.get();
+        for (int i = 0; i < fixtures.size(); i++) {
+          for (String nGram : new NGrams(fixtures.getQuestion(i)).getNGrams()) {
+            for (String label : fixtures.getAutoindexResponse(i).keySet()) {
+              addPair(nGram, label);
+            }
+          }
+        }
+        if (as.isEmpty()) {
+          throw new IllegalStateException("No Autoindex labels for the QALD-7 questions");
+        }
+    }
+  }
+
+  private void addPair(String a, String b) {
+    as.add(a);
+    bs.add(b);
+  }
+
+  private int nextPair() {
+    index = (index + 1) % as.size();
+    return index;
+  }
+
+  @Benchmark
+  public boolean levenshtein() {
+    int i = nextPair();
+    return SurniaUtil.levenshtein(as.get(i), bs.get(i)) <= 2;
+  }
+
+  @Benchmark
+  public boolean withinDistanceIgnoreCase() {
+    int i = nextPair();
+    return SurniaUtil.withinDistanceIgnoreCase(as.get(i), bs.get(i), 2);
+  }
+
+  @Benchmark
+  public boolean stringSimilarity() {
+    int i = nextPair();
+    return SurniaUtil.stringSimilarity(as.get(i), bs.get(i)) >= 0.5;
+  }
+
+  @Benchmark
+  public boolean similarityAtLeast() {
+    int i = nextPair();
+    return SurniaUtil.similarityAtLeast(as.get(i), bs.get(i), 0.5);
+  }
+}
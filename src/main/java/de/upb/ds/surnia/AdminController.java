@@ -0,0 +1,130 @@
+package de.upb.ds.surnia;
+
+import de.upb.ds.surnia.preprocessing.tasks.AutoindexCache;
+import de.upb.ds.surnia.qa.AnswerCache;
+import de.upb.ds.surnia.qa.QuestionAnswerer;
+import de.upb.ds.surnia.qa.SparqlResultCache;
+import de.upb.ds.surnia.util.SlowRequestLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoints for operating the service, e.g. inspecting and flushing caches.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+  private static Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+  private final AutoindexCache autoindexCache;
+  private final AnswerCache answerCache;
+  private final SparqlResultCache sparqlResultCache;
+  private final QuestionAnswerer questionAnswerer;
+  private final SlowRequestLog slowRequestLog;
+
+  @Autowired
+  public AdminController(AutoindexCache autoindexCache, AnswerCache answerCache,
+    SparqlResultCache sparqlResultCache, QuestionAnswerer questionAnswerer,
+    SlowRequestLog slowRequestLog) {
+    this.autoindexCache = autoindexCache;
+    this.answerCache = answerCache;
+    this.sparqlResultCache = sparqlResultCache;
+    this.questionAnswerer = questionAnswerer;
+    this.slowRequestLog = slowRequestLog;
+  }
+
+  /**
+   * Returns the statistics of the Autoindex cache.
+   *
+   * @return statistics of the question and n-gram level of the cache
+   */
+  @RequestMapping(value = "/autoindex-cache", method = RequestMethod.GET)
+  public Map<String, Object> getAutoindexCacheStatistics() {
+    Map<String, Object> statistics = new LinkedHashMap<>();
+    statistics.put("questions", autoindexCache.getQuestionCache().getStatistics());
+    statistics.put("ngrams", autoindexCache.getNGramCache().getStatistics());
+    return statistics;
+  }
+
+  /**
+   * Drops all cached Autoindex responses. Should be called after the Autoindex has been rebuilt.
+   */
+  @RequestMapping(value = "/autoindex-cache", method = RequestMethod.DELETE)
+  public void invalidateAutoindexCache() {
+    logger.info("Invalidating Autoindex cache");
+    autoindexCache.invalidateAll();
+  }
+
+  /**
+   * Returns the statistics of the answer cache, including the hit rate, the average time to
+   * answer an uncached question and the number of questions being answered at the moment.
+   *
+   * @return statistics of the answer cache
+   */
+  @RequestMapping(value = "/answer-cache", method = RequestMethod.GET)
+  public Map<String, Object> getAnswerCacheStatistics() {
+    return answerCache.getStatistics();
+  }
+
+  /**
+   * Drops all cached answers. Should be called after the knowledge base or the query templates
+   * have changed.
+   */
+  @RequestMapping(value = "/answer-cache", method = RequestMethod.DELETE)
+  public void invalidateAnswerCache() {
+    logger.info("Invalidating answer cache");
+    answerCache.invalidateAll();
+  }
+
+  /**
+   * Returns the statistics of the SPARQL result cache.
+   *
+   * @return statistics of the SPARQL result cache, including its approximate size in bytes
+   */
+  @RequestMapping(value = "/sparql-cache", method = RequestMethod.GET)
+  public Map<String, Object> getSparqlCacheStatistics() {
+    return sparqlResultCache.getStatistics();
+  }
+
+  /**
+   * Drops all cached SPARQL results and resource neighbourhoods. Should be called after the
+   * dataset behind the SPARQL endpoint has been reloaded.
+   */
+  @RequestMapping(value = "/sparql-cache", method = RequestMethod.DELETE)
+  public void invalidateSparqlCache() {
+    logger.info("Invalidating SPARQL result cache");
+    sparqlResultCache.invalidateAll();
+    questionAnswerer.invalidateKnowledgeGraphCaches();
+  }
+
+  /**
+   * Returns the traces of the slowest recent requests and of the latest requests over the
+   * threshold, with their tokens, rated templates, queries and the time of each stage.
+   *
+   * @return traces of the slowest requests and of the requests over the threshold
+   */
+  @RequestMapping(value = "/slow-requests", method = RequestMethod.GET)
+  public Map<String, Object> getSlowRequests() {
+    Map<String, Object> slowRequests = new LinkedHashMap<>();
+    slowRequests.put("slowest", slowRequestLog.getSlowest());
+    slowRequests.put("overThreshold", slowRequestLog.getOverThreshold());
+    return slowRequests;
+  }
+
+  /**
+   * Drops the kept slow requests, e.g. after an incident was analysed.
+   */
+  @RequestMapping(value = "/slow-requests", method = RequestMethod.DELETE)
+  public void clearSlowRequests() {
+    logger.info("Clearing slow requests");
+    slowRequestLog.clear();
+  }
+}
@@ -0,0 +1,32 @@
+package de.upb.ds.surnia;
+
+import de.upb.ds.surnia.util.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exports the metrics of the question answering pipeline for Prometheus.
+ */
+@RestController
+public class MetricsController {
+
+  private final PipelineMetrics metrics;
+
+  @Autowired
+  public MetricsController(PipelineMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the latencies of the pipeline stages and the pipeline counters.
+   *
+   * @return the metrics in the Prometheus text format
+   */
+  @RequestMapping(value = "/metrics", method = RequestMethod.GET,
+    produces = "text/plain; version=0.0.4; charset=utf-8")
+  public String getMetrics() {
+    return metrics.toPrometheusText();
+  }
+}
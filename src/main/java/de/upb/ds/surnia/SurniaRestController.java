@@ -1,9 +1,11 @@
 package de.upb.ds.surnia;
 
-import com.github.jsonldjava.utils.JsonUtils;
+import de.upb.ds.surnia.qa.AnswerContainer;
 import de.upb.ds.surnia.qa.QuestionAnswerer;
-import org.aksw.qa.commons.datastructure.Question;
-import org.json.simple.JSONObject;
+import de.upb.ds.surnia.util.PipelineMetrics;
+import de.upb.ds.surnia.util.RequestContext;
+import de.upb.ds.surnia.util.RequestTrace;
+import de.upb.ds.surnia.util.SlowRequestLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -21,37 +24,43 @@ public class SurniaRestController {
   private static Logger logger = LoggerFactory.getLogger(SurniaRestController.class);
 
   private final QuestionAnswerer qa;
+  private final PipelineMetrics metrics;
+  private final SlowRequestLog slowRequestLog;
 
   @Autowired
-  public SurniaRestController(QuestionAnswerer qa) {
+  public SurniaRestController(QuestionAnswerer qa, PipelineMetrics metrics,
+    SlowRequestLog slowRequestLog) {
     this.qa = qa;
+    this.metrics = metrics;
+    this.slowRequestLog = slowRequestLog;
   }
 
   /**
-   * Endpoint for answering a question with a QALD JSON.
+   * Endpoint for answering a question with a QALD JSON, which is streamed to the response.
    *
    * @param params   Params containing the question and the language.
-   * @param response Response object.
-   * @return Answer to the question as a QALD JSON.
+   * @param response Response object the answer is written to as QALD JSON.
+   * @throws IOException if the answer cannot be sent
    */
   @RequestMapping(value = "/ask-gerbil", method = RequestMethod.POST)
-  public String askGerbil(@RequestParam Map<String, String> params, HttpServletResponse response) {
+  public void askGerbil(@RequestParam Map<String, String> params, HttpServletResponse response)
+    throws IOException {
+    long start = System.nanoTime();
     String question = params.get("query");
     String language = params.get("lang");
 
-    logger.info("Received question(" + language + "): " + question);
+    RequestTrace trace = new RequestTrace(question, language);
+    try (RequestContext.Scope requestScope = RequestContext.open(trace)) {
+      logger.debug("Received question({}) as request {}: {}", language, trace.getRequestId(),
+        question);
 
-    Question q = new Question();
-    q.getLanguageToQuestion().put(language, question);
-
-    JSONObject answer = qa.getAnswersToQuestion(q, language);
-
-    try {
-      logger.info("Got: " + JsonUtils.toPrettyString(answer));
-      return JsonUtils.toPrettyString(answer);
-    } catch (Exception e) {
-      logger.error("Error in JSON answer.", e);
-      return "JSON Error";
+      response.setContentType("application/json;charset=UTF-8");
+      AnswerContainer answer = qa.writeAnswersToQuestion(question, language,
+        response.getOutputStream());
+      logger.debug("Got {} answers of type {}", answer.getAnswers().size(), answer.getType());
+    } finally {
+      trace.setDurationMicros(metrics.recordSince(PipelineMetrics.REQUEST, start));
+      slowRequestLog.record(trace);
     }
   }
 }
@@ -0,0 +1,188 @@
+package de.upb.ds.surnia.gerbil;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.upb.ds.surnia.qa.AnswerContainer;
+import de.upb.ds.surnia.qa.AnswerContainer.AnswerType;
+import de.upb.ds.surnia.util.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Writes the answer to a question as QALD JSON for GERBIL QA in a single pass, without building
+ * intermediate JSON trees:
+ *
+ * <pre>
+ * {"questions": [{"id": "1", "answertype": "resource", "query": {"sparql": "..."},
+ *   "question": [{"language": "en", "string": "..."}],
+ *   "answers": [{"head": {"vars": ["resource"]}, "results": {"bindings": [
+ *     {"resource": {"type": "resource", "value": "http://dbpedia.org/resource/Berlin"}}]}}]}]}
+ * </pre>
+ *
+ * <p>Boolean answers are written as {@code {"head": {}, "boolean": true}}. Literal answers are
+ * split into their value and their language tag or datatype.</p>
+ */
+public class QaldResponseWriter {
+
+  private final JsonFactory factory;
+
+  public QaldResponseWriter() {
+    this(Json.MAPPER.getFactory());
+  }
+
+  public QaldResponseWriter(JsonFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Writes the answer as UTF-8 encoded QALD JSON. The stream is flushed but not closed.
+   *
+   * @param answer answer to the question
+   * @param question the question
+   * @param lang language of the question
+   * @param out stream to write to
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(AnswerContainer answer, String question, String lang, OutputStream out)
+    throws IOException {
+    String answerType = answer.getType().toString().toLowerCase(Locale.ROOT);
+    try (JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("questions");
+      generator.writeStartObject();
+      generator.writeStringField("id", "1");
+      generator.writeStringField("answertype", answerType);
+      generator.writeObjectFieldStart("query");
+      generator.writeStringField("sparql", answer.getSparqlQuery());
+      generator.writeEndObject();
+      generator.writeArrayFieldStart("question");
+      generator.writeStartObject();
+      generator.writeStringField("language", lang);
+      generator.writeStringField("string", question);
+      generator.writeEndObject();
+      generator.writeEndArray();
+      generator.writeArrayFieldStart("answers");
+      writeAnswers(generator, answer, answerType);
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+  }
+
+  private static void writeAnswers(JsonGenerator generator, AnswerContainer answer,
+    String answerType) throws IOException {
+    generator.writeStartObject();
+    generator.writeObjectFieldStart("head");
+    if (answer.getType() == AnswerType.BOOLEAN) {
+      generator.writeEndObject();
+      generator.writeBooleanField("boolean",
+        Boolean.parseBoolean(answer.getAnswers().iterator().next()));
+      generator.writeEndObject();
+      return;
+    }
+    generator.writeArrayFieldStart("vars");
+    generator.writeString(answerType);
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeObjectFieldStart("results");
+    generator.writeArrayFieldStart("bindings");
+    for (String value : answer.getAnswers()) {
+      generator.writeStartObject();
+      generator.writeObjectFieldStart(answerType);
+      if (answer.getType() == AnswerType.RESOURCE) {
+        generator.writeStringField("type", answerType);
+        generator.writeStringField("value", value);
+      } else {
+        Literal literal = parseLiteral(value);
+        generator.writeStringField("type", "literal");
+        if (literal.lang != null) {
+          generator.writeStringField("xml:lang", literal.lang);
+        } else if (literal.datatype != null) {
+          generator.writeStringField("datatype", literal.datatype);
+        }
+        generator.writeStringField("value", literal.value);
+      }
+      generator.writeEndObject();
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  /**
+   * Splits a literal like {@code "Berlin"@en}, {@code 42^^xml:int} or
+   * {@code 3.5^^<http://www.w3.org/2001/XMLSchema#double>} into its value and its language tag or
+   * datatype. The value is unquoted if it is enclosed in {@code '''}, {@code "} or {@code '}.
+   */
+  static Literal parseLiteral(String literal) {
+    int end = literal.length();
+    String lang = null;
+    String datatype = null;
+    int tagStart = literal.lastIndexOf('@');
+    if (tagStart >= 0 && isWord(literal, tagStart + 1, end)) {
+      lang = literal.substring(tagStart + 1);
+      end = tagStart;
+    } else if (end > 0 && literal.charAt(end - 1) == '>') {
+      tagStart = literal.lastIndexOf('<');
+      if (tagStart >= 2 && tagStart < end - 2 && literal.startsWith("^^", tagStart - 2)
+        && literal.indexOf('>', tagStart) == end - 1) {
+        datatype = literal.substring(tagStart + 1, end - 1);
+        end = tagStart - 2;
+      }
+    } else {
+      tagStart = literal.lastIndexOf("^^xml:");
+      if (tagStart >= 0 && isWord(literal, tagStart + 6, end)) {
+        datatype = literal.substring(tagStart + 2);
+        end = tagStart;
+      }
+    }
+    int start = 0;
+    for (String quote : new String[]{"'''", "\"", "'"}) {
+      if (end - start >= 2 * quote.length() && literal.startsWith(quote)
+        && literal.startsWith(quote, end - quote.length())) {
+        start = quote.length();
+        end -= quote.length();
+        break;
+      }
+    }
+    return new Literal(literal.substring(start, end), lang, datatype);
+  }
+
+  /**
+   * Returns whether the characters between from and to are a non-empty sequence of letters, digits
+   * and underscores.
+   */
+  private static boolean isWord(String s, int from, int to) {
+    if (from >= to) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A literal split into its parts.
+   */
+  static final class Literal {
+
+    final String value;
+    final String lang;
+    final String datatype;
+
+    Literal(String value, String lang, String datatype) {
+      this.value = value;
+      this.lang = lang;
+      this.datatype = datatype;
+    }
+  }
+}
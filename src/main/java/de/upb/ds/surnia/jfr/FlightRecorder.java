@@ -0,0 +1,25 @@
+package de.upb.ds.surnia.jfr;
+
+/**
+ * Checks once whether the JVM has the flight recorder API, which Java 8 only has from update 262
+ * on. Without it, the events of this package do nothing.
+ */
+final class FlightRecorder {
+
+  /**
+   * Whether the events are passed to the flight recorder.
+   */
+  static final boolean AVAILABLE = isAvailable();
+
+  private FlightRecorder() {
+  }
+
+  private static boolean isAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorder.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+}
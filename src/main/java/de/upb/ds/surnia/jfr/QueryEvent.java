@@ -0,0 +1,49 @@
+package de.upb.ds.surnia.jfr;
+
+import org.apache.jena.query.Query;
+
+/**
+ * Flight recorder event for the evaluation of a candidate query, from the cache, the triple index
+ * or the knowledge graph.
+ *
+ * <p>Use it as {@code QueryEvent event = QueryEvent.start(); ... event.finish(...)}. The query is
+ * only serialized for its hash if the event is recorded. On JVMs without the flight recorder API
+ * both methods do nothing.</p>
+ */
+public final class QueryEvent {
+
+  private static final QueryEvent DISABLED = new QueryEvent(null);
+
+  private final RecordedQueryEvent event;
+
+  private QueryEvent(RecordedQueryEvent event) {
+    this.event = event;
+  }
+
+  /**
+   * Starts timing a query evaluation.
+   *
+   * @return the started event
+   */
+  public static QueryEvent start() {
+    if (!FlightRecorder.AVAILABLE) {
+      return DISABLED;
+    }
+    RecordedQueryEvent event = new RecordedQueryEvent();
+    event.begin();
+    return new QueryEvent(event);
+  }
+
+  /**
+   * Ends the evaluation and records the event, if it is enabled and took long enough.
+   *
+   * @param query evaluated query
+   * @param combinations number of parameter combinations covered by the query
+   * @param resultSize number of answers
+   */
+  public void finish(Query query, int combinations, int resultSize) {
+    if (event != null) {
+      event.finish(query, combinations, resultSize);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package de.upb.ds.surnia.jfr;
+
+import de.upb.ds.surnia.util.RequestContext;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.apache.jena.query.Query;
+
+/**
+ * Flight recorder event for the evaluation of a candidate query. Only created through
+ * {@link QueryEvent}, so that this class is not loaded on JVMs without the flight recorder API.
+ */
+@Name("de.upb.ds.surnia.Query")
+@Label("Candidate Query")
+@Category("Surnia")
+@Description("Evaluation of a candidate query")
+@StackTrace(false)
+class RecordedQueryEvent extends Event {
+
+  @Label("Request Id")
+  @Description("Id of the request the query belongs to, 0 outside of requests")
+  long requestId;
+
+  @Label("Query Hash")
+  @Description("Hash of the serialized query, the same as in the SPARQL result cache")
+  int queryHash;
+
+  @Label("Combinations")
+  @Description("Number of parameter combinations covered by the query")
+  int combinations;
+
+  @Label("Result Size")
+  @Description("Number of answers, 0 if the query had none")
+  int resultSize;
+
+  void finish(Query query, int combinations, int resultSize) {
+    end();
+    if (shouldCommit()) {
+      this.requestId = RequestContext.getRequestId();
+      this.queryHash = query.serialize().hashCode();
+      this.combinations = combinations;
+      this.resultSize = resultSize;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package de.upb.ds.surnia.jfr;
+
+import de.upb.ds.surnia.util.RequestContext;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a stage of answering a question. Only created through
+ * {@link StageEvent}, so that this class is not loaded on JVMs without the flight recorder API.
+ */
+@Name("de.upb.ds.surnia.Stage")
+@Label("Pipeline Stage")
+@Category("Surnia")
+@Description("A stage of answering a question")
+@StackTrace(false)
+class RecordedStageEvent extends Event {
+
+  @Label("Request Id")
+  @Description("Id of the request the stage belongs to, 0 outside of requests")
+  long requestId;
+
+  @Label("Stage")
+  String stage;
+
+  @Label("Candidate Count")
+  @Description("Number of candidates the stage produced, e.g. templates or queries, -1 if none")
+  int candidateCount;
+
+  @Label("Result Size")
+  @Description("Number of results of the stage, e.g. tokens or labels, -1 if none")
+  int resultSize;
+
+  void finish(int candidateCount, int resultSize) {
+    end();
+    if (shouldCommit()) {
+      this.requestId = RequestContext.getRequestId();
+      this.candidateCount = candidateCount;
+      this.resultSize = resultSize;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package de.upb.ds.surnia.jfr;
+
+/**
+ * Flight recorder event for a stage of answering a question, e.g. the CoreNLP analysis or the
+ * rating of the query templates.
+ *
+ * <p>Use it as {@code StageEvent event = StageEvent.start(stage); ... event.finish(...)}. While the
+ * event is not recorded, {@link #finish(int, int)} does nothing and the event objects are usually
+ * optimized away, so the events cost close to nothing. On JVMs without the flight recorder API
+ * both methods do nothing.</p>
+ */
+public final class StageEvent {
+
+  private static final StageEvent DISABLED = new StageEvent(null);
+
+  private final RecordedStageEvent event;
+
+  private StageEvent(RecordedStageEvent event) {
+    this.event = event;
+  }
+
+  /**
+   * Starts timing a stage.
+   *
+   * @param stage name of the stage, e.g. {@link de.upb.ds.surnia.util.PipelineMetrics#SPARQL}
+   * @return the started event
+   */
+  public static StageEvent start(String stage) {
+    if (!FlightRecorder.AVAILABLE) {
+      return DISABLED;
+    }
+    RecordedStageEvent event = new RecordedStageEvent();
+    event.stage = stage;
+    event.begin();
+    return new StageEvent(event);
+  }
+
+  /**
+   * Ends the stage and records the event, if it is enabled and took long enough.
+   *
+   * @param candidateCount number of candidates the stage produced, or -1
+   * @param resultSize number of results of the stage, or -1
+   */
+  public void finish(int candidateCount, int resultSize) {
+    if (event != null) {
+      event.finish(candidateCount, resultSize);
+    }
+  }
+}
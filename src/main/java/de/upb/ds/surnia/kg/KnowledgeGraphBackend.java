@@ -0,0 +1,57 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The knowledge graph the questions are answered with. Queries are either sent to a remote SPARQL
+ * endpoint or evaluated in-process on a local dataset.
+ */
+public interface KnowledgeGraphBackend extends AutoCloseable {
+
+  /**
+   * Executes a query. The execution is only valid while the action runs, so the action has to
+   * consume the results. The execution is closed afterwards.
+   *
+   * @param query query to execute
+   * @param action runs the execution and reads its results
+   * @param <T> type of the result of the action
+   * @return result of the action
+   */
+  <T> T execute(Query query, Function<QueryExecution, T> action);
+
+  /**
+   * Executes a query and passes every execution started for it to the listener before it runs,
+   * including the executions fetching data the query is evaluated on. The listener can keep them
+   * to abort them from another thread.
+   *
+   * @param query query to execute
+   * @param listener gets every execution before it runs
+   * @param action runs the execution and reads its results
+   * @param <T> type of the result of the action
+   * @return result of the action
+   * @see #execute(Query, Function)
+   */
+  default <T> T execute(Query query, Consumer<QueryExecution> listener,
+    Function<QueryExecution, T> action) {
+    return execute(query, execution -> {
+      listener.accept(execution);
+      return action.apply(execution);
+    });
+  }
+
+  /**
+   * Drops everything the backend cached about the knowledge graph, e.g. after it was reloaded.
+   */
+  default void invalidateCaches() {
+  }
+
+  /**
+   * Releases the resources of the backend.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,347 @@
+package de.upb.ds.surnia.kg;
+
+import de.upb.ds.surnia.util.ExpiringLruCache;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryException;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunction;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementBind;
+import org.apache.jena.sparql.syntax.ElementData;
+import org.apache.jena.sparql.syntax.ElementFilter;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.syntax.ElementMinus;
+import org.apache.jena.sparql.syntax.ElementOptional;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementTriplesBlock;
+import org.apache.jena.sparql.syntax.ElementUnion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Evaluates one-hop queries locally on the neighbourhoods of their resources. The neighbourhood of
+ * a resource are all triples with the resource as subject or object. It is fetched once from the
+ * wrapped backend with a bounded CONSTRUCT query and kept in an in-memory model, evicting the least
+ * recently used neighbourhoods.
+ *
+ * <p>A query is evaluated locally if every triple pattern has a resource as subject or object,
+ * either given directly or by a VALUES block of resources, and the complete neighbourhoods of all
+ * these resources are known. Every match of such a pattern is part of a neighbourhood, so the
+ * local result equals the result on the whole knowledge graph. All other queries, e.g. multi-hop
+ * patterns or patterns around a resource with too many triples, are passed to the wrapped
+ * backend. So are queries whose neighbourhoods could not be fetched, e.g. because the fetch timed
+ * out or was aborted.</p>
+ */
+public class NeighbourhoodBackend implements KnowledgeGraphBackend {
+
+  private static final Logger logger = LoggerFactory.getLogger(NeighbourhoodBackend.class);
+
+  /**
+   * Neighbourhood of a resource with more triples than allowed, which is never used.
+   */
+  private static final Model INCOMPLETE = ModelFactory.createDefaultModel();
+
+  private final KnowledgeGraphBackend backend;
+  private final ExpiringLruCache<String, Model> neighbourhoods;
+  private final ConcurrentHashMap<String, CompletableFuture<Model>> inFlight =
+    new ConcurrentHashMap<>();
+  private final int maxTriplesPerResource;
+  private final int maxResourcesPerQuery;
+  private final long fetchTimeoutMillis;
+
+  /**
+   * Wraps the given backend.
+   *
+   * @param backend backend for the neighbourhoods and for the queries that are not evaluated
+   *     locally
+   * @param maxResources maximum number of resources whose neighbourhoods are cached
+   * @param maxTriples maximum number of triples of all cached neighbourhoods
+   * @param maxTriplesPerResource maximum number of triples of one neighbourhood
+   * @param maxResourcesPerQuery maximum number of resources whose neighbourhoods are used for one
+   *     query
+   * @param ttlMillis time in milliseconds after which neighbourhoods expire
+   * @param fetchTimeoutMillis timeout of the query fetching a neighbourhood
+   */
+  public NeighbourhoodBackend(KnowledgeGraphBackend backend, int maxResources, long maxTriples,
+    int maxTriplesPerResource, int maxResourcesPerQuery, long ttlMillis,
+    long fetchTimeoutMillis) {
+    this.backend = backend;
+    this.neighbourhoods = new ExpiringLruCache<>(maxResources, maxTriples, ttlMillis,
+      (resource, model) -> model.size());
+    this.maxTriplesPerResource = maxTriplesPerResource;
+    this.maxResourcesPerQuery = maxResourcesPerQuery;
+    this.fetchTimeoutMillis = fetchTimeoutMillis;
+  }
+
+  @Override
+  public <T> T execute(Query query, Function<QueryExecution, T> action) {
+    return execute(query, execution -> {}, action);
+  }
+
+  @Override
+  public <T> T execute(Query query, Consumer<QueryExecution> listener,
+    Function<QueryExecution, T> action) {
+    Set<String> resources = findAnchorResources(query);
+    if (resources == null || resources.isEmpty() || resources.size() > maxResourcesPerQuery) {
+      return backend.execute(query, listener, action);
+    }
+    MultiUnion union = new MultiUnion();
+    try {
+      for (String resource : resources) {
+        Model neighbourhood = getNeighbourhood(resource, listener);
+        if (neighbourhood == INCOMPLETE) {
+          return backend.execute(query, listener, action);
+        }
+        union.addGraph(neighbourhood.getGraph());
+      }
+    } catch (RuntimeException e) {
+      if (e instanceof QueryCancelledException) {
+        logger.debug("Neighbourhoods for {} not fetched: {}", query, e.getMessage());
+      } else {
+        logger.warn("Neighbourhoods for {} not fetched: {}", query, e.getMessage());
+      }
+      return backend.execute(query, listener, action);
+    }
+    Model model = ModelFactory.createModelForGraph(union);
+    try (QueryExecution execution = QueryExecutionFactory.create(query, model)) {
+      listener.accept(execution);
+      return action.apply(execution);
+    }
+  }
+
+  /**
+   * Returns the cached neighbourhood of the resource or fetches it. Concurrent requests for the
+   * same resource share one fetch; the others wait for it interruptibly and at most as long as
+   * the fetch may take. Throws if the neighbourhood could not be fetched.
+   */
+  private Model getNeighbourhood(String resource, Consumer<QueryExecution> listener) {
+    Model neighbourhood = neighbourhoods.get(resource);
+    if (neighbourhood != null) {
+      return neighbourhood;
+    }
+    CompletableFuture<Model> future = new CompletableFuture<>();
+    CompletableFuture<Model> running = inFlight.putIfAbsent(resource, future);
+    if (running != null) {
+      try {
+        return running.get(fetchTimeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new QueryCancelledException();
+      } catch (ExecutionException e) {
+        throw new QueryException("Fetching the neighbourhood of " + resource + " failed",
+          e.getCause());
+      } catch (TimeoutException e) {
+        throw new QueryException("Fetching the neighbourhood of " + resource + " timed out");
+      }
+    }
+    try {
+      neighbourhood = fetchNeighbourhood(resource, listener);
+      // Incomplete neighbourhoods weigh nothing, so the decision is remembered
+      neighbourhoods.put(resource, neighbourhood);
+      future.complete(neighbourhood);
+      return neighbourhood;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(resource, future);
+    }
+  }
+
+  private Model fetchNeighbourhood(String resource, Consumer<QueryExecution> listener) {
+    String uri = "<" + resource + ">";
+    Query construct = QueryFactory.create("CONSTRUCT { " + uri + " ?p ?o . ?s ?q " + uri + " }"
+      + " WHERE { { " + uri + " ?p ?o } UNION { ?s ?q " + uri + " } }"
+      + " LIMIT " + (maxTriplesPerResource + 1));
+    logger.info("Fetching neighbourhood of {}", resource);
+    return backend.execute(construct, listener, execution -> {
+      execution.setTimeout(fetchTimeoutMillis, TimeUnit.MILLISECONDS);
+      Model model = ModelFactory.createDefaultModel();
+      int triples = 0;
+      Iterator<Triple> iterator = execution.execConstructTriples();
+      while (iterator.hasNext()) {
+        if (++triples > maxTriplesPerResource) {
+          logger.info("Neighbourhood of {} has more than {} triples", resource,
+            maxTriplesPerResource);
+          return INCOMPLETE;
+        }
+        model.getGraph().add(iterator.next());
+      }
+      return model;
+    });
+  }
+
+  /**
+   * Finds the resources a query can be evaluated around.
+   *
+   * @param query query to analyze
+   * @return resources whose neighbourhoods contain all matches of the query, or null if the query
+   *         cannot be evaluated on neighbourhoods
+   */
+  static Set<String> findAnchorResources(Query query) {
+    if (query.hasDatasetDescription() || query.getQueryPattern() == null) {
+      return null;
+    }
+    Map<Var, Set<String>> values = new HashMap<>();
+    if (query.hasValues()) {
+      addValues(query.getValuesVariables(), query.getValuesData(), values);
+    }
+    Element pattern = query.getQueryPattern();
+    if (pattern instanceof ElementGroup) {
+      for (Element element : ((ElementGroup) pattern).getElements()) {
+        if (element instanceof ElementData) {
+          addValues(((ElementData) element).getVars(), ((ElementData) element).getRows(), values);
+        }
+      }
+    }
+    Set<String> resources = new LinkedHashSet<>();
+    return collectAnchors(pattern, values, resources) ? resources : null;
+  }
+
+  /**
+   * Remembers for every variable of the VALUES block its values, if all of them are resources.
+   */
+  private static void addValues(List<Var> vars, List<Binding> rows, Map<Var, Set<String>> values) {
+    for (Var var : vars) {
+      Set<String> resources = new LinkedHashSet<>();
+      for (Binding row : rows) {
+        Node node = row.get(var);
+        if (node == null || !node.isURI()) {
+          resources = null;
+          break;
+        }
+        resources.add(node.getURI());
+      }
+      if (resources != null) {
+        values.put(var, resources);
+      }
+    }
+  }
+
+  private static boolean collectAnchors(Element element, Map<Var, Set<String>> values,
+    Set<String> resources) {
+    if (element instanceof ElementGroup) {
+      for (Element child : ((ElementGroup) element).getElements()) {
+        if (!collectAnchors(child, values, resources)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (element instanceof ElementUnion) {
+      for (Element child : ((ElementUnion) element).getElements()) {
+        if (!collectAnchors(child, values, resources)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (element instanceof ElementOptional) {
+      return collectAnchors(((ElementOptional) element).getOptionalElement(), values, resources);
+    } else if (element instanceof ElementMinus) {
+      return collectAnchors(((ElementMinus) element).getMinusElement(), values, resources);
+    } else if (element instanceof ElementPathBlock) {
+      for (TriplePath triplePath : ((ElementPathBlock) element).getPattern()) {
+        if (!triplePath.isTriple() || !addAnchor(triplePath.asTriple(), values, resources)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (element instanceof ElementTriplesBlock) {
+      for (Triple triple : ((ElementTriplesBlock) element).getPattern()) {
+        if (!addAnchor(triple, values, resources)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (element instanceof ElementFilter) {
+      return !needsData(((ElementFilter) element).getExpr());
+    } else if (element instanceof ElementBind) {
+      return !needsData(((ElementBind) element).getExpr());
+    } else {
+      return element instanceof ElementData;
+    }
+  }
+
+  private static boolean addAnchor(Triple triple, Map<Var, Set<String>> values,
+    Set<String> resources) {
+    for (Node node : new Node[]{triple.getSubject(), triple.getObject()}) {
+      if (node.isURI()) {
+        resources.add(node.getURI());
+        return true;
+      }
+      if (node.isVariable() && values.containsKey(Var.alloc(node))) {
+        resources.addAll(values.get(Var.alloc(node)));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the expression contains a graph pattern, e.g. EXISTS.
+   */
+  private static boolean needsData(Expr expr) {
+    if (expr instanceof ExprFunctionOp) {
+      return true;
+    }
+    if (expr instanceof ExprFunction) {
+      for (Expr arg : ((ExprFunction) expr).getArgs()) {
+        if (needsData(arg)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void invalidateCaches() {
+    neighbourhoods.invalidateAll();
+    backend.invalidateCaches();
+  }
+
+  /**
+   * Returns the statistics of the neighbourhood cache, e.g. for monitoring endpoints.
+   *
+   * @return statistic names mapped to their current values, the weight is the number of triples
+   */
+  public Map<String, Object> getStatistics() {
+    return neighbourhoods.getStatistics();
+  }
+
+  @Override
+  public void close() {
+    backend.close();
+  }
+
+  @Override
+  public String toString() {
+    return "neighbourhoods from " + backend;
+  }
+}
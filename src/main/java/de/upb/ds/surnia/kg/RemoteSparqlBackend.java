@@ -0,0 +1,41 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+
+import java.util.function.Function;
+
+/**
+ * Sends the queries over HTTP to a SPARQL endpoint, e.g. a Fuseki server.
+ */
+public class RemoteSparqlBackend implements KnowledgeGraphBackend {
+
+  private final String endpoint;
+
+  /**
+   * Creates a backend for the given endpoint.
+   *
+   * @param endpoint URL of the SPARQL endpoint
+   */
+  public RemoteSparqlBackend(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  @Override
+  public <T> T execute(Query query, Function<QueryExecution, T> action) {
+    try (QueryExecution execution = QueryExecutionFactory.sparqlService(endpoint, query)) {
+      return action.apply(execution);
+    }
+  }
+
+  @Override
+  public void close() {
+    // Every execution has its own connection
+  }
+
+  @Override
+  public String toString() {
+    return "SPARQL endpoint " + endpoint;
+  }
+}
@@ -0,0 +1,62 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.tdb2.TDB2Factory;
+
+import java.util.function.Function;
+
+/**
+ * Evaluates the queries in-process on a Jena TDB2 dataset stored in a local directory, without any
+ * network round trip. The dataset is filled with {@link Tdb2Loader}.
+ *
+ * <p>TDB2 can only be read within a transaction. Every execution runs in its own read transaction
+ * on the calling thread, so several queries can be evaluated in parallel.</p>
+ */
+public class Tdb2Backend implements KnowledgeGraphBackend {
+
+  private final String location;
+  private final Dataset dataset;
+
+  /**
+   * Opens the dataset in the given directory.
+   *
+   * @param location directory of the TDB2 dataset
+   */
+  public Tdb2Backend(String location) {
+    this.location = location;
+    this.dataset = TDB2Factory.connectDataset(location);
+  }
+
+  @Override
+  public <T> T execute(Query query, Function<QueryExecution, T> action) {
+    dataset.begin(ReadWrite.READ);
+    try (QueryExecution execution = QueryExecutionFactory.create(query, dataset)) {
+      return action.apply(execution);
+    } finally {
+      dataset.end();
+    }
+  }
+
+  /**
+   * Returns the dataset, e.g. to read it in a transaction of its own.
+   *
+   * @return the TDB2 dataset
+   */
+  public Dataset getDataset() {
+    return dataset;
+  }
+
+  @Override
+  public void close() {
+    dataset.close();
+  }
+
+  @Override
+  public String toString() {
+    return "TDB2 dataset " + location;
+  }
+}
@@ -0,0 +1,58 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads RDF dumps into the default graph of a TDB2 dataset for the {@link Tdb2Backend}. The syntax
+ * of a dump is derived from its file extension, e.g. .nt or .ttl, also compressed as .gz.
+ *
+ * <p>Usage: {@code Tdb2Loader <dataset directory> <dump> [<dump> ...]}, or
+ * {@code ./gradlew loadTdb2 -Plocation=<dataset directory> -Pfiles=<dump>,<dump>}.</p>
+ */
+public final class Tdb2Loader {
+
+  private static Logger logger = LoggerFactory.getLogger(Tdb2Loader.class);
+
+  private Tdb2Loader() {
+  }
+
+  /**
+   * Loads the given dumps into the given dataset, each one in its own transaction.
+   *
+   * @param location directory of the TDB2 dataset, created if it does not exist
+   * @param files RDF dumps to load
+   */
+  public static void load(String location, String... files) {
+    Dataset dataset = TDB2Factory.connectDataset(location);
+    try {
+      for (String file : files) {
+        logger.info("Loading {} into {}", file, location);
+        long start = System.currentTimeMillis();
+        Txn.executeWrite(dataset, () -> RDFDataMgr.read(dataset, file));
+        logger.info("Loaded {} in {} ms", file, System.currentTimeMillis() - start);
+      }
+    } finally {
+      dataset.close();
+    }
+  }
+
+  /**
+   * Entry point of the loader.
+   *
+   * @param args directory of the dataset followed by the dumps to load
+   */
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.err.println("Usage: Tdb2Loader <dataset directory> <dump> [<dump> ...]");
+      System.exit(1);
+    }
+    String[] files = new String[args.length - 1];
+    System.arraycopy(args, 1, files, 0, files.length);
+    load(args[0], files);
+  }
+}
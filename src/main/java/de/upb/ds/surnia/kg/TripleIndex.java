@@ -0,0 +1,295 @@
+package de.upb.ds.surnia.kg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * A read-only, dictionary-encoded triple store for the one-hop shapes of the query templates:
+ * {@code ?x p o}, {@code s p ?x} and {@code ASK { s p o }}. The index is built once by
+ * {@link TripleIndexBuilder} and memory-mapped from its file, so it hardly uses any heap.
+ *
+ * <p>Terms are written in N-Triples syntax, e.g. {@code <http://dbpedia.org/resource/Berlin>} or
+ * {@code "3.5"^^<http://www.w3.org/2001/XMLSchema#double>}. Their ids are their positions in the
+ * dictionary, which is sorted by the UTF-8 bytes of the terms, so a term is found by binary search.
+ * The triples are stored twice as columns of ids: sorted by subject, predicate and object (SPO) for
+ * {@code s p ?x} and ASK, and sorted by object, predicate and subject (OPS) for {@code ?x p o}.</p>
+ *
+ * <p>File layout (big endian): magic, version, number of terms, number of triples, the offsets of
+ * the terms (number of terms + 1 longs), the UTF-8 bytes of the terms, the S, P and O columns of
+ * SPO and the O, P and S columns of OPS.</p>
+ */
+public class TripleIndex implements Closeable {
+
+  static final int MAGIC = 0x53524e54;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 16;
+
+  /**
+   * Id of terms that are not in the dictionary.
+   */
+  public static final int UNKNOWN = -1;
+
+  private static final int[] NO_IDS = new int[0];
+
+  private final FileChannel channel;
+  private final int termCount;
+  private final int tripleCount;
+  private final LongBuffer termOffsets;
+  private final ByteBuffer terms;
+  private final IntBuffer spoSubjects;
+  private final IntBuffer spoPredicates;
+  private final IntBuffer spoObjects;
+  private final IntBuffer opsObjects;
+  private final IntBuffer opsPredicates;
+  private final IntBuffer opsSubjects;
+
+  private TripleIndex(FileChannel channel) throws IOException {
+    this.channel = channel;
+    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+    if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+      throw new IOException("Not a triple index of version " + VERSION);
+    }
+    termCount = header.getInt();
+    tripleCount = header.getInt();
+    long position = HEADER_BYTES;
+    long offsetBytes = 8L * (termCount + 1);
+    termOffsets = map(position, offsetBytes).asLongBuffer();
+    position += offsetBytes;
+    long termBytes = termOffsets.get(termCount);
+    terms = map(position, termBytes);
+    position += termBytes;
+    long columnBytes = 4L * tripleCount;
+    IntBuffer[] columns = new IntBuffer[6];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = map(position, columnBytes).asIntBuffer();
+      position += columnBytes;
+    }
+    spoSubjects = columns[0];
+    spoPredicates = columns[1];
+    spoObjects = columns[2];
+    opsObjects = columns[3];
+    opsPredicates = columns[4];
+    opsSubjects = columns[5];
+  }
+
+  private MappedByteBuffer map(long position, long size) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Section of " + size + " bytes is too large to be mapped");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+  }
+
+  /**
+   * Memory-maps the index in the given file.
+   *
+   * @param file file written by {@link TripleIndexBuilder}
+   * @return the opened index
+   * @throws IOException if the file cannot be read or is no triple index
+   */
+  public static TripleIndex open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new TripleIndex(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public int getTermCount() {
+    return termCount;
+  }
+
+  public int getTripleCount() {
+    return tripleCount;
+  }
+
+  /**
+   * Returns the size of the dictionary in the file, which depends on the number and length of the
+   * terms.
+   *
+   * @return bytes of the term offsets and the terms
+   */
+  public long getDictionaryBytes() {
+    return 8L * (termCount + 1) + termOffsets.get(termCount);
+  }
+
+  /**
+   * Returns the size of the SPO and OPS columns in the file, 24 bytes per triple.
+   *
+   * @return bytes of the columns
+   */
+  public long getColumnBytes() {
+    return 24L * tripleCount;
+  }
+
+  /**
+   * Describes the size of the index per triple, split into the columns and the dictionary.
+   *
+   * @return e.g. "1000 triples, 800 terms: 40.0 bytes per triple (24 for the columns, 16.0 for
+   *         the dictionary)"
+   */
+  public String describeSize() {
+    int triples = Math.max(1, tripleCount);
+    return String.format(Locale.ROOT,
+      "%d triples, %d terms: %.1f bytes per triple (24 for the columns, %.1f for the dictionary)",
+      tripleCount, termCount, (double) (getColumnBytes() + getDictionaryBytes()) / triples,
+      (double) getDictionaryBytes() / triples);
+  }
+
+  /**
+   * Returns the id of a term.
+   *
+   * @param term term in N-Triples syntax
+   * @return id of the term, or {@link #UNKNOWN} if it occurs in no triple
+   */
+  public int getId(String term) {
+    byte[] key = term.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = termCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareTerm(middle, key);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Returns the term with the given id.
+   *
+   * @param id id of the term
+   * @return term in N-Triples syntax
+   */
+  public String getTerm(int id) {
+    int start = (int) termOffsets.get(id);
+    byte[] bytes = new byte[(int) termOffsets.get(id + 1) - start];
+    ByteBuffer term = terms.duplicate();
+    term.position(start);
+    term.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Compares the term with the given id to the key, by their unsigned UTF-8 bytes.
+   */
+  private int compareTerm(int id, byte[] key) {
+    int start = (int) termOffsets.get(id);
+    int length = (int) termOffsets.get(id + 1) - start;
+    int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      int comparison = Integer.compare(terms.get(start + i) & 0xff, key[i] & 0xff);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  /**
+   * Returns the objects of all triples with the given subject and predicate ({@code s p ?x}).
+   *
+   * @param subject id of the subject
+   * @param predicate id of the predicate
+   * @return ids of the objects, ascending
+   */
+  public int[] getObjects(int subject, int predicate) {
+    return lookup(spoSubjects, spoPredicates, spoObjects, subject, predicate);
+  }
+
+  /**
+   * Returns the subjects of all triples with the given predicate and object ({@code ?x p o}).
+   *
+   * @param predicate id of the predicate
+   * @param object id of the object
+   * @return ids of the subjects, ascending
+   */
+  public int[] getSubjects(int predicate, int object) {
+    return lookup(opsObjects, opsPredicates, opsSubjects, object, predicate);
+  }
+
+  /**
+   * Returns whether the triple exists ({@code ASK { s p o }}).
+   *
+   * @param subject id of the subject
+   * @param predicate id of the predicate
+   * @param object id of the object
+   * @return true if the index contains the triple
+   */
+  public boolean contains(int subject, int predicate, int object) {
+    if (subject < 0 || predicate < 0 || object < 0) {
+      return false;
+    }
+    long range = range(spoSubjects, 0, tripleCount, subject);
+    range = range(spoPredicates, (int) (range >>> 32), (int) range, predicate);
+    range = range(spoObjects, (int) (range >>> 32), (int) range, object);
+    return (int) (range >>> 32) < (int) range;
+  }
+
+  private int[] lookup(IntBuffer first, IntBuffer second, IntBuffer third, int firstId,
+    int secondId) {
+    if (firstId < 0 || secondId < 0) {
+      return NO_IDS;
+    }
+    long range = range(first, 0, tripleCount, firstId);
+    range = range(second, (int) (range >>> 32), (int) range, secondId);
+    int from = (int) (range >>> 32);
+    int to = (int) range;
+    int[] ids = new int[to - from];
+    for (int i = from; i < to; i++) {
+      ids[i - from] = third.get(i);
+    }
+    return ids;
+  }
+
+  /**
+   * Finds the rows between from and to with the given value in the column, which is sorted within
+   * these rows.
+   *
+   * @return first row in the upper and end row in the lower 32 bits
+   */
+  private static long range(IntBuffer column, int from, int to, int value) {
+    int start = lowerBound(column, from, to, value);
+    int end = lowerBound(column, start, to, value + 1);
+    return (long) start << 32 | end;
+  }
+
+  private static int lowerBound(IntBuffer column, int from, int to, int value) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (column.get(middle) < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  @Override
+  public String toString() {
+    return "triple index with " + tripleCount + " triples and " + termCount + " terms";
+  }
+}
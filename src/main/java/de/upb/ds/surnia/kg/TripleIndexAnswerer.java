@@ -0,0 +1,137 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers queries consisting of a single triple pattern directly from a {@link TripleIndex}: SELECT
+ * queries of the shapes {@code ?x p o} and {@code s p ?x}, and ASK queries of the shapes
+ * {@code s p o}, {@code ?x p o} and {@code s p ?x}. All other queries have to be sent to the
+ * knowledge graph.
+ */
+public class TripleIndexAnswerer {
+
+  private static final Model RESULT_MODEL = ModelFactory.createDefaultModel();
+
+  private final TripleIndex index;
+
+  public TripleIndexAnswerer(TripleIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Returns whether the query has a shape this answerer can evaluate.
+   *
+   * @param query query to check
+   * @return true if {@link #select(Query)} or {@link #ask(Query)} can answer the query
+   */
+  public boolean canAnswer(Query query) {
+    if (query.hasDatasetDescription() || query.hasValues()) {
+      return false;
+    }
+    Triple triple = getSingleTriple(query);
+    if (triple == null || !triple.getPredicate().isURI()) {
+      return false;
+    }
+    Node subject = triple.getSubject();
+    Node object = triple.getObject();
+    if (query.isAskType()) {
+      return subject.isConcrete() || object.isConcrete();
+    }
+    if (!query.isSelectType() || query.hasAggregators() || query.hasGroupBy()
+      || query.hasHaving() || query.hasOffset() || query.hasOrderBy() && query.hasLimit()) {
+      return false;
+    }
+    List<Var> projectVars = query.getProjectVars();
+    if (projectVars.size() != 1 || !query.getProject().getExprs().isEmpty()) {
+      return false;
+    }
+    Var answerVar = projectVars.get(0);
+    return subject.equals(answerVar) && object.isConcrete()
+      || object.equals(answerVar) && subject.isConcrete();
+  }
+
+  /**
+   * Returns the single triple of a query pattern, or null if the pattern is anything else.
+   */
+  private static Triple getSingleTriple(Query query) {
+    Element pattern = query.getQueryPattern();
+    if (pattern instanceof ElementGroup && ((ElementGroup) pattern).size() == 1) {
+      pattern = ((ElementGroup) pattern).get(0);
+    }
+    if (!(pattern instanceof ElementPathBlock)) {
+      return null;
+    }
+    Iterator<TriplePath> triplePaths = ((ElementPathBlock) pattern).patternElts();
+    if (!triplePaths.hasNext()) {
+      return null;
+    }
+    TriplePath triplePath = triplePaths.next();
+    return triplePaths.hasNext() || !triplePath.isTriple() ? null : triplePath.asTriple();
+  }
+
+  /**
+   * Evaluates a SELECT query accepted by {@link #canAnswer(Query)}.
+   *
+   * @param query SELECT query with a single triple pattern
+   * @return values of the answer variable, empty if there are none
+   */
+  public Set<RDFNode> select(Query query) {
+    Triple triple = getSingleTriple(query);
+    int[] ids = lookup(triple);
+    long limit = query.hasLimit() ? Math.min(query.getLimit(), ids.length) : ids.length;
+    Set<RDFNode> nodes = new LinkedHashSet<>();
+    for (int i = 0; i < limit; i++) {
+      nodes.add(RESULT_MODEL.asRDFNode(NodeFactoryExtra.parseNode(index.getTerm(ids[i]))));
+    }
+    return nodes;
+  }
+
+  /**
+   * Evaluates an ASK query accepted by {@link #canAnswer(Query)}.
+   *
+   * @param query ASK query with a single triple pattern
+   * @return true if the pattern has a match
+   */
+  public boolean ask(Query query) {
+    Triple triple = getSingleTriple(query);
+    if (triple.getSubject().isConcrete() && triple.getObject().isConcrete()) {
+      return index.contains(getId(triple.getSubject()), getId(triple.getPredicate()),
+        getId(triple.getObject()));
+    }
+    return lookup(triple).length > 0;
+  }
+
+  private int[] lookup(Triple triple) {
+    int predicate = getId(triple.getPredicate());
+    if (triple.getSubject().isConcrete()) {
+      return index.getObjects(getId(triple.getSubject()), predicate);
+    }
+    return index.getSubjects(predicate, getId(triple.getObject()));
+  }
+
+  private int getId(Node node) {
+    return index.getId(NodeFmtLib.str(node));
+  }
+
+  @Override
+  public String toString() {
+    return index.toString();
+  }
+}
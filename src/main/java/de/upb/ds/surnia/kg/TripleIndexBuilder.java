@@ -0,0 +1,239 @@
+package de.upb.ds.surnia.kg;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects triples and writes them as a {@link TripleIndex} file. Terms are given in N-Triples
+ * syntax; duplicate triples are dropped.
+ */
+public class TripleIndexBuilder {
+
+  private static final int INSERTION_SORT_SIZE = 16;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> terms = new ArrayList<>();
+  private int[] subjects = new int[1024];
+  private int[] predicates = new int[1024];
+  private int[] objects = new int[1024];
+  private int size;
+
+  /**
+   * Adds a triple.
+   *
+   * @param subject subject in N-Triples syntax
+   * @param predicate predicate in N-Triples syntax
+   * @param object object in N-Triples syntax
+   */
+  public void add(String subject, String predicate, String object) {
+    if (size == subjects.length) {
+      if (size == Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Too many triples for a triple index");
+      }
+      int capacity = (int) Math.min(2L * size, Integer.MAX_VALUE - 8);
+      subjects = Arrays.copyOf(subjects, capacity);
+      predicates = Arrays.copyOf(predicates, capacity);
+      objects = Arrays.copyOf(objects, capacity);
+    }
+    subjects[size] = getId(subject);
+    predicates[size] = getId(predicate);
+    objects[size] = getId(object);
+    size++;
+  }
+
+  private int getId(String term) {
+    Integer id = ids.get(term);
+    if (id == null) {
+      id = terms.size();
+      ids.put(term, id);
+      terms.add(term);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the number of added triples, including duplicates.
+   *
+   * @return number of triples
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Writes the index file.
+   *
+   * @param file file to write, replaced if it exists
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Path file) throws IOException {
+    // Renumber the terms in the order of their UTF-8 bytes
+    byte[][] encodedTerms = new byte[terms.size()][];
+    Integer[] order = new Integer[terms.size()];
+    for (int id = 0; id < encodedTerms.length; id++) {
+      encodedTerms[id] = terms.get(id).getBytes(StandardCharsets.UTF_8);
+      order[id] = id;
+    }
+    Arrays.sort(order, (a, b) -> compareBytes(encodedTerms[a], encodedTerms[b]));
+    int[] newIds = new int[order.length];
+    for (int rank = 0; rank < order.length; rank++) {
+      newIds[order[rank]] = rank;
+    }
+
+    int[] spoSubjects = new int[size];
+    int[] spoPredicates = new int[size];
+    int[] spoObjects = new int[size];
+    for (int i = 0; i < size; i++) {
+      spoSubjects[i] = newIds[subjects[i]];
+      spoPredicates[i] = newIds[predicates[i]];
+      spoObjects[i] = newIds[objects[i]];
+    }
+    sort(spoSubjects, spoPredicates, spoObjects, 0, size);
+    int tripleCount = removeDuplicates(spoSubjects, spoPredicates, spoObjects, size);
+    int[] opsObjects = Arrays.copyOf(spoObjects, tripleCount);
+    int[] opsPredicates = Arrays.copyOf(spoPredicates, tripleCount);
+    int[] opsSubjects = Arrays.copyOf(spoSubjects, tripleCount);
+    sort(opsObjects, opsPredicates, opsSubjects, 0, tripleCount);
+
+    try (OutputStream stream = Files.newOutputStream(file);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+      out.writeInt(TripleIndex.MAGIC);
+      out.writeInt(TripleIndex.VERSION);
+      out.writeInt(order.length);
+      out.writeInt(tripleCount);
+      long offset = 0;
+      out.writeLong(offset);
+      for (Integer id : order) {
+        offset += encodedTerms[id].length;
+        out.writeLong(offset);
+      }
+      for (Integer id : order) {
+        out.write(encodedTerms[id]);
+      }
+      for (int[] column : new int[][]{spoSubjects, spoPredicates, spoObjects, opsObjects,
+        opsPredicates, opsSubjects}) {
+        for (int i = 0; i < tripleCount; i++) {
+          out.writeInt(column[i]);
+        }
+      }
+    }
+  }
+
+  static int compareBytes(byte[] a, byte[] b) {
+    int common = Math.min(a.length, b.length);
+    for (int i = 0; i < common; i++) {
+      int comparison = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+
+  /**
+   * Sorts the rows between from and to of the three columns by the first, then the second and
+   * then the third column.
+   */
+  static void sort(int[] first, int[] second, int[] third, int from, int to) {
+    while (to - from > INSERTION_SORT_SIZE) {
+      int middle = (from + to) >>> 1;
+      // Median of three as pivot
+      if (compare(first, second, third, middle, from) < 0) {
+        swap(first, second, third, middle, from);
+      }
+      if (compare(first, second, third, to - 1, from) < 0) {
+        swap(first, second, third, to - 1, from);
+      }
+      if (compare(first, second, third, to - 1, middle) < 0) {
+        swap(first, second, third, to - 1, middle);
+      }
+      int pivotFirst = first[middle];
+      int pivotSecond = second[middle];
+      int pivotThird = third[middle];
+      int low = from;
+      int high = to - 1;
+      while (low <= high) {
+        while (compare(first, second, third, low, pivotFirst, pivotSecond, pivotThird) < 0) {
+          low++;
+        }
+        while (compare(first, second, third, high, pivotFirst, pivotSecond, pivotThird) > 0) {
+          high--;
+        }
+        if (low <= high) {
+          swap(first, second, third, low, high);
+          low++;
+          high--;
+        }
+      }
+      // Recurse into the smaller part, loop over the larger one
+      if (high + 1 - from < to - low) {
+        sort(first, second, third, from, high + 1);
+        from = low;
+      } else {
+        sort(first, second, third, low, to);
+        to = high + 1;
+      }
+    }
+    for (int i = from + 1; i < to; i++) {
+      for (int j = i; j > from && compare(first, second, third, j, j - 1) < 0; j--) {
+        swap(first, second, third, j, j - 1);
+      }
+    }
+  }
+
+  private static int compare(int[] first, int[] second, int[] third, int row, int otherRow) {
+    return compare(first, second, third, row, first[otherRow], second[otherRow], third[otherRow]);
+  }
+
+  private static int compare(int[] first, int[] second, int[] third, int row, int firstValue,
+    int secondValue, int thirdValue) {
+    int comparison = Integer.compare(first[row], firstValue);
+    if (comparison == 0) {
+      comparison = Integer.compare(second[row], secondValue);
+      if (comparison == 0) {
+        comparison = Integer.compare(third[row], thirdValue);
+      }
+    }
+    return comparison;
+  }
+
+  private static void swap(int[] first, int[] second, int[] third, int row, int otherRow) {
+    swap(first, row, otherRow);
+    swap(second, row, otherRow);
+    swap(third, row, otherRow);
+  }
+
+  private static void swap(int[] column, int row, int otherRow) {
+    int value = column[row];
+    column[row] = column[otherRow];
+    column[otherRow] = value;
+  }
+
+  /**
+   * Removes consecutive duplicate rows of the sorted columns.
+   *
+   * @return number of remaining rows
+   */
+  private static int removeDuplicates(int[] first, int[] second, int[] third, int size) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (count == 0 || compare(first, second, third, i, count - 1) != 0) {
+        first[count] = first[i];
+        second[count] = second[i];
+        third[count] = third[i];
+        count++;
+      }
+    }
+    return count;
+  }
+}
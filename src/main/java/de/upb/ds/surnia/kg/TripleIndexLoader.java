@@ -0,0 +1,80 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Builds a {@link TripleIndex} file from RDF dumps, e.g. N-Triples or Turtle, also compressed as
+ * .gz. Quads are loaded without their graph.
+ *
+ * <p>Usage: {@code TripleIndexLoader <index file> <dump> [<dump> ...]}, or
+ * {@code ./gradlew buildTripleIndex -Pindex=<index file> -Pfiles=<dump>,<dump>}.</p>
+ */
+public final class TripleIndexLoader {
+
+  private static Logger logger = LoggerFactory.getLogger(TripleIndexLoader.class);
+
+  private TripleIndexLoader() {
+  }
+
+  /**
+   * Builds the index of the given dumps.
+   *
+   * @param index index file to write
+   * @param files RDF dumps to load
+   * @throws IOException if the index file cannot be written
+   */
+  public static void load(Path index, String... files) throws IOException {
+    TripleIndexBuilder builder = new TripleIndexBuilder();
+    StreamRDFBase collector = new StreamRDFBase() {
+      @Override
+      public void triple(Triple triple) {
+        builder.add(NodeFmtLib.str(triple.getSubject()), NodeFmtLib.str(triple.getPredicate()),
+          NodeFmtLib.str(triple.getObject()));
+      }
+
+      @Override
+      public void quad(Quad quad) {
+        triple(quad.asTriple());
+      }
+    };
+    for (String file : files) {
+      logger.info("Reading {}", file);
+      RDFDataMgr.parse(collector, file);
+      logger.info("Read {} triples so far", builder.size());
+    }
+    long start = System.currentTimeMillis();
+    builder.write(index);
+    logger.info("Wrote {} ({} bytes) in {} ms", index, Files.size(index),
+      System.currentTimeMillis() - start);
+    try (TripleIndex written = TripleIndex.open(index)) {
+      logger.info("{}: {}", index, written.describeSize());
+    }
+  }
+
+  /**
+   * Entry point of the loader.
+   *
+   * @param args index file followed by the dumps to load
+   * @throws IOException if the index file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: TripleIndexLoader <index file> <dump> [<dump> ...]");
+      System.exit(1);
+    }
+    String[] files = new String[args.length - 1];
+    System.arraycopy(args, 1, files, 0, files.length);
+    load(Paths.get(args[0]), files);
+  }
+}
@@ -1,15 +1,22 @@
 package de.upb.ds.surnia.preprocessing;
 
+import de.upb.ds.surnia.jfr.StageEvent;
 import de.upb.ds.surnia.preprocessing.model.Token;
 import de.upb.ds.surnia.preprocessing.tasks.AutoindexTask;
 import de.upb.ds.surnia.preprocessing.tasks.StanfordNERTask;
 import de.upb.ds.surnia.preprocessing.tasks.TaskInterface;
+import de.upb.ds.surnia.util.PipelineMetrics;
+import de.upb.ds.surnia.util.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 
 public class ProcessingPipeline {
@@ -18,20 +25,65 @@ public class ProcessingPipeline {
 
   private List<TaskInterface> taskPipeline;
 
+  /**
+   * Executor for the tasks that only depend on the question. If null, all tasks run one after
+   * another on the calling thread.
+   */
+  private ExecutorService executor;
+
+  /**
+   * Metrics the time spent in each task is recorded in, or null.
+   */
+  private PipelineMetrics metrics;
 
   public ProcessingPipeline() {
+    this((ExecutorService) null);
+  }
+
+  /**
+   * Create pipeline with the default tasks, running independent tasks on the given executor.
+   *
+   * @param executor executor for independent tasks, null to run all tasks sequentially
+   */
+  public ProcessingPipeline(ExecutorService executor) {
     this.taskPipeline = new ArrayList<>();
     taskPipeline.add(new StanfordNERTask());
     taskPipeline.add(new AutoindexTask());// TODO: 18/11/2018 <S> for now don't use AutoIndex , uncomment later
+    this.executor = executor;
   }
 
   /**
    * Create pipeline with given tasks. The first task has to split the text up into its components!
    */
   public ProcessingPipeline(List<TaskInterface> taskPipeline) {
-    this.taskPipeline = new ArrayList<>(taskPipeline);
+    this(taskPipeline, null);
   }
 
+  /**
+   * Create pipeline with given tasks, running independent tasks on the given executor. The first
+   * task has to split the text up into its components!
+   *
+   * @param taskPipeline tasks of the pipeline
+   * @param executor executor for independent tasks, null to run all tasks sequentially
+   */
+  public ProcessingPipeline(List<TaskInterface> taskPipeline, ExecutorService executor) {
+    this(taskPipeline, executor, null);
+  }
+
+  /**
+   * Create pipeline with given tasks, running independent tasks on the given executor and timing
+   * every task. The first task has to split the text up into its components!
+   *
+   * @param taskPipeline tasks of the pipeline
+   * @param executor executor for independent tasks, null to run all tasks sequentially
+   * @param metrics metrics to record the time of each task in under its stage name, or null
+   */
+  public ProcessingPipeline(List<TaskInterface> taskPipeline, ExecutorService executor,
+    PipelineMetrics metrics) {
+    this.taskPipeline = new ArrayList<>(taskPipeline);
+    this.executor = executor;
+    this.metrics = metrics;
+  }
 
   /**
    * Processes a question into a List of tokens.
@@ -41,10 +93,94 @@ public class ProcessingPipeline {
    * @throws IOException Error while performing Named Entity Recognition.
    */
   public List<Token> processQuestion(String question) {
+    StageEvent event = StageEvent.start("preprocessing");
     List<Token> tokens = new ArrayList<>();
+    if (executor == null) {
+      for (TaskInterface task : taskPipeline) {
+        List<Token> previousTokens = tokens;
+        tokens = timed(task, () -> task.processTokens(question, previousTokens));
+      }
+    } else {
+      tokens = processQuestionConcurrently(question);
+    }
+    event.finish(-1, tokens.size());
+    return tokens;
+  }
+
+  /**
+   * Processes a question by starting all tasks that only need the question right away. The first
+   * of them runs on the calling thread, the others on the executor. The results are merged in
+   * pipeline order, so the outcome is the same as for the sequential processing.
+   */
+  private List<Token> processQuestionConcurrently(String question) {
+    List<Future<List<Token>>> startedTasks = new ArrayList<>(taskPipeline.size());
+    boolean callerTaskChosen = false;
     for (TaskInterface task : taskPipeline) {
-      tokens = task.processTokens(question, tokens);
+      boolean independent = !task.getRequiredInputs()
+        .contains(TaskInterface.Input.PREVIOUS_TOKENS);
+      if (independent && callerTaskChosen) {
+        startedTasks.add(executor.submit(RequestContext.wrap(
+          () -> timed(task, () -> task.produceTokens(question)))));
+      } else {
+        callerTaskChosen |= independent;
+        startedTasks.add(null);
+      }
+    }
+
+    List<Token> tokens = new ArrayList<>();
+    try {
+      for (int i = 0; i < taskPipeline.size(); i++) {
+        TaskInterface task = taskPipeline.get(i);
+        Future<List<Token>> startedTask = startedTasks.get(i);
+        if (startedTask != null) {
+          tokens = task.mergeTokens(tokens, awaitTokens(startedTask));
+        } else if (task.getRequiredInputs().contains(TaskInterface.Input.PREVIOUS_TOKENS)) {
+          List<Token> previousTokens = tokens;
+          tokens = timed(task, () -> task.processTokens(question, previousTokens));
+        } else {
+          tokens = task.mergeTokens(tokens, timed(task, () -> task.produceTokens(question)));
+        }
+      }
+    } finally {
+      for (Future<List<Token>> startedTask : startedTasks) {
+        if (startedTask != null) {
+          startedTask.cancel(true);
+        }
+      }
     }
     return tokens;
   }
+
+  /**
+   * Runs a step of the task and records its time under the stage name of the task, in the metrics
+   * and as flight recorder event.
+   */
+  private List<Token> timed(TaskInterface task, Supplier<List<Token>> step) {
+    StageEvent event = StageEvent.start(task.getStageName());
+    long start = System.nanoTime();
+    List<Token> tokens = null;
+    try {
+      tokens = step.get();
+      return tokens;
+    } finally {
+      if (metrics != null) {
+        metrics.recordSince(task.getStageName(), start);
+      }
+      event.finish(-1, tokens != null ? tokens.size() : -1);
+    }
+  }
+
+  private List<Token> awaitTokens(Future<List<Token>> startedTask) {
+    try {
+      return startedTask.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a pipeline task", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Pipeline task failed", e.getCause());
+    }
+  }
 }
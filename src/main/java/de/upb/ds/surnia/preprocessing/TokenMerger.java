@@ -4,7 +4,9 @@ import de.upb.ds.surnia.preprocessing.model.Token;
 import de.upb.ds.surnia.util.SurniaUtil;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -27,7 +29,7 @@ public class TokenMerger {
       boolean appearanceFound = false;
       boolean entityAdded = false;
       for (Token token : oldTokens) {
-          if (newToken.getText().contains(token.getText().toLowerCase()) || SurniaUtil.levenshtein(newToken.getText(), token.getText()) <=2) {
+          if (newToken.getText().contains(token.getText().toLowerCase()) || SurniaUtil.withinDistanceIgnoreCase(newToken.getText(), token.getText(), 2)) {
               if (!appearanceFound) {
                   appearanceFound = true;
               }
@@ -51,6 +53,83 @@ public class TokenMerger {
       return linkedTokens;
   }
 
+  /**
+   * Integrates all given tokens into the given list of tokens. Tokens with character offsets are
+   * aligned by their offsets in a single sweep: new tokens are taken from left to right, longer
+   * ones first, and each replaces the old tokens it overlaps with one linked token. A new token
+   * overlapping an already linked span is dropped, one with exactly the same span adds its URIs to
+   * the linked token. New tokens that cover no old token are dropped like in
+   * {@link #integrateToken(List, Token)}, which is still used for tokens without offsets.
+   *
+   * @param oldTokens List of tokens, ordered by their position in the question.
+   * @param newTokens newly produced tokens.
+   * @return List of tokens where the resource tokens are combined and linked.
+   */
+  public List<Token> integrateTokens(List<Token> oldTokens, List<Token> newTokens) {
+    boolean oldTokensHaveOffsets = true;
+    for (Token token : oldTokens) {
+      oldTokensHaveOffsets &= token.hasOffsets();
+    }
+    List<Token> spans = new ArrayList<>();
+    List<Token> tokensWithoutOffsets = new ArrayList<>();
+    for (Token newToken : newTokens) {
+      if (oldTokensHaveOffsets && newToken.hasOffsets()) {
+        spans.add(newToken);
+      } else {
+        tokensWithoutOffsets.add(newToken);
+      }
+    }
+    spans.sort(Comparator.comparingInt(Token::getBeginPosition)
+      .thenComparing(Comparator.comparingInt(Token::getEndPosition).reversed()));
+
+    List<Token> linkedTokens = new ArrayList<>(oldTokens.size());
+    int oldIndex = 0;
+    Token lastSpan = null;
+    Token lastLinkedToken = null;
+    for (Token span : spans) {
+      if (lastSpan != null && span.getBeginPosition() == lastSpan.getBeginPosition()
+        && span.getEndPosition() == lastSpan.getEndPosition()) {
+        if (lastLinkedToken != null) {
+          lastLinkedToken.addUris(span.getUris());
+        }
+        continue;
+      }
+      if (lastSpan != null && span.getBeginPosition() < lastSpan.getEndPosition()) {
+        continue;
+      }
+      // Keep the old tokens in front of the span
+      while (oldIndex < oldTokens.size()
+        && oldTokens.get(oldIndex).getEndPosition() <= span.getBeginPosition()) {
+        linkedTokens.add(oldTokens.get(oldIndex++));
+      }
+      // Replace the old tokens overlapping the span
+      Map<String, Integer> posTags = new HashMap<>();
+      int coveredTokens = 0;
+      while (oldIndex < oldTokens.size()
+        && oldTokens.get(oldIndex).getBeginPosition() < span.getEndPosition()) {
+        posTags.merge(oldTokens.get(oldIndex++).getType(), 1, Integer::sum);
+        coveredTokens++;
+      }
+      if (coveredTokens > 0) {
+        // if new token already has a POS-tag, we can assume that it is better
+        String posTag = span.getType() != null ? span.getType() : choosePosTag(posTags);
+        // Only merged spans block later overlapping ones
+        lastSpan = span;
+        lastLinkedToken = new Token(span.getText(), posTag, new HashSet<>(span.getUris()));
+        lastLinkedToken.setOffsets(span.getBeginPosition(), span.getEndPosition());
+        linkedTokens.add(lastLinkedToken);
+      }
+    }
+    while (oldIndex < oldTokens.size()) {
+      linkedTokens.add(oldTokens.get(oldIndex++));
+    }
+
+    for (Token newToken : tokensWithoutOffsets) {
+      linkedTokens = integrateToken(linkedTokens, newToken);
+    }
+    return linkedTokens;
+  }
+
   /**
    * This method chooses a POS-tag based on the biggest coverage, i.e. if 3 tokens where merged in
    * {@link #integrateToken(List, Token)} and 2 of the 3 tokens have the same POS-tag, that POS-tag
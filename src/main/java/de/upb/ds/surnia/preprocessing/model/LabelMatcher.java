@@ -0,0 +1,98 @@
+package de.upb.ds.surnia.preprocessing.model;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.BasicAutomata;
+import org.apache.lucene.util.automaton.BasicOperations;
+import org.apache.lucene.util.automaton.LevenshteinAutomata;
+import org.apache.lucene.util.automaton.SpecialOperations;
+import org.atteo.evo.inflector.English;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds the AutoIndex labels matching an n-gram. A label matches if its normalized form (without
+ * backslashes, in lower case) is at most 2 edits away from the n-gram, or if its plural is the
+ * n-gram.
+ *
+ * <p>The normalized labels are compiled once into a minimal automaton. An n-gram is matched by
+ * intersecting this automaton with the Levenshtein automaton of the n-gram, so it is not compared
+ * to every label. The plurals only match exactly and are looked up in a hash map.</p>
+ */
+public class LabelMatcher {
+
+  /**
+   * Maximum edit distance of a matching label.
+   */
+  public static final int MAX_DISTANCE = 2;
+
+  private final Map<String, List<String>> labelsByNormalizedForm = new HashMap<>();
+  private final Map<String, List<String>> labelsByPlural = new HashMap<>();
+  private final Map<String, Integer> labelOrder = new HashMap<>();
+  private final Automaton dictionary;
+
+  /**
+   * Compiles the given labels.
+   *
+   * @param labels labels from AutoIndex, the order is kept for the matches
+   */
+  public LabelMatcher(Iterable<String> labels) {
+    TreeSet<BytesRef> normalizedForms = new TreeSet<>();
+    for (String label : labels) {
+      if (labelOrder.containsKey(label)) {
+        continue;
+      }
+      labelOrder.put(label, labelOrder.size());
+      String normalizedForm = normalize(label);
+      labelsByNormalizedForm.computeIfAbsent(normalizedForm, key -> new ArrayList<>()).add(label);
+      labelsByPlural.computeIfAbsent(English.plural(normalizedForm), key -> new ArrayList<>())
+        .add(label);
+      normalizedForms.add(new BytesRef(normalizedForm));
+    }
+    dictionary = normalizedForms.isEmpty() ? null : BasicAutomata.makeStringUnion(normalizedForms);
+  }
+
+  /**
+   * Normalizes a label the way it is compared to the n-grams.
+   *
+   * @param label label from AutoIndex
+   * @return label without backslashes in lower case
+   */
+  static String normalize(String label) {
+    return label.replace("\\", "").toLowerCase();
+  }
+
+  /**
+   * Returns all labels matching the n-gram.
+   *
+   * @param nGram n-gram in lower case
+   * @return matching labels, in the order they were given
+   */
+  public List<String> match(String nGram) {
+    if (dictionary == null) {
+      return Collections.emptyList();
+    }
+    List<String> matches = new ArrayList<>();
+    Automaton nearNGram = new LevenshteinAutomata(nGram, false).toAutomaton(MAX_DISTANCE);
+    Automaton matchingForms = BasicOperations.intersection(nearNGram, dictionary);
+    Set<IntsRef> forms = SpecialOperations.getFiniteStrings(matchingForms,
+      labelsByNormalizedForm.size());
+    for (IntsRef form : forms) {
+      matches.addAll(labelsByNormalizedForm.get(new String(form.ints, form.offset, form.length)));
+    }
+    for (String label : labelsByPlural.getOrDefault(nGram, Collections.emptyList())) {
+      if (!matches.contains(label)) {
+        matches.add(label);
+      }
+    }
+    matches.sort((a, b) -> Integer.compare(labelOrder.get(a), labelOrder.get(b)));
+    return matches;
+  }
+}
@@ -48,35 +48,77 @@ public class NGramEntryPosition {
   }
 
   /**
-   * Returns a set of all positional information of descendants of this n-gram entry.
+   * Returns a set of all positional information of descendants of this n-gram entry, i.e. of all
+   * shorter n-grams covered by this one.
    *
    * @return all positional informtion of descendats of this entry
    */
   public Set<NGramEntryPosition> getAllDescendants() {
-    return getAllDescendants(this);
+    Set<NGramEntryPosition> descendants = new HashSet<>();
+    for (int l = length - 1; l > 0; l--) {
+      for (int i = position; i + l <= position + length; i++) {
+        descendants.add(new NGramEntryPosition(l, i));
+      }
+    }
+    return descendants;
   }
 
   /**
-   * This method is used for recursive calls to get all decendants for this n-gram position.
+   * Packs length and position into one primitive key, e.g. for maps or arrays of positions.
    *
-   * @param pos position of the ngram entry for which the decendants should be searched for
-   * @return all descendants of the given node
-   * @see #getAllDescendants()
+   * @param length length of the n-gram
+   * @param position position in the "row"
+   * @return key of the n-gram position
    */
-  private Set<NGramEntryPosition> getAllDescendants(NGramEntryPosition pos) {
-    if (pos.getLength() == 1) {
-      return new HashSet<>();
-    } else {
-      Set<NGramEntryPosition> descendants = new HashSet<>();
-      NGramEntryPosition child1 = new NGramEntryPosition(pos.getLength() - 1, pos.getPosition());
-      NGramEntryPosition child2 = new NGramEntryPosition(pos.getLength() - 1,
-        pos.getPosition() + 1);
-      descendants.add(child1);
-      descendants.add(child2);
-      descendants.addAll(getAllDescendants(child1));
-      descendants.addAll(getAllDescendants(child2));
-      return descendants;
-    }
+  public static long toKey(int length, int position) {
+    return ((long) position << 32) | (length & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the length stored in the given key.
+   *
+   * @param key key created by {@link #toKey(int, int)}
+   * @return length of the n-gram
+   */
+  public static int getLength(long key) {
+    return (int) key;
+  }
+
+  /**
+   * Returns the position stored in the given key.
+   *
+   * @param key key created by {@link #toKey(int, int)}
+   * @return position in the "row"
+   */
+  public static int getPosition(long key) {
+    return (int) (key >>> 32);
+  }
+
+  /**
+   * Returns true if the first n-gram covers all words of the second one and is longer, see
+   * {@link #isAncestorOf(NGramEntryPosition)}.
+   *
+   * @param key key of the possible ancestor
+   * @param otherKey key of the possible descendant
+   * @return true if the first n-gram is an ancestor of the second one
+   */
+  public static boolean isAncestorOf(long key, long otherKey) {
+    int length = getLength(key);
+    int position = getPosition(key);
+    int otherLength = getLength(otherKey);
+    int otherPosition = getPosition(otherKey);
+    return otherLength < length && otherPosition >= position
+      && otherPosition + otherLength <= position + length;
+  }
+
+  /**
+   * Returns the key of this n-gram position.
+   *
+   * @return key of this n-gram position
+   * @see #toKey(int, int)
+   */
+  public long toKey() {
+    return toKey(length, position);
   }
 
   /**
@@ -98,14 +140,13 @@ public class NGramEntryPosition {
   }
 
   /**
-   * Override for hashcode to get a good and easy hash for the entries. As long as the n-gram does
-   * not contain more than 10000 words, it should be unique.
+   * Override for hashcode to get a good and easy hash for the entries, derived from the key.
    *
    * @return hash representation of the n-gram position
    */
   @Override
   public int hashCode() {
-    return position * 10000 + length;
+    return Long.hashCode(toKey() * 0x9E3779B97F4A7C15L);
   }
 
   /**
@@ -121,7 +162,7 @@ public class NGramEntryPosition {
     if (this == other) {
       return true;
     }
-    if (other.getClass() != this.getClass()) {
+    if (other == null || other.getClass() != this.getClass()) {
       return false;
     }
     if (((NGramEntryPosition) other).getLength() != this.getLength()) {
@@ -144,19 +185,11 @@ public class NGramEntryPosition {
    * @see #isAncestorOf(NGramEntryPosition)
    */
   public boolean isRelatedTo(NGramEntryPosition otherColor) {
-    if (this.equals(otherColor)) {
-      return true;
-    }
-
-    if (this.isAncestorOf(otherColor)) {
-      return true;
-    }
-
-    if (otherColor.isAncestorOf(this)) {
-      return true;
-    }
-
-    return false;
+    // One of them covers the other one
+    int end = position + length;
+    int otherEnd = otherColor.position + otherColor.length;
+    return position <= otherColor.position && otherEnd <= end
+      || otherColor.position <= position && end <= otherEnd;
   }
 
 
@@ -169,7 +202,7 @@ public class NGramEntryPosition {
    * @return true if this color is an ancestor of the given color, false otherwise
    */
   public boolean isAncestorOf(NGramEntryPosition otherColor) {
-    return this.getAllDescendants().contains(otherColor);
+    return isAncestorOf(toKey(), otherColor.toKey());
   }
 
   /**
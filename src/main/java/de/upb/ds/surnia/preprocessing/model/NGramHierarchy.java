@@ -154,6 +154,16 @@ public class NGramHierarchy {
     return positions;
   }
 
+  /**
+   * Returns a cursor over all spans of this hierarchy in the order of {@link #toStringArray()},
+   * i.e. by length, then by position. The cursor does not create objects per span.
+   *
+   * @return cursor placed before the first span
+   */
+  public SpanCursor spans() {
+    return new SpanCursor(nGrams.size());
+  }
+
   /**
    * Returns length of initial n-gram, i.e. how many words it has.
    *
@@ -218,6 +228,77 @@ public class NGramHierarchy {
     return null;
   }
 
+  /**
+   * Cursor over the spans of an n-gram hierarchy, longest first. Use it like
+   * {@code while (cursor.next()) { ... cursor.getLength() ... cursor.getPosition() ... }}.
+   */
+  public static class SpanCursor {
+
+    private final int size;
+    private int length;
+    private int position;
+
+    SpanCursor(int size) {
+      this.size = size;
+      reset();
+    }
+
+    /**
+     * Moves the cursor to the next span.
+     *
+     * @return true if there is a next span, false if all spans were visited
+     */
+    public boolean next() {
+      if (length <= 0) {
+        return false;
+      }
+      position++;
+      if (position + length > size) {
+        length--;
+        position = 0;
+      }
+      return length > 0;
+    }
+
+    /**
+     * Places the cursor before the first span again.
+     */
+    public void reset() {
+      length = size;
+      position = -1;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public int getPosition() {
+      return position;
+    }
+
+    /**
+     * Returns the key of the current span.
+     *
+     * @return key of the current span
+     * @see NGramEntryPosition#toKey(int, int)
+     */
+    public long getKey() {
+      return NGramEntryPosition.toKey(length, position);
+    }
+
+    /**
+     * Returns true if the current span covers all words of the span with the given key and is
+     * longer.
+     *
+     * @param key key of the other span
+     * @return true if the current span is an ancestor of the other span
+     * @see NGramEntryPosition#isAncestorOf(long, long)
+     */
+    public boolean isAncestorOf(long key) {
+      return NGramEntryPosition.isAncestorOf(getKey(), key);
+    }
+  }
+
   /**
    * Returns all keywords in their representative order as string (with space as delimiter).
    *
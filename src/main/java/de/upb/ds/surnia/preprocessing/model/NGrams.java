@@ -1,13 +1,12 @@
 package de.upb.ds.surnia.preprocessing.model;
 
-import de.upb.ds.surnia.util.SurniaUtil;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.shingle.ShingleFilter;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.util.Version;
-import org.atteo.evo.inflector.English;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,8 +23,15 @@ public class NGrams {
 
   private Set<String> nGrams;
 
+  /**
+   * Character offsets (begin, end) of every occurrence of an NGram in the sentence.
+   */
+  private Map<String, List<int[]>> nGramSpans;
+
   private Map<String, Set<String>> tokensFromAutoIndex;
 
+  private LabelMatcher labelMatcher;
+
   /**
    * Produces Shingles/Ngrams from a given string.
    * e.g For a string "Who is relative of Jenny McCarthy?" this will generate
@@ -37,8 +43,20 @@ public class NGrams {
    * @param tokensFromAutoIndex
    */
   public NGrams(String sentence, Map<String, Set<String>> tokensFromAutoIndex) {
+    this(sentence);
     this.tokensFromAutoIndex = tokensFromAutoIndex;
-    this.nGrams = new HashSet<>();
+  }
+
+  /**
+   * Produces Shingles/Ngrams from a given string without any tokens from AutoIndex yet.
+   *
+   * @param sentence sentence to produce the NGrams for
+   * @see #setTokensFromAutoIndex(Map)
+   */
+  public NGrams(String sentence) {
+    this.tokensFromAutoIndex = Collections.emptyMap();
+    this.nGramSpans = new LinkedHashMap<>();
+    this.nGrams = this.nGramSpans.keySet();
     Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_46);
     StringReader reader = new StringReader(sentence);
     try {
@@ -47,15 +65,20 @@ public class NGrams {
       shingleFilter.setOutputUnigrams(true);
       shingleFilter.setMaxShingleSize(3);
       CharTermAttribute charTermAttribute = shingleFilter.addAttribute(CharTermAttribute.class);
+      OffsetAttribute offsetAttribute = shingleFilter.addAttribute(OffsetAttribute.class);
       shingleFilter.reset();
       while (shingleFilter.incrementToken()) {
-        this.nGrams.add(charTermAttribute.toString()
+        String nGram = charTermAttribute.toString()
           .replaceAll("[^\\\\dA-Za-z ]", "")
           .trim()
-          .toLowerCase());
+          .toLowerCase();
+        this.nGramSpans.computeIfAbsent(nGram, key -> new ArrayList<>())
+          .add(new int[]{offsetAttribute.startOffset(), offsetAttribute.endOffset()});
       }
-      for (String nGram : this.nGrams) {
-        logger.info("Ngram: "+nGram);
+      if (logger.isDebugEnabled()) {
+        for (String nGram : this.nGrams) {
+          logger.debug("Ngram: " + nGram);
+        }
       }
       shingleFilter.end();
       shingleFilter.close();
@@ -69,23 +92,74 @@ public class NGrams {
    * If the match is found then that token is kept and rest are discarded.
    * This will also handle any tokens that are in plural forms
    * e.g If a URI exists against token Employer and NL Token is Employers, it will still keep these tokens and map their URIs
+   * Every token carries the character offsets of one occurrence of its NGram in the sentence.
    *
    * @return List<Token>
    */
   public List<Token> produceTokens() {
     List<Token> tokenList = new ArrayList<>();
+    LabelMatcher labelMatcher = getLabelMatcher();
     for (String nGram : this.nGrams) {
-      this.tokensFromAutoIndex.keySet().forEach(tokenFromAutoIndex -> {
-        String autoIndexToken = tokenFromAutoIndex.replaceAll("\\\\", "").toLowerCase();
-        if (nGram.equals(autoIndexToken) || English.plural(autoIndexToken).equals(nGram) || SurniaUtil.levenshtein(nGram, autoIndexToken) <=2) {
-          // TODO: 07/01/2019 check if we need to use equals or contains
-          // TODO: 11/01/2019 Also try generating all possible combinations of a string that contains more than one label e.g "total population" and "population total"
+      for (String tokenFromAutoIndex : labelMatcher.match(nGram)) {
+        // TODO: 07/01/2019 check if we need to use equals or contains
+        // TODO: 11/01/2019 Also try generating all possible combinations of a string that contains more than one label e.g "total population" and "population total"
+        for (int[] span : nGramSpans.get(nGram)) {
           Token token = new Token(nGram);
           token.addUris(tokensFromAutoIndex.get(tokenFromAutoIndex));
+          token.setOffsets(span[0], span[1]);
           tokenList.add(token);
         }
-      });
+      }
     }
     return tokenList;
   }
+
+  /**
+   * Returns for every NGram the AutoIndex labels (with their URIs) that match it, i.e. that would
+   * produce a token in {@link #produceTokens()}. NGrams without any matching label are mapped to an
+   * empty map.
+   *
+   * @return NGrams mapped to their matching labels
+   */
+  public Map<String, Map<String, Set<String>>> getMatchingLabels() {
+    Map<String, Map<String, Set<String>>> matchingLabels = new HashMap<>();
+    LabelMatcher labelMatcher = getLabelMatcher();
+    for (String nGram : this.nGrams) {
+      Map<String, Set<String>> labels = new HashMap<>();
+      for (String tokenFromAutoIndex : labelMatcher.match(nGram)) {
+        labels.put(tokenFromAutoIndex, tokensFromAutoIndex.get(tokenFromAutoIndex));
+      }
+      matchingLabels.put(nGram, labels);
+    }
+    return matchingLabels;
+  }
+
+  /**
+   * Returns the matcher for the labels from AutoIndex, compiling them on first use.
+   */
+  private LabelMatcher getLabelMatcher() {
+    if (labelMatcher == null) {
+      labelMatcher = new LabelMatcher(tokensFromAutoIndex.keySet());
+    }
+    return labelMatcher;
+  }
+
+  /**
+   * Returns the NGrams produced for the sentence.
+   *
+   * @return NGrams of the sentence
+   */
+  public Set<String> getNGrams() {
+    return nGrams;
+  }
+
+  /**
+   * Sets the token to URI mappings from AutoIndex used by {@link #produceTokens()}.
+   *
+   * @param tokensFromAutoIndex mapping of labels to a set of URIs
+   */
+  public void setTokensFromAutoIndex(Map<String, Set<String>> tokensFromAutoIndex) {
+    this.tokensFromAutoIndex = tokensFromAutoIndex;
+    this.labelMatcher = null;
+  }
 }
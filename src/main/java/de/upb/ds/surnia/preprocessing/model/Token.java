@@ -10,6 +10,8 @@ public class Token {
   private String type;
   private String lemma;
   private Set<String> possibleTokenUris;
+  private int beginPosition = -1;
+  private int endPosition = -1;
 
   public Token(String text) {
     this(text, null);
@@ -79,6 +81,44 @@ public class Token {
     return possibleTokenUris;
   }
 
+  /**
+   * Sets the character offsets of the token in the question.
+   *
+   * @param beginPosition offset of the first character
+   * @param endPosition offset after the last character
+   */
+  public void setOffsets(int beginPosition, int endPosition) {
+    this.beginPosition = beginPosition;
+    this.endPosition = endPosition;
+  }
+
+  /**
+   * Returns true if the character offsets of the token in the question are known.
+   *
+   * @return true if the token has offsets
+   */
+  public boolean hasOffsets() {
+    return beginPosition >= 0 && endPosition >= beginPosition;
+  }
+
+  /**
+   * Returns the offset of the first character of the token in the question.
+   *
+   * @return the offset, or -1 if unknown
+   */
+  public int getBeginPosition() {
+    return beginPosition;
+  }
+
+  /**
+   * Returns the offset after the last character of the token in the question.
+   *
+   * @return the offset, or -1 if unknown
+   */
+  public int getEndPosition() {
+    return endPosition;
+  }
+
   @Override
   public String toString() {
     return "Token{" +
@@ -89,6 +129,7 @@ public class Token {
       '}';
   }
 
+  // The offsets are not compared, they depend on where the token was found in the question
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,117 @@
+package de.upb.ds.surnia.preprocessing.tasks;
+
+import de.upb.ds.surnia.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the responses of the Autoindex-endpoint on two levels. The first level maps whole
+ * questions to the label-URI mapping Autoindex returned for them. The second level maps each n-gram
+ * of an answered question to the Autoindex labels (and their URIs) that matched the n-gram, or to
+ * an empty mapping if none matched. If all n-grams of a new question are known on the second level,
+ * the question can be answered without asking Autoindex.
+ */
+@Component
+public class AutoindexCache {
+
+  private final ExpiringLruCache<String, HashMap<String, Set<String>>> questionCache;
+  private final ExpiringLruCache<String, Map<String, Set<String>>> nGramCache;
+
+  /**
+   * Creates the cache with the sizes and time to live given in the application properties.
+   *
+   * @param env environment with the application properties
+   */
+  @Autowired
+  public AutoindexCache(Environment env) {
+    this(env.getProperty("autoindex.cache.max-questions", Integer.class, 10000),
+      env.getProperty("autoindex.cache.max-ngrams", Integer.class, 100000),
+      TimeUnit.MINUTES.toMillis(env.getProperty("autoindex.cache.ttl-minutes", Long.class, 60L)));
+  }
+
+  /**
+   * Creates the cache with the given bounds.
+   *
+   * @param maxQuestions maximum number of cached questions
+   * @param maxNGrams maximum number of cached n-grams
+   * @param ttlMillis time in milliseconds after which entries expire
+   */
+  public AutoindexCache(int maxQuestions, int maxNGrams, long ttlMillis) {
+    questionCache = new ExpiringLruCache<>(maxQuestions, ttlMillis);
+    nGramCache = new ExpiringLruCache<>(maxNGrams, ttlMillis);
+  }
+
+  /**
+   * Returns the cached Autoindex mapping for the given question.
+   *
+   * @param question question asked by the user
+   * @return mapping of labels to a set of URIs, or null if the question is not cached
+   */
+  public HashMap<String, Set<String>> getAnswerMap(String question) {
+    return questionCache.get(question);
+  }
+
+  /**
+   * Caches the Autoindex mapping for the given question.
+   *
+   * @param question question asked by the user
+   * @param answerMap mapping of labels to a set of URIs
+   */
+  public void putAnswerMap(String question, HashMap<String, Set<String>> answerMap) {
+    questionCache.put(question, answerMap);
+  }
+
+  /**
+   * Collects the cached labels of all given n-grams.
+   *
+   * @param nGrams n-grams of a question
+   * @return mapping of the labels matching any of the n-grams to their URIs, or null if at least
+   *         one n-gram is not cached
+   */
+  public Map<String, Set<String>> getKnownLabels(Collection<String> nGrams) {
+    Map<String, Set<String>> labels = new HashMap<>();
+    for (String nGram : nGrams) {
+      Map<String, Set<String>> nGramLabels = nGramCache.get(nGram);
+      if (nGramLabels == null) {
+        return null;
+      }
+      labels.putAll(nGramLabels);
+    }
+    return labels;
+  }
+
+  /**
+   * Caches the labels that matched each of the given n-grams.
+   *
+   * @param matchingLabels n-grams mapped to the labels (and their URIs) matching them
+   */
+  public void putLabels(Map<String, Map<String, Set<String>>> matchingLabels) {
+    for (Map.Entry<String, Map<String, Set<String>>> entry : matchingLabels.entrySet()) {
+      nGramCache.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+    }
+  }
+
+  /**
+   * Drops all cached responses, e.g. after the Autoindex has been rebuilt.
+   */
+  public void invalidateAll() {
+    questionCache.invalidateAll();
+    nGramCache.invalidateAll();
+  }
+
+  public ExpiringLruCache<String, HashMap<String, Set<String>>> getQuestionCache() {
+    return questionCache;
+  }
+
+  public ExpiringLruCache<String, Map<String, Set<String>>> getNGramCache() {
+    return nGramCache;
+  }
+}
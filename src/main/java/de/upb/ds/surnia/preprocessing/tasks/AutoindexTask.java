@@ -1,25 +1,37 @@
 package de.upb.ds.surnia.preprocessing.tasks;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import de.upb.ds.surnia.jfr.StageEvent;
 import de.upb.ds.surnia.preprocessing.TokenMerger;
 import de.upb.ds.surnia.preprocessing.model.NGramEntryPosition;
 import de.upb.ds.surnia.preprocessing.model.NGrams;
 import de.upb.ds.surnia.preprocessing.model.Token;
+import de.upb.ds.surnia.util.Json;
+import de.upb.ds.surnia.util.RequestContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.stereotype.Component;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This Task-implementation builds onto previous tasks and tries to find URIs for the given
@@ -28,7 +40,6 @@ import java.util.*;
  * influences the token building, which considers information of the given tokens from previous
  * tokens.
  */
-@Component
 public class AutoindexTask implements TaskInterface {
 
 
@@ -39,8 +50,12 @@ public class AutoindexTask implements TaskInterface {
   public static final String DEFAULT_URL = "http://localhost:9091/search";
   private static final Logger log = LoggerFactory.getLogger(AutoindexTask.class);
 
+  private static RestTemplate defaultRestTemplate;
+
   private UriComponentsBuilder builder;
   private HttpMethod httpMethod;
+  private RestTemplate restTemplate;
+  private AutoindexCache cache;
 
   /**
    * Constructs this task with the default URL.
@@ -50,11 +65,109 @@ public class AutoindexTask implements TaskInterface {
   }
 
   /**
-   * Constructs this task with the given URL.
+   * Constructs this task with the given URL and the default client, which is shared by all tasks
+   * without a client of their own and created on the first request.
+   *
+   * @see #closeDefaultRestTemplate()
    */
   public AutoindexTask(String url) {
+    this(url, null);
+  }
+
+  /**
+   * Constructs this task with the given URL and HTTP client.
+   *
+   * @param url URL of the Autoindex-endpoint
+   * @param restTemplate client used for the requests, see {@link #createRestTemplate}, null for
+   *        the default client
+   */
+  public AutoindexTask(String url, RestTemplate restTemplate) {
+    this(url, restTemplate, null);
+  }
+
+  /**
+   * Constructs this task with the given URL, HTTP client and cache for the Autoindex responses.
+   *
+   * @param url URL of the Autoindex-endpoint
+   * @param restTemplate client used for the requests, see {@link #createRestTemplate}, null for
+   *        the default client
+   * @param cache cache for the Autoindex responses, null to always ask the endpoint
+   */
+  public AutoindexTask(String url, RestTemplate restTemplate, AutoindexCache cache) {
     this.builder = UriComponentsBuilder.fromHttpUrl(url);
     this.httpMethod = HttpMethod.POST;
+    this.restTemplate = restTemplate;
+    this.cache = cache;
+  }
+
+  /**
+   * Creates a client with a pool of keep-alive connections and the given limits.
+   *
+   * @param maxConnections maximum number of open connections
+   * @param maxConnectionsPerRoute maximum number of open connections per host
+   * @param connectTimeout timeout for establishing a connection in milliseconds
+   * @param readTimeout timeout for waiting on response data in milliseconds
+   * @param keepAlive time an idle connection is kept open in milliseconds, unless the server asks
+   *        for less
+   * @return client for {@link #AutoindexTask(String, RestTemplate)}, to be closed with
+   *         {@link #closeRestTemplate(RestTemplate)}
+   */
+  public static RestTemplate createRestTemplate(int maxConnections, int maxConnectionsPerRoute,
+    int connectTimeout, int readTimeout, long keepAlive) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    CloseableHttpClient httpClient = HttpClients.custom()
+      .setConnectionManager(connectionManager)
+      .setKeepAliveStrategy((response, context) -> {
+        long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+          .getKeepAliveDuration(response, context);
+        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+      })
+      .evictExpiredConnections()
+      .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+      .build();
+    HttpComponentsClientHttpRequestFactory requestFactory =
+      new HttpComponentsClientHttpRequestFactory(httpClient);
+    requestFactory.setConnectTimeout(connectTimeout);
+    requestFactory.setConnectionRequestTimeout(connectTimeout);
+    requestFactory.setReadTimeout(readTimeout);
+    return new RestTemplate(requestFactory);
+  }
+
+  /**
+   * Closes the connections of a client created by {@link #createRestTemplate} and stops its
+   * eviction thread.
+   *
+   * @param restTemplate client to close
+   */
+  public static void closeRestTemplate(RestTemplate restTemplate) {
+    ClientHttpRequestFactory requestFactory = restTemplate.getRequestFactory();
+    if (requestFactory instanceof DisposableBean) {
+      try {
+        ((DisposableBean) requestFactory).destroy();
+      } catch (Exception e) {
+        log.warn("Could not close the Autoindex client", e);
+      }
+    }
+  }
+
+  private static synchronized RestTemplate getDefaultRestTemplate() {
+    if (defaultRestTemplate == null) {
+      defaultRestTemplate = createRestTemplate(20, 10, 2000, 5000, 30000);
+    }
+    return defaultRestTemplate;
+  }
+
+  /**
+   * Closes the default client of the tasks without a client of their own. A later request creates
+   * a new one.
+   */
+  public static synchronized void closeDefaultRestTemplate() {
+    if (defaultRestTemplate != null) {
+      closeRestTemplate(defaultRestTemplate);
+      defaultRestTemplate = null;
+    }
   }
 
   /**
@@ -68,26 +181,64 @@ public class AutoindexTask implements TaskInterface {
    */
   @Override
   public List<Token> processTokens(String question, List<Token> tokens) {
-    List<Token> autoindexToken = produceTokens(question);
-    log.info("Candidate Mapping Produced: {}", autoindexToken);
-    TokenMerger tokenMerger = new TokenMerger();
-    List<Token> finalTokens = new ArrayList<>(tokens);
-    for (Token token : autoindexToken) {
-      finalTokens = tokenMerger.integrateToken(finalTokens, token);
-    }
-    return finalTokens;
+    return mergeTokens(tokens, produceTokens(question));
+  }
+
+  /**
+   * The Autoindex lookup only needs the question, the previous tokens are only needed for merging.
+   *
+   * @return only {@link Input#QUESTION}
+   */
+  @Override
+  public Set<Input> getRequiredInputs() {
+    return EnumSet.of(Input.QUESTION);
+  }
+
+  @Override
+  public String getStageName() {
+    return "autoindex";
+  }
+
+  /**
+   * Merges the tokens produced by Autoindex into the given tokens of the previous tasks.
+   *
+   * @param previousTokens tokens from previous tasks
+   * @param autoindexTokens tokens produced by {@link #produceTokens(String)}
+   * @return merged tokens with URL-information produces by Autoindex
+   */
+  @Override
+  public List<Token> mergeTokens(List<Token> previousTokens, List<Token> autoindexTokens) {
+    log.debug("Candidate Mapping Produced: {}", autoindexTokens);
+    return new TokenMerger().integrateTokens(previousTokens, autoindexTokens);
   }
 
   /**
    * Given a question, provides the candidates for all n-grams. In this process, the children will
-   * be pruned if their parents have any URIs.
+   * be pruned if their parents have any URIs. If the labels of all n-grams are already cached, the
+   * Autoindex-endpoint is not asked.
    *
    * @param question question for which the candidates should be found
    */
-  private List<Token> produceTokens(String question) {
+  @Override
+  public List<Token> produceTokens(String question) {
     Map<NGramEntryPosition, Set<String>> candidateMap = new HashMap<>();
-    HashMap<String, Set<String>> answerMap = getAnswerMapFromAutoindex(question);
-    NGrams nGrams = new NGrams(question, answerMap);
+    NGrams nGrams = new NGrams(question);
+    if (cache != null) {
+      Map<String, Set<String>> knownLabels = cache.getKnownLabels(nGrams.getNGrams());
+      if (knownLabels != null) {
+        log.debug("All n-grams of '{}' are cached", question);
+        nGrams.setTokensFromAutoIndex(knownLabels);
+        return nGrams.produceTokens();
+      }
+    }
+    HashMap<String, Set<String>> answerMap = lookupAnswerMap(question);
+    if (answerMap == null) {
+      return new ArrayList<>();
+    }
+    nGrams.setTokensFromAutoIndex(answerMap);
+    if (cache != null) {
+      cache.putLabels(nGrams.getMatchingLabels());
+    }
     return nGrams.produceTokens();
 //    NGramHierarchy nGramHierarchy = new NGramHierarchy(question);
 //
@@ -129,11 +280,42 @@ public class AutoindexTask implements TaskInterface {
    * @return mapping of n-grams to a set of URIs
    */
   protected HashMap<String, Set<String>> getAnswerMapFromAutoindex(String question) {
-    HttpEntity<String> response = getRestResponse(question);
-    ObjectMapper mapper = new ObjectMapper();
+    HashMap<String, Set<String>> answerMap = lookupAnswerMap(question);
+    return answerMap != null ? answerMap : new HashMap<>();
+  }
+
+  /**
+   * Asynchronous variant of {@link #getAnswerMapFromAutoindex(String)}, so the caller can do other
+   * work while the Autoindex-endpoint is answering.
+   *
+   * @param question question for which the candidates should be found
+   * @param executor executor the request is sent from
+   * @return future mapping of n-grams to a set of URIs, empty if the request failed
+   */
+  public CompletableFuture<Map<String, Set<String>>> getAnswerMapFromAutoindexAsync(
+    String question, Executor executor) {
+    return CompletableFuture.supplyAsync(
+      RequestContext.wrapSupplier(() -> getAnswerMapFromAutoindex(question)), executor);
+  }
+
+  /**
+   * Looks up the mapping for the given question in the cache or requests it from the
+   * Autoindex-endpoint. Only successful requests are cached.
+   *
+   * @return mapping of n-grams to a set of URIs, or null if the request failed
+   */
+  private HashMap<String, Set<String>> lookupAnswerMap(String question) {
+    if (cache != null) {
+      HashMap<String, Set<String>> cachedAnswerMap = cache.getAnswerMap(question);
+      if (cachedAnswerMap != null) {
+        return cachedAnswerMap;
+      }
+    }
     HashMap<String, Set<String>> answerMap = new HashMap<>();
+    StageEvent event = StageEvent.start("autoindex_request");
     try {
-      JsonNode root = mapper.readTree(response.getBody());
+      HttpEntity<String> response = getRestResponse(question);
+      JsonNode root = Json.MAPPER.readTree(response.getBody());
       JsonNode answerArray = root.path("results").path("bindings");
       for (JsonNode objNode : answerArray) {
         String label = objNode.path("label").path("value").toString().replace("\"", "");
@@ -147,18 +329,27 @@ public class AutoindexTask implements TaskInterface {
       }
     } catch (IOException ioE) {
       log.error("Answer of request is not JSON-formatted!");
+      return null;
+    } catch (RestClientException e) {
+      log.error("Autoindex request failed: {}", e.getMessage());
+      return null;
+    } finally {
+      event.finish(-1, answerMap.size());
+    }
+    log.debug("{}", answerMap);
+    if (cache != null) {
+      cache.putAnswerMap(question, answerMap);
     }
-    log.info("{}", answerMap);
     return answerMap;
   }
 
   private HttpEntity<String> getRestResponse(String request) {
-    RestTemplate restTemplate = new RestTemplate();
     HttpHeaders headers = setHeaders();
     headers.set("Accept", MediaType.APPLICATION_JSON_VALUE);
     String body = buildJSON(request);
     HttpEntity<?> entity = new HttpEntity<>(body, headers);
-    return restTemplate.exchange(
+    RestTemplate client = restTemplate != null ? restTemplate : getDefaultRestTemplate();
+    return client.exchange(
       builder.toUriString(), //URL
       httpMethod,
       entity,
@@ -4,15 +4,16 @@ import de.upb.ds.surnia.preprocessing.model.Token;
 import edu.stanford.nlp.ling.CoreAnnotations.*;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * This Task-implementation acts as a start task for the processing. It ignores the given tokens and
@@ -23,6 +24,54 @@ public class StanfordNERTask implements TaskInterface {
 
   private final Logger logger = LoggerFactory.getLogger(StanfordNERTask.class);
 
+  private final StanfordPipelinePool pipelinePool;
+
+  /**
+   * Constructs this task with the shared pipeline pool.
+   */
+  public StanfordNERTask() {
+    this(StanfordPipelinePool.getSharedPool());
+  }
+
+  /**
+   * Constructs this task with the given pipeline pool.
+   */
+  public StanfordNERTask(StanfordPipelinePool pipelinePool) {
+    this.pipelinePool = pipelinePool;
+  }
+
+  /**
+   * Returns the CoreNLP properties used for the pipelines of this task.
+   *
+   * @return CoreNLP properties
+   */
+  public static Properties createProperties() {
+//    Properties props = StringUtils.argsToProperties("-props", "StanfordCoreNLP-german.properties");
+    Properties props = new Properties();
+//    props.setProperty("annotators", "tokenize, ssplit, pos, lemma, ner, parse"); //lemma not supported in german
+    props.setProperty("annotators", "tokenize, ssplit, pos, lemma"); //lemma not supported in german
+    return props;
+  }
+
+  public StanfordPipelinePool getPipelinePool() {
+    return pipelinePool;
+  }
+
+  /**
+   * This task only needs the question, the given tokens are ignored anyway.
+   *
+   * @return only {@link Input#QUESTION}
+   */
+  @Override
+  public Set<Input> getRequiredInputs() {
+    return EnumSet.of(Input.QUESTION);
+  }
+
+  @Override
+  public String getStageName() {
+    return "corenlp";
+  }
+
   /**
    * Returns a list of tokens with POS-tags and other NER-relevant information provided by the
    * StanfordNER. It ignores the given token-list but instead build its own list by only considering
@@ -34,13 +83,7 @@ public class StanfordNERTask implements TaskInterface {
    */
   @Override
   public List<Token> processTokens(String question, List<Token> tokens) {
-//    Properties props = StringUtils.argsToProperties("-props", "StanfordCoreNLP-german.properties");
-    Properties props = new Properties();
-//    props.setProperty("annotators", "tokenize, ssplit, pos, lemma, ner, parse"); //lemma not supported in german
-    props.setProperty("annotators", "tokenize, ssplit, pos, lemma"); //lemma not supported in german
-    Annotation annotation = new Annotation(question);
-    StanfordCoreNLP nlp = new StanfordCoreNLP(props);
-    nlp.annotate(annotation);
+    Annotation annotation = pipelinePool.annotate(question);
     List<CoreMap> sentences = annotation.get(SentencesAnnotation.class);
     List<Token> stanfordTokens = new ArrayList<>();
     if (sentences.size() != 1) {
@@ -51,7 +94,9 @@ public class StanfordNERTask implements TaskInterface {
           String text = token.get(TextAnnotation.class);
           String pos = token.get(PartOfSpeechAnnotation.class);
           String lemma = token.get(LemmaAnnotation.class);
-          stanfordTokens.add(new Token(text, pos, lemma));
+          Token stanfordToken = new Token(text, pos, lemma);
+          stanfordToken.setOffsets(token.beginPosition(), token.endPosition());
+          stanfordTokens.add(stanfordToken);
         }
       }
     }
@@ -0,0 +1,203 @@
+package de.upb.ds.surnia.preprocessing.tasks;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size pool of StanfordCoreNLP pipelines that limits how many questions are annotated
+ * concurrently. A question borrows a pipeline for the duration of one annotation and hands it
+ * back afterwards.
+ *
+ * <p>CoreNLP caches annotators globally by their properties, so all pipelines of the pool share
+ * one tokenizer, POS tagger and lemmatizer. These annotators are thread-safe, and the models are
+ * loaded only once. The pool does not add model instances; its size only bounds the concurrent
+ * annotations, which are CPU-bound, so more pipelines than cores gain nothing.</p>
+ */
+public class StanfordPipelinePool {
+
+  private static final Logger logger = LoggerFactory.getLogger(StanfordPipelinePool.class);
+
+  /**
+   * Questions annotated before the pool is handed out, so the first real questions do not pay for
+   * class loading and JIT compilation.
+   */
+  private static final String[] WARM_UP_QUESTIONS = {
+    "What is the language of France?",
+    "Who is the mayor of Berlin?",
+    "Which rivers flow through Germany?",
+    "When was the Battle of Gettysburg?",
+    "How many people live in the capital of Australia?"
+  };
+
+  private static StanfordPipelinePool sharedPool;
+
+  private final BlockingQueue<StanfordCoreNLP> idlePipelines;
+  private final int size;
+
+  private final AtomicLong acquisitions = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  /**
+   * Builds a pool with the given amount of pipelines, all configured with the given properties.
+   * The pipelines share their annotators, so only the first one loads the models.
+   *
+   * @param props CoreNLP properties, e.g. the annotators to use
+   * @param size number of questions that may be annotated concurrently
+   */
+  public StanfordPipelinePool(Properties props, int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Pool needs at least one pipeline, got " + size);
+    }
+    this.size = size;
+    this.idlePipelines = new ArrayBlockingQueue<>(size);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < size; i++) {
+      idlePipelines.add(new StanfordCoreNLP(props));
+    }
+    logger.info("Built {} CoreNLP pipelines in {} ms", size, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Returns the pool shared by all StanfordNER tasks. On first access the pool is built with one
+   * pipeline per available core, as annotating is CPU-bound, and warmed up, so this call blocks
+   * until the pool is ready.
+   *
+   * @return shared, warmed up pool
+   */
+  public static synchronized StanfordPipelinePool getSharedPool() {
+    if (sharedPool == null) {
+      StanfordPipelinePool pool = new StanfordPipelinePool(StanfordNERTask.createProperties(),
+        Runtime.getRuntime().availableProcessors());
+      pool.warmUp();
+      sharedPool = pool;
+    }
+    return sharedPool;
+  }
+
+  /**
+   * Annotates the warm-up questions. One pipeline suffices, as all pipelines share the annotators.
+   */
+  public void warmUp() {
+    long start = System.currentTimeMillis();
+    StanfordCoreNLP nlp = acquire();
+    try {
+      for (String question : WARM_UP_QUESTIONS) {
+        nlp.annotate(new Annotation(question));
+      }
+    } finally {
+      release(nlp);
+    }
+    // the warm-up should not distort the wait statistics
+    acquisitions.set(0);
+    totalWaitNanos.set(0);
+    maxWaitNanos.set(0);
+    logger.info("Warmed up CoreNLP pipelines in {} ms", System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Annotates the given text with a pipeline of the pool. Blocks until a pipeline is free.
+   *
+   * @param text text to annotate
+   * @return annotated text
+   */
+  public Annotation annotate(String text) {
+    Annotation annotation = new Annotation(text);
+    StanfordCoreNLP nlp = acquire();
+    try {
+      nlp.annotate(annotation);
+    } finally {
+      release(nlp);
+    }
+    return annotation;
+  }
+
+  private StanfordCoreNLP acquire() {
+    long start = System.nanoTime();
+    StanfordCoreNLP nlp;
+    try {
+      nlp = idlePipelines.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a CoreNLP pipeline", e);
+    }
+    long waited = System.nanoTime() - start;
+    acquisitions.incrementAndGet();
+    totalWaitNanos.addAndGet(waited);
+    maxWaitNanos.accumulateAndGet(waited, Math::max);
+    return nlp;
+  }
+
+  private void release(StanfordCoreNLP nlp) {
+    idlePipelines.offer(nlp);
+  }
+
+  /**
+   * Returns the number of pipelines in this pool.
+   *
+   * @return number of pipelines
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the number of pipelines that are currently free.
+   *
+   * @return number of free pipelines
+   */
+  public int getIdleCount() {
+    return idlePipelines.size();
+  }
+
+  /**
+   * Returns the number of pipelines that are currently annotating a question.
+   *
+   * @return number of busy pipelines
+   */
+  public int getBusyCount() {
+    return size - idlePipelines.size();
+  }
+
+  /**
+   * Returns how often a pipeline was borrowed from this pool.
+   *
+   * @return number of borrowed pipelines
+   */
+  public long getAcquisitionCount() {
+    return acquisitions.get();
+  }
+
+  /**
+   * Returns the average time a question waited for a free pipeline.
+   *
+   * @return average waiting time in milliseconds
+   */
+  public double getAverageWaitMillis() {
+    long count = acquisitions.get();
+    return count == 0 ? 0.0 : totalWaitNanos.get() / (count * 1_000_000.0);
+  }
+
+  /**
+   * Returns the longest time a question waited for a free pipeline.
+   *
+   * @return maximum waiting time in milliseconds
+   */
+  public double getMaxWaitMillis() {
+    return maxWaitNanos.get() / 1_000_000.0;
+  }
+
+  @Override
+  public String toString() {
+    return "StanfordPipelinePool{size=" + size + ", idle=" + getIdleCount() + ", busy="
+      + getBusyCount() + ", acquisitions=" + getAcquisitionCount() + ", avgWaitMs="
+      + getAverageWaitMillis() + ", maxWaitMs=" + getMaxWaitMillis() + '}';
+  }
+}
@@ -2,7 +2,10 @@ package de.upb.ds.surnia.preprocessing.tasks;
 
 import de.upb.ds.surnia.preprocessing.model.Token;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A task-object that processes the given question and the given tokens from previous tasks and
@@ -11,6 +14,20 @@ import java.util.List;
  */
 public interface TaskInterface {
 
+  /**
+   * Inputs a task can depend on when producing its tokens.
+   */
+  enum Input {
+    /**
+     * The question asked by the user.
+     */
+    QUESTION,
+    /**
+     * The tokens produced by the previous tasks.
+     */
+    PREVIOUS_TOKENS
+  }
+
   /**
    * Given the question and tokens from previous tasks, this method returns its own set of tokens.
    * Implementations can ignore either the given question or the tokens. Ignoring the tokens means
@@ -21,4 +38,49 @@ public interface TaskInterface {
    */
   List<Token> processTokens(String question, List<Token> tokens);
 
+  /**
+   * Returns the inputs this task needs for {@link #produceTokens(String)}. A task that does not
+   * need {@link Input#PREVIOUS_TOKENS} can be started before the previous tasks are done. Its
+   * result is combined with the previous tokens afterwards via {@link #mergeTokens(List, List)}.
+   * By default a task needs all inputs and is run via {@link #processTokens(String, List)}.
+   *
+   * @return inputs needed to produce the tokens of this task
+   */
+  default Set<Input> getRequiredInputs() {
+    return EnumSet.allOf(Input.class);
+  }
+
+  /**
+   * Produces the tokens of this task only from the question. Only called if this task does not
+   * require {@link Input#PREVIOUS_TOKENS}.
+   *
+   * @param question question asked by the user
+   * @return tokens produced by this task
+   */
+  default List<Token> produceTokens(String question) {
+    return processTokens(question, Collections.emptyList());
+  }
+
+  /**
+   * Combines the tokens produced by {@link #produceTokens(String)} with the tokens of the previous
+   * tasks. By default the previous tokens are ignored, like a starting task does.
+   *
+   * @param previousTokens tokens from previous tasks
+   * @param producedTokens tokens produced by this task
+   * @return combined tokens
+   */
+  default List<Token> mergeTokens(List<Token> previousTokens, List<Token> producedTokens) {
+    return producedTokens;
+  }
+
+  /**
+   * Returns the name under which the time spent in this task is recorded, e.g. in the
+   * {@link de.upb.ds.surnia.util.PipelineMetrics}. By default the simple class name.
+   *
+   * @return name of the stage of this task
+   */
+  default String getStageName() {
+    return getClass().getSimpleName();
+  }
+
 }
@@ -1,137 +1,82 @@
 package de.upb.ds.surnia.qa;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import de.upb.ds.surnia.gerbil.GerbilFinalResponse;
-import de.upb.ds.surnia.qa.AnswerContainer.AnswerType;
-import org.aksw.qa.commons.datastructure.Question;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import de.upb.ds.surnia.gerbil.QaldResponseWriter;
+import de.upb.ds.surnia.util.PipelineMetrics;
+import de.upb.ds.surnia.util.RequestContext;
+import de.upb.ds.surnia.util.RequestTrace;
 
 import java.io.IOException;
-import java.util.Set;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Locale;
 
 /**
  * An abstract layer for the qa system.
  */
 public abstract class AbstractQuestionAnswerer {
 
-  @SuppressWarnings("unchecked")
-  private JSONObject getAnswersAsQald(Set<String> answers, AnswerType answerType)
-    throws IOException, ParseException {
+  private final QaldResponseWriter responseWriter = new QaldResponseWriter();
+  private AnswerCache answerCache;
+  private PipelineMetrics metrics;
 
-    String varName = answerType.toString().toLowerCase();
-//    String varName = "resource";
-    JSONObject answerJson = new JSONObject();
-    JSONObject head = new JSONObject();
-    JSONArray varArr = new JSONArray();
-    if (answerType.equals(AnswerType.BOOLEAN)) {
-      // boolean answers are handled different
-      answerJson.put("head", head);
-      answerJson.put("boolean", Boolean.valueOf(answers.iterator().next()));
-      return answerJson;
-    }
-    varArr.add(varName);
-    head.put("vars", varArr);
-
-    JSONObject results = new JSONObject();
-    JSONArray bindings = new JSONArray();
-    for (String answer : answers) {
-      JSONObject binding = new JSONObject();
-      JSONObject var = new JSONObject();
-      var.put("type", "literal");
-      switch (answerType) {
-        case RESOURCE:
-          var.put("type", answerType.toString().toLowerCase());
-          var.put("value", answer);
-          break;
-        default:
-          // is literal
-          processLiteral(answer, var);
-          break;
-      }
-
-      binding.put(varName, var);
-      bindings.add(binding);
-    }
-    results.put("bindings", bindings);
-    answerJson.put("head", head);
-    answerJson.put("results", results);
+  /**
+   * Sets the cache for the answers of whole questions.
+   *
+   * @param answerCache cache for the answers, or null to answer every question from scratch
+   */
+  public void setAnswerCache(AnswerCache answerCache) {
+    this.answerCache = answerCache;
+  }
 
-    return answerJson;
+  /**
+   * Sets the metrics the time for rendering the answers is recorded in.
+   *
+   * @param metrics metrics of the pipeline, or null to record nothing
+   */
+  public void setMetrics(PipelineMetrics metrics) {
+    this.metrics = metrics;
   }
 
-  @SuppressWarnings("unchecked")
-  private void processLiteral(String answer, JSONObject var) {
-    // regular expression to check if answer got a lang tag
-    boolean hasLangTag = answer.matches(".*@\\w+");
-    // matches either a ^^<whatever> or ^^xml:tag datatype
-    boolean hasDatatypeTag = answer.matches(".*\\^\\^(<[^<>]+>|xml:\\w+)");
-    int offset = answer.length();
-    if (hasLangTag) {
-      int langStartIndex = answer.lastIndexOf("@");
-      String lang = answer.substring(langStartIndex + 1);
-      var.put("xml:lang", lang);
-      offset = langStartIndex;
-    } else if (hasDatatypeTag) {
-      int datatypeStartIndex = answer.lastIndexOf("^^");
-      String datatype = answer.substring(datatypeStartIndex + 2);
-      if (datatype.startsWith("<")) {
-        datatype = datatype.substring(1, datatype.length() - 1);
-      }
-      var.put("datatype", datatype);
-      offset = datatypeStartIndex;
-    }
-    int beginIndex = 0;
-    if (answer.startsWith("'''")) {
-      beginIndex = 3;
-      offset -= 3;
-    }
-    if (answer.startsWith("\"") || answer.startsWith("'")) {
-      beginIndex = 1;
-      offset -= 1;
+  /**
+   * Answers the question, from the answer cache if it has the answer.
+   *
+   * @param question the question
+   * @param lang Language of the question.
+   * @return answer to the question, must not be modified
+   */
+  public AnswerContainer getAnswersToQuestion(String question, String lang) {
+    AnswerContainer answers = answerCache == null ? retrieveAnswers(question, lang)
+      : answerCache.get(question, lang, () -> retrieveAnswers(question, lang));
+    RequestTrace trace = RequestContext.getTrace();
+    if (trace != null) {
+      trace.setAnswer(answers.getType().toString().toLowerCase(Locale.ROOT),
+        new ArrayList<>(answers.getAnswers()), answers.getSparqlQuery());
     }
-    var.put("value", answer.substring(beginIndex, offset));
+    return answers;
   }
 
   /**
-   * Create a JSON Object from the question answers.
+   * Answers the question and writes the answer as QALD JSON to the stream. The time for writing,
+   * which includes sending the answer if the stream is not buffered, is recorded as JSON rendering.
    *
-   * @param q Question object with the answers.
-   * @param lang Language of the answered question.
-   * @return JSON Object representing the answers.
+   * @param question the question
+   * @param lang Language of the question.
+   * @param out stream the UTF-8 encoded JSON is written to, it is not closed
+   * @return answer to the question, must not be modified
+   * @throws IOException if the stream cannot be written
    */
-  public JSONObject getAnswersToQuestion(final Question q, String lang) {
-    // gets the prefered question
-    String question = q.getLanguageToQuestion().get(lang);
-
-    // retrieve the answers from the system
-    AnswerContainer answers = retrieveAnswers(question, lang);
-    // sets the answers
-    q.setGoldenAnswers(lang, answers.getAnswers());
-    // sets the answertype as lower case (e.g. resource)
-    q.setAnswerType(answers.getType().toString().toLowerCase());
-    //
-    q.setSparqlQuery(lang, answers.getSparqlQuery());
+  public AnswerContainer writeAnswersToQuestion(String question, String lang, OutputStream out)
+    throws IOException {
+    AnswerContainer answers = getAnswersToQuestion(question, lang);
+    long start = System.nanoTime();
     try {
-      q.setAnswerAsQALDJSON(getAnswersAsQald(answers.getAnswers(), answers.getType()));
-
-      // return the answer as a valid qaldJSON string
-      GerbilFinalResponse resp = new GerbilFinalResponse();
-
-      resp.setQuestions(q, lang);
-      ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
-      String json;
-
-      json = ow.writeValueAsString(resp);
-      return (JSONObject) new JSONParser().parse(json);
-    } catch (ParseException | IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      responseWriter.write(answers, question, lang, out);
+    } finally {
+      if (metrics != null) {
+        metrics.recordSince(PipelineMetrics.JSON_RENDERING, start);
+      }
     }
-    return null;
+    return answers;
   }
 
   /**
@@ -0,0 +1,185 @@
+package de.upb.ds.surnia.qa;
+
+import de.upb.ds.surnia.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Caches the answers of whole questions, keyed by the normalized question and its language. If the
+ * same question is asked several times at once, only the first request computes the answer and the
+ * others wait for its result.
+ *
+ * <p>The question is normalized by unicode normalization and by collapsing whitespace. Case and
+ * punctuation are kept, since they change the tags of the NLP pipeline and therefore the answer.
+ * Only answers that were found by a query are cached; the fallback answer of a question without
+ * any answering query may be caused by a slow or unavailable SPARQL endpoint.</p>
+ */
+@Component
+public class AnswerCache {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final ExpiringLruCache<String, AnswerContainer> answers;
+  private final ConcurrentHashMap<String, CompletableFuture<AnswerContainer>> inFlight =
+    new ConcurrentHashMap<>();
+
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder loadNanos = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Creates the cache with the size and time to live given in the application properties.
+   *
+   * @param env environment with the application properties
+   */
+  @Autowired
+  public AnswerCache(Environment env) {
+    this(env.getProperty("answer.cache.max-size", Integer.class, 10000),
+      TimeUnit.MINUTES.toMillis(env.getProperty("answer.cache.ttl-minutes", Long.class, 60L)));
+  }
+
+  /**
+   * Creates the cache with the given bounds.
+   *
+   * @param maxSize maximum number of cached answers
+   * @param ttlMillis time in milliseconds after which answers expire
+   */
+  public AnswerCache(int maxSize, long ttlMillis) {
+    answers = new ExpiringLruCache<>(maxSize, ttlMillis);
+  }
+
+  /**
+   * Returns the cached answer to the question, or computes it with the given loader. Concurrent
+   * calls for the same question share one computation.
+   *
+   * @param question question asked by the user
+   * @param lang language of the question
+   * @param loader computes the answer if it is neither cached nor computed at the moment
+   * @return answer to the question, must not be modified
+   */
+  public AnswerContainer get(String question, String lang, Supplier<AnswerContainer> loader) {
+    String key = toKey(question, lang);
+    AnswerContainer answer = answers.get(key);
+    if (answer != null) {
+      return answer;
+    }
+    CompletableFuture<AnswerContainer> future = new CompletableFuture<>();
+    CompletableFuture<AnswerContainer> running = inFlight.putIfAbsent(key, future);
+    if (running != null) {
+      coalesced.increment();
+      return await(running);
+    }
+    try {
+      long start = System.nanoTime();
+      try {
+        answer = snapshot(loader.get());
+      } finally {
+        loadNanos.add(System.nanoTime() - start);
+        loads.increment();
+      }
+      if (answer.getSparqlQuery() != null) {
+        answers.put(key, answer);
+      }
+      future.complete(answer);
+      return answer;
+    } catch (RuntimeException | Error e) {
+      loadFailures.increment();
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private static AnswerContainer await(CompletableFuture<AnswerContainer> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Copies the answer so that neither the loader nor the callers can change the cached one.
+   */
+  private static AnswerContainer snapshot(AnswerContainer answer) {
+    AnswerContainer snapshot = new AnswerContainer();
+    snapshot.setType(answer.getType());
+    snapshot.setSparqlQuery(answer.getSparqlQuery());
+    if (answer.getAnswers() != null) {
+      snapshot.setAnswers(Collections.unmodifiableSet(new LinkedHashSet<>(answer.getAnswers())));
+    }
+    return snapshot;
+  }
+
+  /**
+   * Builds the cache key of a question.
+   *
+   * @param question question asked by the user
+   * @param lang language of the question
+   * @return normalized language and question
+   */
+  static String toKey(String question, String lang) {
+    String normalizedQuestion = WHITESPACE.matcher(
+      Normalizer.normalize(question, Normalizer.Form.NFKC)).replaceAll(" ").trim();
+    String normalizedLang = lang == null ? "" : lang.trim().toLowerCase(Locale.ROOT);
+    return normalizedLang + '\u0000' + normalizedQuestion;
+  }
+
+  /**
+   * Drops all cached answers, e.g. after the knowledge base or the query templates changed.
+   */
+  public void invalidateAll() {
+    answers.invalidateAll();
+  }
+
+  /**
+   * Returns the number of questions whose answer is computed at the moment.
+   *
+   * @return number of running computations
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  /**
+   * Returns the statistics of this cache, e.g. for monitoring endpoints.
+   *
+   * @return statistic names mapped to their current values
+   */
+  public Map<String, Object> getStatistics() {
+    Map<String, Object> statistics = answers.getStatistics();
+    long hits = answers.getHitCount();
+    long requests = hits + answers.getMissCount();
+    long loadCount = loads.sum();
+    statistics.put("hitRate", requests == 0 ? 0.0d : (double) hits / requests);
+    statistics.put("loads", loadCount);
+    statistics.put("loadFailures", loadFailures.sum());
+    statistics.put("averageLoadMillis",
+      loadCount == 0 ? 0.0d : loadNanos.sum() / 1e6d / loadCount);
+    statistics.put("coalesced", coalesced.sum());
+    statistics.put("inFlight", getInFlightCount());
+    return statistics;
+  }
+}
@@ -0,0 +1,40 @@
+package de.upb.ds.surnia.qa;
+
+import org.apache.jena.query.QueryExecution;
+
+/**
+ * Keeps track of the query execution of a candidate query, so the execution can be aborted from
+ * another thread once its result is not needed anymore.
+ */
+public class QueryExecutionHandle {
+
+  private QueryExecution execution;
+  private boolean cancelled;
+
+  /**
+   * Registers the execution that is about to run. If the handle is already cancelled, the execution
+   * is aborted right away.
+   *
+   * @param execution execution of the candidate query
+   */
+  public synchronized void register(QueryExecution execution) {
+    this.execution = execution;
+    if (cancelled) {
+      execution.abort();
+    }
+  }
+
+  /**
+   * Aborts the registered execution and all executions registered later on.
+   */
+  public synchronized void cancel() {
+    cancelled = true;
+    if (execution != null) {
+      execution.abort();
+    }
+  }
+
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+}
@@ -1,9 +1,29 @@
 package de.upb.ds.surnia.qa;
 
+import de.upb.ds.surnia.jfr.QueryEvent;
+import de.upb.ds.surnia.jfr.StageEvent;
+import de.upb.ds.surnia.kg.KnowledgeGraphBackend;
+import de.upb.ds.surnia.kg.NeighbourhoodBackend;
+import de.upb.ds.surnia.kg.RemoteSparqlBackend;
+import de.upb.ds.surnia.kg.Tdb2Backend;
+import de.upb.ds.surnia.kg.TripleIndex;
+import de.upb.ds.surnia.kg.TripleIndexAnswerer;
 import de.upb.ds.surnia.preprocessing.ProcessingPipeline;
 import de.upb.ds.surnia.preprocessing.model.Token;
+import de.upb.ds.surnia.preprocessing.tasks.AutoindexCache;
+import de.upb.ds.surnia.preprocessing.tasks.AutoindexTask;
+import de.upb.ds.surnia.preprocessing.tasks.StanfordNERTask;
+import de.upb.ds.surnia.preprocessing.tasks.TaskInterface;
 import de.upb.ds.surnia.qa.AnswerContainer.AnswerType;
+import de.upb.ds.surnia.qa.SparqlResultCache.Result;
+import de.upb.ds.surnia.queries.BatchedQuery;
+import de.upb.ds.surnia.queries.QueryParameterReplacer;
 import de.upb.ds.surnia.queries.QueryPatternMatcher;
+import de.upb.ds.surnia.util.BoundedExecutors;
+import de.upb.ds.surnia.util.PipelineMetrics;
+import de.upb.ds.surnia.util.PipelineMetrics.Counter;
+import de.upb.ds.surnia.util.RequestContext;
+import de.upb.ds.surnia.util.RequestTrace;
 import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.sparql.core.Var;
@@ -12,12 +32,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Component
 public class QuestionAnswerer extends AbstractQuestionAnswerer {
@@ -25,37 +55,199 @@ public class QuestionAnswerer extends AbstractQuestionAnswerer {
   private static final Logger logger = LoggerFactory.getLogger(QuestionAnswerer.class);
 
   private ProcessingPipeline preprocessingPipeline;
+  private ExecutorService pipelineExecutor;
+  private RestTemplate autoindexClient;
   private QueryPatternMatcher queryPatternMatcher;
+  private ExecutorService sparqlExecutor;
+  private SpeculativeQueryRunner speculativeQueryRunner;
+  private SparqlResultCache sparqlResultCache;
+  private KnowledgeGraphBackend knowledgeGraph;
+  private TripleIndex tripleIndex;
+  private TripleIndexAnswerer tripleIndexAnswerer;
+  private boolean probeCandidates;
+  private long maxResults;
+  private final PipelineMetrics metrics;
 
   private final Environment env;
 
   @Autowired
-  public QuestionAnswerer(Environment env) {
-    preprocessingPipeline = new ProcessingPipeline();
-    queryPatternMatcher = new QueryPatternMatcher("Queries.json");
+  public QuestionAnswerer(Environment env, AutoindexCache autoindexCache,
+    AnswerCache answerCache, SparqlResultCache sparqlResultCache, PipelineMetrics metrics) {
+    int pipelineThreads = env.getProperty("pipeline.threads", Integer.class,
+      2 * Runtime.getRuntime().availableProcessors());
+    pipelineExecutor = BoundedExecutors.create("pipeline", pipelineThreads,
+      env.getProperty("pipeline.queue-capacity", Integer.class, 100));
+    autoindexClient = AutoindexTask.createRestTemplate(
+      env.getProperty("autoindex.max-connections", Integer.class, 20),
+      env.getProperty("autoindex.max-connections-per-route", Integer.class, 10),
+      env.getProperty("autoindex.connect-timeout-ms", Integer.class, 2000),
+      env.getProperty("autoindex.read-timeout-ms", Integer.class, 5000),
+      env.getProperty("autoindex.keep-alive-ms", Long.class, 30000L));
+    List<TaskInterface> tasks = Arrays.asList(
+      new StanfordNERTask(),
+      new AutoindexTask(env.getProperty("autoindex.url", AutoindexTask.DEFAULT_URL),
+        autoindexClient,
+        env.getProperty("autoindex.cache.enabled", Boolean.class, true) ? autoindexCache : null));
+    preprocessingPipeline = new ProcessingPipeline(tasks,
+      env.getProperty("pipeline.concurrent", Boolean.class, true) ? pipelineExecutor : null,
+      metrics);
+    queryPatternMatcher = new QueryPatternMatcher("Queries.json",
+      env.getProperty("query.max-combinations", Integer.class,
+        QueryParameterReplacer.DEFAULT_MAX_COMBINATIONS));
+    if (env.getProperty("sparql.speculative.enabled", Boolean.class, true)) {
+      sparqlExecutor = BoundedExecutors.create("sparql",
+        env.getProperty("sparql.speculative.concurrency", Integer.class, 8),
+        env.getProperty("sparql.speculative.queue-capacity", Integer.class, 100));
+      speculativeQueryRunner = new SpeculativeQueryRunner(sparqlExecutor,
+        env.getProperty("sparql.speculative.top-k", Integer.class, 4),
+        env.getProperty("sparql.speculative.deadline-ms", Long.class, 3000L));
+    }
+    knowledgeGraph = createKnowledgeGraphBackend(env);
+    logger.info("Answering questions with {}", knowledgeGraph);
+    if (env.getProperty("kg.triple-index.enabled", Boolean.class, false)) {
+      String tripleIndexFile = env.getProperty("kg.triple-index.file", "data/triples.idx");
+      try {
+        tripleIndex = TripleIndex.open(Paths.get(tripleIndexFile));
+        tripleIndexAnswerer = new TripleIndexAnswerer(tripleIndex);
+        logger.info("Answering single triple patterns with the {}", tripleIndex);
+      } catch (IOException e) {
+        logger.error("Could not open the triple index " + tripleIndexFile, e);
+      }
+    }
+    probeCandidates = env.getProperty("sparql.probe-candidates", Boolean.class, true);
+    maxResults = env.getProperty("sparql.max-results", Long.class, 0L);
+    if (env.getProperty("sparql.cache.enabled", Boolean.class, true)) {
+      this.sparqlResultCache = sparqlResultCache;
+    }
+    if (env.getProperty("answer.cache.enabled", Boolean.class, true)) {
+      setAnswerCache(answerCache);
+    }
+    setMetrics(metrics);
+    this.metrics = metrics;
     this.env = env;
   }
 
+  /**
+   * Creates the backend configured by kg.backend: the SPARQL endpoint given by sparql.endpoint
+   * (remote) or the local TDB2 dataset in kg.tdb2.location (tdb2). If kg.neighbourhood.enabled is
+   * set, one-hop queries are evaluated on cached neighbourhoods of their resources.
+   */
+  private static KnowledgeGraphBackend createKnowledgeGraphBackend(Environment env) {
+    String backendName = env.getProperty("kg.backend", "remote");
+    KnowledgeGraphBackend backend;
+    switch (backendName) {
+      case "remote":
+        backend = new RemoteSparqlBackend(env.getProperty("sparql.endpoint"));
+        break;
+      case "tdb2":
+        backend = new Tdb2Backend(env.getProperty("kg.tdb2.location", "data/tdb2"));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown knowledge graph backend " + backendName);
+    }
+    if (env.getProperty("kg.neighbourhood.enabled", Boolean.class, false)) {
+      backend = new NeighbourhoodBackend(backend,
+        env.getProperty("kg.neighbourhood.max-resources", Integer.class, 10000),
+        env.getProperty("kg.neighbourhood.max-triples", Long.class, 2000000L),
+        env.getProperty("kg.neighbourhood.max-triples-per-resource", Integer.class, 10000),
+        env.getProperty("kg.neighbourhood.max-resources-per-query", Integer.class, 20),
+        TimeUnit.MINUTES.toMillis(
+          env.getProperty("kg.neighbourhood.ttl-minutes", Long.class, 60L)),
+        env.getProperty("kg.neighbourhood.timeout-ms", Long.class, 5000L));
+    }
+    return backend;
+  }
+
+  /**
+   * Drops everything cached about the knowledge graph, e.g. after it was reloaded.
+   */
+  public void invalidateKnowledgeGraphCaches() {
+    knowledgeGraph.invalidateCaches();
+  }
+
+  /**
+   * Stops the worker threads of this question answerer and closes the knowledge graph.
+   */
+  @PreDestroy
+  public void shutdown() {
+    pipelineExecutor.shutdownNow();
+    if (sparqlExecutor != null) {
+      sparqlExecutor.shutdownNow();
+    }
+    AutoindexTask.closeRestTemplate(autoindexClient);
+    AutoindexTask.closeDefaultRestTemplate();
+    knowledgeGraph.close();
+    if (tripleIndex != null) {
+      try {
+        tripleIndex.close();
+      } catch (IOException e) {
+        logger.warn("Could not close the triple index", e);
+      }
+    }
+  }
+
   @Override
   public AnswerContainer retrieveAnswers(String question, String lang) {
     // Analyze question with all the Tasks in the PreprocessingPipeline
     List<Token> tokens = preprocessingPipeline.processQuestion(question);
+    RequestTrace trace = RequestContext.getTrace();
+    if (trace != null) {
+      List<String> tokenTexts = new ArrayList<>(tokens.size());
+      for (Token token : tokens) {
+        tokenTexts.add(token.toString());
+      }
+      trace.setTokens(tokenTexts);
+    }
 
-    // Get a list with all queries rated above the threshold for the question
-    Map<Float, List<ParameterizedSparqlString>> queries = queryPatternMatcher.findMatchingQueries(tokens);
+    // Get all query templates rated above the threshold for the question
+    long start = System.nanoTime();
+    Map<Float, QueryParameterReplacer> templates = queryPatternMatcher.findMatchingTemplates(tokens);
+    metrics.recordSince(PipelineMetrics.TEMPLATE_RATING, start);
     AnswerContainer answer = null;
-    if (queries.size() > 0) {
-      for (Float bestQueryInxex : queries.keySet()) {
-        if (queries.get(bestQueryInxex).size() > 0)
-          answer = getAnswerForQuery(queries.get(bestQueryInxex).get(0));
-        if (answer != null) {
-          break;
+    if (templates.isEmpty()) {
+      logger.debug("No query with a rating above the threshold found.");
+    } else if (env.getProperty("sparql.batch-parameters", Boolean.class, true)) {
+      // Use a single query covering all replacements of each template
+      start = System.nanoTime();
+      StageEvent event = StageEvent.start(PipelineMetrics.PARAMETER_REPLACEMENT);
+      List<BatchedQuery> rankedCandidates = new ArrayList<>();
+      for (QueryParameterReplacer queryParameterReplacer : templates.values()) {
+        BatchedQuery batchedQuery = queryParameterReplacer.getBatchedQuery();
+        if (batchedQuery != null) {
+          rankedCandidates.add(batchedQuery);
         }
       }
+      event.finish(rankedCandidates.size(), -1);
+      metrics.recordSince(PipelineMetrics.PARAMETER_REPLACEMENT, start);
+      metrics.add(Counter.CANDIDATES_GENERATED, rankedCandidates.size());
+      start = System.nanoTime();
+      event = StageEvent.start(PipelineMetrics.SPARQL);
+      answer = findAnswer(rankedCandidates, probeCandidates, speculativeQueryRunner,
+        this::getAnswerForBatchedQuery, this::probeBatchedQuery,
+        this::getAnswerForProbedBatchedQuery);
+      event.finish(rankedCandidates.size(), answer != null ? answer.getAnswers().size() : 0);
+      metrics.recordSince(PipelineMetrics.SPARQL, start);
     } else {
-      logger.info("No query with a rating above the threshold found.");
+      // Use the best replacement of each template, only this query gets built
+      start = System.nanoTime();
+      StageEvent event = StageEvent.start(PipelineMetrics.PARAMETER_REPLACEMENT);
+      List<Query> rankedCandidates = new ArrayList<>();
+      for (QueryParameterReplacer queryParameterReplacer : templates.values()) {
+        queryParameterReplacer.streamQueriesWithReplacedParameters().findFirst()
+          .ifPresent(rankedCandidates::add);
+      }
+      event.finish(rankedCandidates.size(), -1);
+      metrics.recordSince(PipelineMetrics.PARAMETER_REPLACEMENT, start);
+      metrics.add(Counter.CANDIDATES_GENERATED, rankedCandidates.size());
+      start = System.nanoTime();
+      event = StageEvent.start(PipelineMetrics.SPARQL);
+      answer = findAnswer(rankedCandidates, probeCandidates, speculativeQueryRunner,
+        this::getAnswerForQuery, this::probeQuery, this::getAnswerForProbedQuery);
+      event.finish(rankedCandidates.size(), answer != null ? answer.getAnswers().size() : 0);
+      metrics.recordSince(PipelineMetrics.SPARQL, start);
     }
     if (answer == null) {
+      metrics.increment(Counter.FALSE_ANSWERS);
       answer = new AnswerContainer();
       answer.setType(AnswerType.BOOLEAN);
       Set<String> answerSet = new HashSet<String>();
@@ -66,71 +258,298 @@ public class QuestionAnswerer extends AbstractQuestionAnswerer {
     return answer;
   }
 
-  private AnswerContainer getAnswerForQuery(ParameterizedSparqlString query) {
-    String queryStringRepresentation = query.toString();
-    if (queryStringRepresentation.contains("SELECT")) {
-      Set<RDFNode> results = querySPARQLService(query);
-      if (results != null) {
-        AnswerContainer result = new AnswerContainer();
-        Set<String> answerSet = new HashSet<String>();
-        RDFNode node = results.toArray(new RDFNode[results.size()])[0];
-        if (node.isResource()) {
-          result.setType(AnswerType.RESOURCE);
-          logger.info("Resource Result.");
-        } else if (node.isLiteral()) {
-          String type = node.asNode().getLiteralDatatypeURI();
-          logger.info(type + " Result. ");
-          switch (type) {
-            case "http://www.w3.org/2001/XMLSchema#nonNegativeInteger":
-            case "http://www.w3.org/2001/XMLSchema#decimal":
-            case "http://www.w3.org/2001/XMLSchema#double":
-            case "http://www.w3.org/2001/XMLSchema#float":
-            case "http://www.w3.org/2001/XMLSchema#int":
-            case "http://www.w3.org/2001/XMLSchema#long":
-            case "http://www.w3.org/2001/XMLSchema#negativeInteger":
-            case "http://www.w3.org/2001/XMLSchema#nonPositiveInteger":
-            case "http://www.w3.org/2001/XMLSchema#positiveInteger":
-            case "http://www.w3.org/2001/XMLSchema#integer":
-            case "http://www.w3.org/2001/XMLSchema#short":
-            case "http://www.w3.org/2001/XMLSchema#unsignedByte":
-            case "http://www.w3.org/2001/XMLSchema#unsignedInt":
-            case "http://www.w3.org/2001/XMLSchema#unsignedLong":
-            case "http://www.w3.org/2001/XMLSchema#unsignedShort":
-            case "http://www.w3.org/2001/XMLSchema#gYear":
-              result.setType(AnswerType.NUMBER);
-              break;
-            case "http://www.w3.org/2001/XMLSchema#date":
-              result.setType(AnswerType.DATE);
-              break;
-            case "http://www.w3.org/2001/XMLSchema#string":
-              result.setType(AnswerType.STRING);
-              break;
-            case "http://www.w3.org/2001/XMLSchema#boolean":
-              result.setType(AnswerType.BOOLEAN);
-              break;
-            default:
-              logger.info("Unknown datatype " + type);
-          }
+  /**
+   * Returns the answer of the best ranked candidate that has one. If probing is enabled, the
+   * candidates are only checked for results first and just the best candidate with results is
+   * evaluated completely. Should it still give no answer, the candidates after it are probed.
+   *
+   * @param speculativeQueryRunner runner for evaluating the candidates in parallel, or null to
+   *        evaluate them one after another
+   */
+  static <Q> AnswerContainer findAnswer(List<Q> rankedCandidates, boolean probeCandidates,
+    SpeculativeQueryRunner speculativeQueryRunner,
+    BiFunction<Q, QueryExecutionHandle, AnswerContainer> evaluator,
+    BiFunction<Q, QueryExecutionHandle, Probe<Q>> prober,
+    BiFunction<Probe<Q>, QueryExecutionHandle, AnswerContainer> probeEvaluator) {
+    if (!probeCandidates) {
+      return findFirst(rankedCandidates, speculativeQueryRunner, evaluator);
+    }
+    List<Q> remainingCandidates = rankedCandidates;
+    while (!remainingCandidates.isEmpty()) {
+      Probe<Q> probe = findFirst(remainingCandidates, speculativeQueryRunner, prober);
+      if (probe == null) {
+        return null;
+      }
+      AnswerContainer answer = probeEvaluator.apply(probe, new QueryExecutionHandle());
+      if (answer != null) {
+        return answer;
+      }
+      int position = 0;
+      while (remainingCandidates.get(position) != probe.candidate) {
+        position++;
+      }
+      remainingCandidates = remainingCandidates.subList(position + 1, remainingCandidates.size());
+    }
+    return null;
+  }
+
+  /**
+   * Returns the result of the best ranked candidate that has one, either by evaluating the
+   * candidates speculatively in parallel or one after another.
+   */
+  private static <Q, R> R findFirst(List<Q> rankedCandidates,
+    SpeculativeQueryRunner speculativeQueryRunner,
+    BiFunction<Q, QueryExecutionHandle, R> evaluator) {
+    if (speculativeQueryRunner != null) {
+      return speculativeQueryRunner.findFirst(rankedCandidates, evaluator);
+    }
+    for (Q candidate : rankedCandidates) {
+      R result = evaluator.apply(candidate, new QueryExecutionHandle());
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a query has results by asking for its first result row only. ASK queries
+   * always give an answer and are not probed.
+   *
+   * @return the probe with the first result as example for the answer type, or null if the query
+   *         has no results
+   */
+  private Probe<Query> probeQuery(Query query, QueryExecutionHandle handle) {
+    if (handle.isCancelled()) {
+      return null;
+    }
+    if (query.isAskType()) {
+      return new Probe<>(query, null);
+    }
+    if (!query.isSelectType()) {
+      return null;
+    }
+    Query probeQuery = query;
+    if (!query.hasLimit() || query.getLimit() > 1) {
+      probeQuery = query.cloneQuery();
+      probeQuery.setLimit(1);
+    }
+    Set<RDFNode> results = querySPARQLService(probeQuery, handle);
+    return results == null ? null : new Probe<>(query, results.iterator().next());
+  }
+
+  /**
+   * Checks whether a query covering several replacement combinations has results by sending it as
+   * ASK query. Batched ASK templates always give an answer and are not probed.
+   *
+   * @return the probe, or null if the query has no results
+   */
+  private Probe<BatchedQuery> probeBatchedQuery(BatchedQuery batchedQuery,
+    QueryExecutionHandle handle) {
+    if (!batchedQuery.isBatched()) {
+      Probe<Query> probe = probeQuery(batchedQuery.getQuery(), handle);
+      return probe == null ? null : new Probe<>(batchedQuery, probe.typeNode);
+    }
+    if (handle.isCancelled()) {
+      return null;
+    }
+    if (batchedQuery.isAsk()) {
+      return new Probe<>(batchedQuery, null);
+    }
+    Result indexResult = queryTripleIndex(batchedQuery);
+    if (indexResult != null) {
+      return indexResult.isEmpty() ? null : new Probe<>(batchedQuery, null);
+    }
+    Query probeQuery = batchedQuery.getQuery().cloneQuery();
+    probeQuery.setQueryAskType();
+    try {
+      return queryServer(probeQuery, handle) ? new Probe<>(batchedQuery, null) : null;
+    } catch (QueryException e) {
+      logQueryFailure(probeQuery, handle, e);
+      return null;
+    }
+  }
+
+  private AnswerContainer getAnswerForProbedQuery(Probe<Query> probe,
+    QueryExecutionHandle handle) {
+    return getAnswerForQuery(probe.candidate, probe.typeNode, handle);
+  }
+
+  private AnswerContainer getAnswerForProbedBatchedQuery(Probe<BatchedQuery> probe,
+    QueryExecutionHandle handle) {
+    if (!probe.candidate.isBatched()) {
+      return getAnswerForQuery(probe.candidate.getQuery(), probe.typeNode, handle);
+    }
+    return getAnswerForBatchedQuery(probe.candidate, handle);
+  }
+
+  /**
+   * Runs a query covering several replacement combinations and returns the answer of the first
+   * combination that has results.
+   */
+  private AnswerContainer getAnswerForBatchedQuery(BatchedQuery batchedQuery,
+    QueryExecutionHandle handle) {
+    if (!batchedQuery.isBatched()) {
+      return getAnswerForQuery(batchedQuery.bind(0), handle);
+    }
+    QueryEvent event = QueryEvent.start();
+    AnswerContainer answer = evaluateBatchedQuery(batchedQuery, handle);
+    event.finish(batchedQuery.getQuery(), batchedQuery.getCombinationCount(),
+      answer != null ? answer.getAnswers().size() : 0);
+    return answer;
+  }
+
+  private AnswerContainer evaluateBatchedQuery(BatchedQuery batchedQuery,
+    QueryExecutionHandle handle) {
+    if (handle.isCancelled()) {
+      return null;
+    }
+    Query query = batchedQuery.getQuery();
+    String cacheKey = null;
+    Result result = queryTripleIndex(batchedQuery);
+    if (result == null && sparqlResultCache != null) {
+      cacheKey = SparqlResultCache.toKey(query);
+      result = sparqlResultCache.get(cacheKey);
+    }
+    if (result == null) {
+      result = queryBatchedQuery(batchedQuery, handle);
+      if (result == null) {
+        return null;
+      }
+      if (cacheKey != null && !handle.isCancelled()) {
+        sparqlResultCache.put(cacheKey, result);
+      }
+    }
+
+    if (batchedQuery.isAsk()) {
+      boolean holds = result.holds();
+      logger.debug("Result: {}", holds);
+      AnswerContainer answer = new AnswerContainer();
+      answer.setSparqlQuery(batchedQuery.bind(holds ? result.getCombination() : 0).serialize());
+      answer.setType(AnswerType.BOOLEAN);
+      Set<String> answerSet = new HashSet<String>();
+      answerSet.add(String.valueOf(holds));
+      answer.setAnswers(answerSet);
+      return answer;
+    }
+    if (result.getNodes().isEmpty()) {
+      logger.debug("Query returned no result");
+      return null;
+    }
+    return createAnswer(result.getNodes(), null,
+      batchedQuery.bind(result.getCombination()).serialize());
+  }
+
+  /**
+   * Answers a batched query from the triple index by evaluating the combinations one after another,
+   * if its template is a single triple pattern.
+   *
+   * @return result of the query, or null if the triple index cannot answer it
+   */
+  private Result queryTripleIndex(BatchedQuery batchedQuery) {
+    if (tripleIndexAnswerer == null || !tripleIndexAnswerer.canAnswer(batchedQuery.bind(0))) {
+      return null;
+    }
+    for (int combination = 0; combination < batchedQuery.getCombinationCount(); combination++) {
+      Query query = batchedQuery.bind(combination);
+      if (batchedQuery.isAsk()) {
+        if (tripleIndexAnswerer.ask(query)) {
+          return Result.batch(combination, Collections.emptySet());
         }
-        for (RDFNode n : results) {
-          if (n.isLiteral()) {
-            answerSet.add(n.asLiteral().getValue().toString());
-          } else {
-            answerSet.add(n.asNode().getURI());
+      } else {
+        Set<RDFNode> nodes = tripleIndexAnswerer.select(query);
+        if (!nodes.isEmpty()) {
+          return Result.batch(combination, nodes);
+        }
+      }
+    }
+    return Result.batch(-1, Collections.emptySet());
+  }
+
+  /**
+   * Sends a batched query to the knowledge graph and keeps the results of the first combination
+   * that has results.
+   *
+   * @return result of the query, or null if the query failed
+   */
+  private Result queryBatchedQuery(BatchedQuery batchedQuery, QueryExecutionHandle handle) {
+    Query query = batchedQuery.getQuery();
+    logger.debug("Querying SPARQL endpoint with {} combinations: {}",
+      batchedQuery.getCombinationCount(), query);
+    try {
+      return executeQuery(query, handle, execution -> {
+        execution.setTimeout(5000, TimeUnit.MILLISECONDS);
+        ResultSet resultSet = execution.execSelect();
+        String answerVar = batchedQuery.getAnswerVar() != null ? batchedQuery.getAnswerVar()
+          : resultSet.getResultVars().get(0);
+        int bestCombination = Integer.MAX_VALUE;
+        Set<RDFNode> nodes = new HashSet<>();
+        while (resultSet.hasNext()) {
+          QuerySolution qs = resultSet.next();
+          int combination = batchedQuery.getCombinationIndex(qs);
+          if (combination < 0 || combination > bestCombination) {
+            continue;
+          }
+          if (combination < bestCombination) {
+            bestCombination = combination;
+            nodes = new HashSet<>();
+          }
+          RDFNode rdfNode = qs.get(answerVar);
+          if (rdfNode != null) {
+            nodes.add(rdfNode);
           }
         }
-        result.setSparqlQuery(query.toString());
-        result.setAnswers(answerSet);
-        return result;
+        return Result.batch(bestCombination == Integer.MAX_VALUE ? -1 : bestCombination, nodes);
+      });
+    } catch (QueryException e) {
+      logQueryFailure(query, handle, e);
+      return null;
+    }
+  }
+
+  private AnswerContainer getAnswerForQuery(Query query, QueryExecutionHandle handle) {
+    return getAnswerForQuery(query, null, handle);
+  }
+
+  /**
+   * Runs a single query and returns its answer.
+   *
+   * @param typeNode result of a probe of the query that determines the answer type, or null
+   */
+  private AnswerContainer getAnswerForQuery(Query query, RDFNode typeNode,
+    QueryExecutionHandle handle) {
+    QueryEvent event = QueryEvent.start();
+    AnswerContainer answer = evaluateQuery(query, typeNode, handle);
+    event.finish(query, 1, answer != null ? answer.getAnswers().size() : 0);
+    return answer;
+  }
+
+  private AnswerContainer evaluateQuery(Query query, RDFNode typeNode,
+    QueryExecutionHandle handle) {
+    if (handle.isCancelled()) {
+      return null;
+    }
+    if (query.isSelectType()) {
+      Query limitedQuery = limitResults(query);
+      Set<RDFNode> results = querySPARQLService(limitedQuery, handle);
+      if (results != null) {
+        return createAnswer(results, typeNode, limitedQuery.serialize());
       } else {
-        logger.info("Query returned no result");
+        logger.debug("Query returned no result");
+      }
+    } else if (query.isAskType()) {
+      boolean holds;
+      try {
+        holds = queryServer(query, handle);
+      } catch (QueryException e) {
+        logQueryFailure(query, handle, e);
+        return null;
       }
-    } else if (queryStringRepresentation.contains("ASK")) {
       AnswerContainer result = new AnswerContainer();
-      result.setSparqlQuery(query.toString());
+      result.setSparqlQuery(query.serialize());
       result.setType(AnswerType.BOOLEAN);
       Set<String> answerSet = new HashSet<String>();
-      answerSet.add(String.valueOf(queryServer(query)));
+      answerSet.add(String.valueOf(holds));
       result.setAnswers(answerSet);
       return result;
     }
@@ -138,39 +557,126 @@ public class QuestionAnswerer extends AbstractQuestionAnswerer {
   }
 
   /**
-   * Run a SPARQL select query against the FUSEKI endpoint.
+   * Restricts the number of results of a SELECT query to the configured maximum.
+   */
+  private Query limitResults(Query query) {
+    if (maxResults <= 0 || query.hasLimit() && query.getLimit() <= maxResults) {
+      return query;
+    }
+    Query limitedQuery = query.cloneQuery();
+    limitedQuery.setLimit(maxResults);
+    return limitedQuery;
+  }
+
+  /**
+   * Creates the answer for the results of a SELECT query. The answer type is derived from the
+   * given example result, or from any result if there is none.
    *
-   * @param queryString SPARQL query with set parameters.
+   * @param results non-empty results of the query
+   * @param typeNode result that determines the answer type, or null
+   * @param sparqlQuery query that produced the results
+   * @return answer with the results
    */
-  private Set<RDFNode> querySPARQLService(ParameterizedSparqlString queryString) {
-    String queryStringRepresentation = queryString.toString();
-    logger.info("Querying SPARQL endpoint with: " + queryStringRepresentation);
-    Set<RDFNode> nodes = new HashSet<>();
-    QueryExecution execution = null;
-    try {
-      execution = QueryExecutionFactory
-        .sparqlService(env.getProperty("sparql.endpoint"), queryString.asQuery());
-      execution.setTimeout(1000, TimeUnit.MILLISECONDS);
-      ResultSet resultSet = execution.execSelect();
-      List<Var> projectVars = queryString.asQuery().getProjectVars();
-      String projectionVar;
-      if (!projectVars.isEmpty() && queryString.asQuery().getAggregators().isEmpty()) {
-        projectionVar = queryString.asQuery().getProjectVars().get(0).getName();
+  private AnswerContainer createAnswer(Set<RDFNode> results, RDFNode typeNode,
+    String sparqlQuery) {
+    AnswerContainer result = new AnswerContainer();
+    Set<String> answerSet = new HashSet<String>();
+    RDFNode node = typeNode != null ? typeNode : results.iterator().next();
+    if (node.isResource()) {
+      result.setType(AnswerType.RESOURCE);
+      logger.debug("Resource Result.");
+    } else if (node.isLiteral()) {
+      String type = node.asNode().getLiteralDatatypeURI();
+      logger.debug("{} Result.", type);
+      switch (type) {
+        case "http://www.w3.org/2001/XMLSchema#nonNegativeInteger":
+        case "http://www.w3.org/2001/XMLSchema#decimal":
+        case "http://www.w3.org/2001/XMLSchema#double":
+        case "http://www.w3.org/2001/XMLSchema#float":
+        case "http://www.w3.org/2001/XMLSchema#int":
+        case "http://www.w3.org/2001/XMLSchema#long":
+        case "http://www.w3.org/2001/XMLSchema#negativeInteger":
+        case "http://www.w3.org/2001/XMLSchema#nonPositiveInteger":
+        case "http://www.w3.org/2001/XMLSchema#positiveInteger":
+        case "http://www.w3.org/2001/XMLSchema#integer":
+        case "http://www.w3.org/2001/XMLSchema#short":
+        case "http://www.w3.org/2001/XMLSchema#unsignedByte":
+        case "http://www.w3.org/2001/XMLSchema#unsignedInt":
+        case "http://www.w3.org/2001/XMLSchema#unsignedLong":
+        case "http://www.w3.org/2001/XMLSchema#unsignedShort":
+        case "http://www.w3.org/2001/XMLSchema#gYear":
+          result.setType(AnswerType.NUMBER);
+          break;
+        case "http://www.w3.org/2001/XMLSchema#date":
+          result.setType(AnswerType.DATE);
+          break;
+        case "http://www.w3.org/2001/XMLSchema#string":
+          result.setType(AnswerType.STRING);
+          break;
+        case "http://www.w3.org/2001/XMLSchema#boolean":
+          result.setType(AnswerType.BOOLEAN);
+          break;
+        default:
+          logger.info("Unknown datatype " + type);
+      }
+    }
+    for (RDFNode n : results) {
+      if (n.isLiteral()) {
+        answerSet.add(n.asLiteral().getValue().toString());
       } else {
-        projectionVar = resultSet.getResultVars().get(0);
+        answerSet.add(n.asNode().getURI());
+      }
+    }
+    result.setSparqlQuery(sparqlQuery);
+    result.setAnswers(answerSet);
+    return result;
+  }
+
+  /**
+   * Run a SPARQL select query against the knowledge graph.
+   *
+   * @param query SPARQL query with set parameters.
+   * @param handle handle the execution is registered at, so it can be aborted.
+   */
+  private Set<RDFNode> querySPARQLService(Query query, QueryExecutionHandle handle) {
+    if (tripleIndexAnswerer != null && tripleIndexAnswerer.canAnswer(query)) {
+      Set<RDFNode> nodes = tripleIndexAnswerer.select(query);
+      return nodes.isEmpty() ? null : nodes;
+    }
+    String cacheKey = null;
+    if (sparqlResultCache != null) {
+      cacheKey = SparqlResultCache.toKey(query);
+      Result cached = sparqlResultCache.get(cacheKey);
+      if (cached != null) {
+        return cached.getNodes().isEmpty() ? null : cached.getNodes();
       }
-      QuerySolution qs;
-      while (resultSet.hasNext()) {
-        qs = resultSet.next();
-        RDFNode rdfNode = qs.get(projectionVar);
-        nodes.add(rdfNode);
+    }
+    logger.debug("Querying SPARQL endpoint with: {}", query);
+    Set<RDFNode> nodes = new HashSet<>();
+    try {
+      executeQuery(query, handle, execution -> {
+        execution.setTimeout(1000, TimeUnit.MILLISECONDS);
+        ResultSet resultSet = execution.execSelect();
+        List<Var> projectVars = query.getProjectVars();
+        String projectionVar;
+        if (!projectVars.isEmpty() && query.getAggregators().isEmpty()) {
+          projectionVar = projectVars.get(0).getName();
+        } else {
+          projectionVar = resultSet.getResultVars().get(0);
+        }
+        QuerySolution qs;
+        while (resultSet.hasNext()) {
+          qs = resultSet.next();
+          RDFNode rdfNode = qs.get(projectionVar);
+          nodes.add(rdfNode);
+        }
+        return nodes;
+      });
+      if (cacheKey != null && !handle.isCancelled()) {
+        sparqlResultCache.put(cacheKey, Result.select(nodes));
       }
     } catch (QueryException e) {
-      e.printStackTrace();
-    } finally {
-      if (execution != null) {
-        execution.close();
-      }
+      logQueryFailure(query, handle, e);
     }
     if (nodes.size() > 0) {
       return nodes;
@@ -179,15 +685,87 @@ public class QuestionAnswerer extends AbstractQuestionAnswerer {
     }
   }
 
-  private boolean queryServer(ParameterizedSparqlString queryString) {
-    String queryStringRepresentation = queryString.toString();
-    logger.info("Query SPARQL endpoint with: " + queryStringRepresentation);
-    QueryExecution execution = QueryExecutionFactory
-      .sparqlService(env.getProperty("sparql.endpoint"), queryString.asQuery());
-    execution.setTimeout(5000, TimeUnit.MILLISECONDS);
-    boolean result = execution.execAsk();
-    logger.info("Result: " + result);
+  private boolean queryServer(Query query, QueryExecutionHandle handle) {
+    if (tripleIndexAnswerer != null && tripleIndexAnswerer.canAnswer(query)) {
+      return tripleIndexAnswerer.ask(query);
+    }
+    String cacheKey = null;
+    if (sparqlResultCache != null) {
+      cacheKey = SparqlResultCache.toKey(query);
+      Result cached = sparqlResultCache.get(cacheKey);
+      if (cached != null) {
+        return cached.holds();
+      }
+    }
+    logger.debug("Query SPARQL endpoint with: {}", query);
+    boolean result = executeQuery(query, handle, execution -> {
+      execution.setTimeout(5000, TimeUnit.MILLISECONDS);
+      return execution.execAsk();
+    });
+    logger.debug("Result: {}", result);
+    if (cacheKey != null) {
+      sparqlResultCache.put(cacheKey, Result.ask(result));
+    }
     return result;
   }
 
+  /**
+   * Runs a query on the knowledge graph and records its time, and whether it timed out, in the
+   * pipeline metrics and the trace of the request. Every execution started for the query is
+   * registered at the handle. Executions aborted because another candidate won are no timeouts.
+   */
+  private <T> T executeQuery(Query query, QueryExecutionHandle handle,
+    Function<QueryExecution, T> action) {
+    metrics.increment(Counter.QUERIES_EXECUTED);
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      T result = knowledgeGraph.execute(query, handle::register, action);
+      outcome = "ok";
+      return result;
+    } catch (QueryCancelledException e) {
+      if (handle.isCancelled()) {
+        outcome = "cancelled";
+      } else {
+        outcome = "timeout";
+        metrics.increment(Counter.QUERY_TIMEOUTS);
+      }
+      throw e;
+    } finally {
+      long micros = metrics.recordSince(PipelineMetrics.SPARQL_QUERY, start);
+      RequestTrace trace = RequestContext.getTrace();
+      if (trace != null) {
+        trace.addQuery(query.toString(), micros, outcome);
+      }
+    }
+  }
+
+  /**
+   * Logs a query that did not finish. Queries aborted because another candidate won are expected
+   * and only logged at DEBUG, timeouts and failures are logged as warnings.
+   */
+  private static void logQueryFailure(Query query, QueryExecutionHandle handle,
+    QueryException e) {
+    if (handle.isCancelled()) {
+      logger.debug("Query aborted after another candidate won: {}", query);
+    } else if (e instanceof QueryCancelledException) {
+      logger.warn("Query timed out: {}", query);
+    } else {
+      logger.warn("Query failed: " + query, e);
+    }
+  }
+
+  /**
+   * A candidate that has results, with one of them as example for the answer type.
+   */
+  static final class Probe<Q> {
+
+    final Q candidate;
+    final RDFNode typeNode;
+
+    Probe(Q candidate, RDFNode typeNode) {
+      this.candidate = candidate;
+      this.typeNode = typeNode;
+    }
+  }
 }
@@ -0,0 +1,201 @@
+package de.upb.ds.surnia.qa;
+
+import de.upb.ds.surnia.util.ExpiringLruCache;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Query;
+import org.apache.jena.rdf.model.RDFNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the results of SPARQL queries, keyed by the serialized query. Different questions often
+ * lead to the same bound query, which is then only sent to the endpoint once.
+ *
+ * <p>Empty results (no rows, or false for ASK queries) are cached as well, but with a shorter time
+ * to live, so candidates without results are not asked again and again while new data still shows
+ * up soon. Failed or aborted queries are never cached. The cache is bounded by the number of
+ * results and by their approximate size in bytes.</p>
+ */
+@Component
+public class SparqlResultCache {
+
+  private static final long ENTRY_OVERHEAD_BYTES = 96;
+  private static final long NODE_OVERHEAD_BYTES = 64;
+
+  private final ExpiringLruCache<String, Result> results;
+  private final long negativeTtlMillis;
+
+  /**
+   * Creates the cache with the bounds and times to live given in the application properties.
+   *
+   * @param env environment with the application properties
+   */
+  @Autowired
+  public SparqlResultCache(Environment env) {
+    this(env.getProperty("sparql.cache.max-entries", Integer.class, 10000),
+      env.getProperty("sparql.cache.max-megabytes", Long.class, 64L) * 1024 * 1024,
+      TimeUnit.MINUTES.toMillis(env.getProperty("sparql.cache.ttl-minutes", Long.class, 60L)),
+      TimeUnit.MINUTES.toMillis(
+        env.getProperty("sparql.cache.negative-ttl-minutes", Long.class, 5L)));
+  }
+
+  /**
+   * Creates the cache with the given bounds.
+   *
+   * @param maxEntries maximum number of cached results
+   * @param maxBytes maximum approximate size of all cached results in bytes
+   * @param ttlMillis time in milliseconds after which results expire
+   * @param negativeTtlMillis time in milliseconds after which empty results expire
+   */
+  public SparqlResultCache(int maxEntries, long maxBytes, long ttlMillis, long negativeTtlMillis) {
+    results = new ExpiringLruCache<>(maxEntries, maxBytes, ttlMillis,
+      SparqlResultCache::estimateBytes);
+    this.negativeTtlMillis = negativeTtlMillis;
+  }
+
+  /**
+   * Returns the key of a query. Jena serializes parsed queries in a fixed layout, so queries that
+   * only differ in whitespace get the same key.
+   *
+   * @param query query to be sent to the endpoint
+   * @return key of the query
+   */
+  public static String toKey(Query query) {
+    return query.serialize();
+  }
+
+  /**
+   * Returns the cached result of a query.
+   *
+   * @param key key of the query
+   * @return result of the query, or null if it is not cached
+   */
+  public Result get(String key) {
+    return results.get(key);
+  }
+
+  /**
+   * Caches the result of a query. Empty results expire after the shorter negative time to live.
+   *
+   * @param key key of the query
+   * @param result complete result of the query
+   */
+  public void put(String key, Result result) {
+    if (result.isEmpty()) {
+      results.put(key, result, negativeTtlMillis);
+    } else {
+      results.put(key, result);
+    }
+  }
+
+  /**
+   * Drops all cached results, e.g. after the dataset behind the endpoint was reloaded.
+   */
+  public void invalidateAll() {
+    results.invalidateAll();
+  }
+
+  /**
+   * Returns the statistics of this cache, e.g. for monitoring endpoints.
+   *
+   * @return statistic names mapped to their current values
+   */
+  public Map<String, Object> getStatistics() {
+    return results.getStatistics();
+  }
+
+  private static long estimateBytes(String key, Result result) {
+    long bytes = ENTRY_OVERHEAD_BYTES + 2L * key.length();
+    for (RDFNode rdfNode : result.getNodes()) {
+      if (rdfNode == null) {
+        continue;
+      }
+      Node node = rdfNode.asNode();
+      String text = node.isURI() ? node.getURI()
+        : node.isLiteral() ? node.getLiteralLexicalForm() : node.toString();
+      bytes += NODE_OVERHEAD_BYTES + 2L * text.length();
+    }
+    return bytes;
+  }
+
+  /**
+   * The result of a query: the values of the answer variable of a SELECT query, the value of an
+   * ASK query, or the values of the best parameter combination of a batched query.
+   */
+  public static final class Result {
+
+    private final Set<RDFNode> nodes;
+    private final int combination;
+    private final boolean holds;
+
+    private Result(Set<RDFNode> nodes, int combination, boolean holds) {
+      this.nodes = Collections.unmodifiableSet(new LinkedHashSet<>(nodes));
+      this.combination = combination;
+      this.holds = holds;
+    }
+
+    /**
+     * Creates the result of a SELECT query.
+     *
+     * @param nodes values of the answer variable, may be empty
+     * @return result of the query
+     */
+    public static Result select(Set<RDFNode> nodes) {
+      return new Result(nodes, nodes.isEmpty() ? -1 : 0, !nodes.isEmpty());
+    }
+
+    /**
+     * Creates the result of an ASK query.
+     *
+     * @param holds value of the query
+     * @return result of the query
+     */
+    public static Result ask(boolean holds) {
+      return new Result(Collections.emptySet(), holds ? 0 : -1, holds);
+    }
+
+    /**
+     * Creates the result of a batched query.
+     *
+     * @param combination index of the best combination with results, -1 if there is none
+     * @param nodes values of the answer variable for this combination
+     * @return result of the query
+     */
+    public static Result batch(int combination, Set<RDFNode> nodes) {
+      return new Result(nodes, combination, combination >= 0);
+    }
+
+    public Set<RDFNode> getNodes() {
+      return nodes;
+    }
+
+    /**
+     * Returns the index of the best parameter combination with results.
+     *
+     * @return index of the combination, -1 if the query has no results
+     */
+    public int getCombination() {
+      return combination;
+    }
+
+    /**
+     * Returns whether the query has results, i.e. the value of an ASK query.
+     *
+     * @return true if the query has results
+     */
+    public boolean holds() {
+      return holds;
+    }
+
+    public boolean isEmpty() {
+      return !holds;
+    }
+  }
+}
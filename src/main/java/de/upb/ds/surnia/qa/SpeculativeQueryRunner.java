@@ -0,0 +1,102 @@
+package de.upb.ds.surnia.qa;
+
+import de.upb.ds.surnia.util.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * Evaluates the ranked candidate queries of a question in parallel instead of one after another.
+ * The candidates are sent to the executor in windows of the top-K remaining candidates. The results
+ * are still inspected in rank order, so a lower ranked candidate only wins if all higher ranked
+ * candidates came back without an answer. As soon as a winner is known, all other executions of
+ * the window are aborted.
+ */
+public class SpeculativeQueryRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpeculativeQueryRunner.class);
+
+  private final ExecutorService executor;
+  private final int topK;
+  private final long deadlineMillis;
+
+  /**
+   * Creates a runner. The number of threads of the executor limits how many candidate queries are
+   * sent to the endpoint at the same time.
+   *
+   * @param executor executor for the candidate queries
+   * @param topK number of candidates evaluated at the same time for one question
+   * @param deadlineMillis time in milliseconds after which the search for an answer is given up
+   */
+  public SpeculativeQueryRunner(ExecutorService executor, int topK, long deadlineMillis) {
+    this.executor = executor;
+    this.topK = topK;
+    this.deadlineMillis = deadlineMillis;
+  }
+
+  /**
+   * Returns the result of the highest ranked candidate that has one, e.g. of a probe that only
+   * checks whether a candidate has results at all.
+   *
+   * @param rankedCandidates candidate queries, best first
+   * @param evaluator evaluates a candidate and returns its result, or null if there is none
+   * @param <Q> type of the candidate queries
+   * @param <R> type of the results
+   * @return result of the highest ranked candidate, or null if none of the candidates had one
+   *         before the deadline
+   */
+  public <Q, R> R findFirst(List<Q> rankedCandidates,
+    BiFunction<Q, QueryExecutionHandle, R> evaluator) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    for (int start = 0; start < rankedCandidates.size(); start += topK) {
+      List<Q> window = rankedCandidates.subList(start,
+        Math.min(start + topK, rankedCandidates.size()));
+      List<QueryExecutionHandle> handles = new ArrayList<>(window.size());
+      List<Future<R>> results = new ArrayList<>(window.size());
+      for (Q candidate : window) {
+        QueryExecutionHandle handle = new QueryExecutionHandle();
+        handles.add(handle);
+        results.add(executor.submit(
+          RequestContext.wrap(() -> evaluator.apply(candidate, handle))));
+      }
+      try {
+        for (int i = 0; i < results.size(); i++) {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            logger.info("No answer within {} ms", deadlineMillis);
+            return null;
+          }
+          try {
+            R result = results.get(i).get(remaining, TimeUnit.NANOSECONDS);
+            if (result != null) {
+              logger.debug("Candidate {} of {} won", start + i + 1, rankedCandidates.size());
+              return result;
+            }
+          } catch (ExecutionException e) {
+            logger.warn("Candidate {} failed: {}", start + i + 1, e.getCause().getMessage());
+          } catch (TimeoutException e) {
+            logger.info("No answer within {} ms", deadlineMillis);
+            return null;
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+          }
+        }
+      } finally {
+        for (int i = 0; i < results.size(); i++) {
+          handles.get(i).cancel();
+          results.get(i).cancel(true);
+        }
+      }
+    }
+    return null;
+  }
+}
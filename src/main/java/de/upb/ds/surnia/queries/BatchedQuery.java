@@ -0,0 +1,203 @@
+package de.upb.ds.surnia.queries;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementData;
+import org.apache.jena.sparql.syntax.ElementGroup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A query template together with all combinations of URIs for its parameters, rewritten into one
+ * query. The combinations are put into a VALUES block in front of the query pattern and the
+ * parameter variables are added to the projection, so a single request covers all combinations and
+ * every result row tells which combination produced it. ASK templates become a SELECT of the
+ * parameter variables, returning the combinations for which the pattern holds.
+ *
+ * <p>Templates with aggregates, grouping, LIMIT or OFFSET would mix the results of the different
+ * combinations. For them only the first combination is used, as before.</p>
+ */
+public class BatchedQuery {
+
+  private final QueryTemplate queryTemplate;
+  private final String[] params;
+  private final List<? extends Map<String, String>> combinations;
+  private final Map<List<String>, Integer> combinationIndices;
+  private final Query query;
+  private final String answerVar;
+  private final boolean batched;
+  private final boolean ask;
+
+  /**
+   * Rewrites the given template and combinations into one query.
+   *
+   * @param queryTemplate template with the parameters as variables
+   * @param combinations URIs for the parameters, best combination first
+   */
+  public BatchedQuery(QueryTemplate queryTemplate,
+    List<? extends Map<String, String>> combinations) {
+    this.queryTemplate = queryTemplate;
+    this.params = queryTemplate.getSparqlParams();
+    Query template = queryTemplate.getCompiledQuery();
+    this.ask = template.isAskType();
+    this.batched = combinations.size() > 1 && isBatchable(template);
+    this.combinations = batched ? combinations : combinations.subList(0, 1);
+    this.combinationIndices = new HashMap<>();
+    for (int i = 0; i < this.combinations.size(); i++) {
+      combinationIndices.putIfAbsent(getParamValues(this.combinations.get(i)), i);
+    }
+    if (!ask && !template.getProjectVars().isEmpty() && template.getAggregators().isEmpty()) {
+      this.answerVar = template.getProjectVars().get(0).getName();
+    } else {
+      this.answerVar = null;
+    }
+    this.query = batched ? createBatchedQuery(template) : bind(0);
+  }
+
+  private static boolean isBatchable(Query template) {
+    return template.isAskType() || template.isSelectType()
+      && !template.hasAggregators()
+      && !template.hasGroupBy()
+      && !template.hasHaving()
+      && !template.hasLimit()
+      && !template.hasOffset();
+  }
+
+  private Query createBatchedQuery(Query template) {
+    Query batchedQuery = template.cloneQuery();
+    ElementData data = new ElementData();
+    List<Var> paramVars = new ArrayList<>();
+    for (String param : params) {
+      Var paramVar = Var.alloc(param);
+      paramVars.add(paramVar);
+      data.add(paramVar);
+    }
+    for (Map<String, String> combination : combinations) {
+      BindingMap binding = BindingFactory.create();
+      for (Var paramVar : paramVars) {
+        binding.add(paramVar, NodeFactory.createURI(combination.get(paramVar.getName())));
+      }
+      data.add(binding);
+    }
+
+    ElementGroup pattern = new ElementGroup();
+    pattern.addElement(data);
+    Element templatePattern = batchedQuery.getQueryPattern();
+    if (templatePattern instanceof ElementGroup) {
+      for (Element element : ((ElementGroup) templatePattern).getElements()) {
+        pattern.addElement(element);
+      }
+    } else {
+      pattern.addElement(templatePattern);
+    }
+    batchedQuery.setQueryPattern(pattern);
+
+    if (ask) {
+      batchedQuery.setQuerySelectType();
+      batchedQuery.setQueryResultStar(false);
+      batchedQuery.setDistinct(true);
+    }
+    for (Var paramVar : paramVars) {
+      if (!batchedQuery.getProjectVars().contains(paramVar)) {
+        batchedQuery.addResultVar(paramVar);
+      }
+    }
+    return batchedQuery;
+  }
+
+  private List<String> getParamValues(Map<String, String> combination) {
+    List<String> values = new ArrayList<>(params.length);
+    for (String param : params) {
+      values.add(combination.get(param));
+    }
+    return values;
+  }
+
+  /**
+   * Returns the query to send to the endpoint.
+   *
+   * @return the batched query, or the query for the first combination if the template cannot be
+   *         batched
+   */
+  public Query getQuery() {
+    return query;
+  }
+
+  /**
+   * Returns true if the query covers more than one combination.
+   *
+   * @return true if the query contains a VALUES block with all combinations
+   */
+  public boolean isBatched() {
+    return batched;
+  }
+
+  /**
+   * Returns true if the template is an ASK query.
+   *
+   * @return true for ASK templates
+   */
+  public boolean isAsk() {
+    return ask;
+  }
+
+  /**
+   * Returns the variable holding the answers of the template, or null if it is only known from the
+   * result set, e.g. for aggregates.
+   *
+   * @return name of the answer variable or null
+   */
+  public String getAnswerVar() {
+    return answerVar;
+  }
+
+  /**
+   * Returns the number of combinations covered by the query.
+   *
+   * @return number of combinations
+   */
+  public int getCombinationCount() {
+    return combinations.size();
+  }
+
+  /**
+   * Returns the index of the combination that produced the given result row.
+   *
+   * @param solution result row of {@link #getQuery()}
+   * @return index of the combination, or -1 if the row matches none of them
+   */
+  public int getCombinationIndex(QuerySolution solution) {
+    if (!batched) {
+      return 0;
+    }
+    List<String> values = new ArrayList<>(params.length);
+    for (String param : params) {
+      RDFNode node = solution.get(param);
+      if (node == null || !node.isURIResource()) {
+        return -1;
+      }
+      values.add(node.asResource().getURI());
+    }
+    Integer index = combinationIndices.get(values);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Returns the template with the parameters replaced by the given combination.
+   *
+   * @param combinationIndex index of the combination
+   * @return query for a single combination
+   */
+  public Query bind(int combinationIndex) {
+    return queryTemplate.bind(combinations.get(combinationIndex));
+  }
+}
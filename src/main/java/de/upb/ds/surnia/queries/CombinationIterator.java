@@ -0,0 +1,102 @@
+package de.upb.ds.surnia.queries;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Produces the combinations of parameter replacements one at a time, best combination first. The
+ * URIs of every parameter have to be ordered best first. A combination is identified by the index
+ * of the URI chosen for each parameter and combinations with a smaller sum of indices come first,
+ * e.g. for two parameters [0,0] is followed by [0,1] and [1,0], then by [0,2], [1,1] and [2,0].
+ * Only the frontier of the search is kept in memory and the iteration stops after the given
+ * maximum number of combinations.
+ */
+public class CombinationIterator implements Iterator<HashMap<String, String>> {
+
+  private final String[] params;
+  private final List<List<String>> uris;
+  private final PriorityQueue<int[]> frontier;
+  private int remaining;
+
+  /**
+   * Creates an iterator over the combinations of the given URIs.
+   *
+   * @param params names of the parameters
+   * @param uris URIs for each parameter, best URI first
+   * @param maxCombinations maximum number of combinations to produce
+   */
+  public CombinationIterator(String[] params, List<List<String>> uris, int maxCombinations) {
+    this.params = params;
+    this.uris = uris;
+    this.frontier = new PriorityQueue<>(CombinationIterator::compare);
+    this.remaining = maxCombinations;
+    boolean empty = false;
+    for (List<String> paramUris : uris) {
+      empty |= paramUris.isEmpty();
+    }
+    if (!empty) {
+      frontier.add(new int[params.length]);
+    }
+  }
+
+  private static int compare(int[] a, int[] b) {
+    int difference = Integer.compare(sum(a), sum(b));
+    for (int i = 0; difference == 0 && i < a.length; i++) {
+      difference = Integer.compare(a[i], b[i]);
+    }
+    return difference;
+  }
+
+  private static int sum(int[] indices) {
+    int sum = 0;
+    for (int index : indices) {
+      sum += index;
+    }
+    return sum;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return remaining > 0 && !frontier.isEmpty();
+  }
+
+  @Override
+  public HashMap<String, String> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    int[] indices = frontier.poll();
+    remaining--;
+    addSuccessors(indices);
+    HashMap<String, String> combination = new HashMap<>();
+    for (int i = 0; i < params.length; i++) {
+      combination.put(params[i], uris.get(i).get(indices[i]));
+    }
+    return combination;
+  }
+
+  /**
+   * Adds the combinations that use the next URI for one parameter. Only parameters at or after the
+   * last increased one are increased, so every combination is reached on exactly one path and no
+   * set of visited combinations is needed.
+   */
+  private void addSuccessors(int[] indices) {
+    int lastIncreased = 0;
+    for (int i = indices.length - 1; i >= 0; i--) {
+      if (indices[i] > 0) {
+        lastIncreased = i;
+        break;
+      }
+    }
+    for (int i = lastIncreased; i < indices.length; i++) {
+      if (indices[i] + 1 < uris.get(i).size()) {
+        int[] successor = indices.clone();
+        successor[i]++;
+        frontier.add(successor);
+      }
+    }
+  }
+}
@@ -1,22 +1,38 @@
 package de.upb.ds.surnia.queries;
 
 import de.upb.ds.surnia.preprocessing.model.Token;
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.rdf.model.ResourceFactory;
+import de.upb.ds.surnia.util.SurniaUtil;
+import org.apache.jena.query.Query;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class QueryParameterReplacer {
 
+  /**
+   * Default for the maximum number of replacement combinations produced per query.
+   */
+  public static final int DEFAULT_MAX_COMBINATIONS = 100;
+
   private String[] params;
   private List<Token> tokens;
   private List<Token> usedTokens;
-  private String queryString;
+  private QueryTemplate queryTemplate;
   private String bestQuestionTemplate;
-  private HashMap<String, List<String>> possibleParamInputs;
+  private int maxCombinations;
+  private List<List<String>> possibleParamInputs;
+  private boolean paramInputsResolved;
 
   /**
    * Create a replacer for all combinations of the query with the question.
@@ -27,94 +43,101 @@ public class QueryParameterReplacer {
    */
   public QueryParameterReplacer(List<Token> questionTokens, String bestQuestionTemplate,
     QueryTemplate queryTemplate) {
-    queryString = queryTemplate.getSparqlTemplate();
+    this(questionTokens, bestQuestionTemplate, queryTemplate, DEFAULT_MAX_COMBINATIONS);
+  }
+
+  /**
+   * Create a replacer for the best combinations of the query with the question.
+   *
+   * @param questionTokens Pre-processing result of the question.
+   * @param bestQuestionTemplate the best fitting template for the given question
+   * @param queryTemplate QueryTemplate with the parameters to be replaced.
+   * @param maxCombinations maximum number of replacement combinations to produce
+   */
+  public QueryParameterReplacer(List<Token> questionTokens, String bestQuestionTemplate,
+    QueryTemplate queryTemplate, int maxCombinations) {
+    this.queryTemplate = queryTemplate;
     tokens = questionTokens;
     params = queryTemplate.getSparqlParams();
     usedTokens = new LinkedList<>();
     this.bestQuestionTemplate = bestQuestionTemplate;
+    this.maxCombinations = maxCombinations;
   }
 
   /**
-   * Generate all replacement combinations.
+   * Generate all replacement combinations, best combination first and at most as many as allowed.
    *
    * @return All possible query replacements.
    */
-  public List<ParameterizedSparqlString> getQueriesWithReplacedParameters() {
-    LinkedList<ParameterizedSparqlString> queries = new LinkedList<>();
-    List<HashMap<String, String>> combinations = generateParameterReplacementCombinations();
-    if (null != combinations) {
-      for (HashMap<String, String> parameterReplacement : combinations) {
-        ParameterizedSparqlString query = new ParameterizedSparqlString(queryString);
-        for (String param : params) {
-          query.setParam(param, ResourceFactory.createResource(parameterReplacement.get(param)));
-        }
-        queries.add(query);
-      }
-    }
-    return queries;
+  public List<Query> getQueriesWithReplacedParameters() {
+    return streamQueriesWithReplacedParameters().collect(Collectors.toList());
   }
 
   /**
-   * Produces all possible combinations of parameter replacements. E.g. for 3 parameter with 2 URIs
-   * each, it will produce 8 combinations. Each list element contains 1 combination.
+   * Generate the replacement combinations lazily, best combination first. A query is only built
+   * when the stream reaches it, so e.g. {@code findFirst()} builds a single query.
+   *
+   * @return Stream of the possible query replacements.
    */
-  private List<HashMap<String, String>> generateParameterReplacementCombinations() {
-    List<HashMap<String, String>> combinations = new LinkedList<>();
-    possibleParamInputs = new HashMap<>();
-    for (String param : params) {
-      List<String> uris = getUrisFromClosestToken(param);
-      if (null != uris)
-        possibleParamInputs.put(param, uris);
-      else
-        return null;
-    }
+  public Stream<Query> streamQueriesWithReplacedParameters() {
+    Spliterator<HashMap<String, String>> combinations = Spliterators.spliteratorUnknownSize(
+      combinationIterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(combinations, false).map(queryTemplate::bind);
+  }
 
-    /* Produce a array which holds the information which combination we should use now.
-     * I.e. for three parameters A,B,C (this order) and the counter-array [2,0,4],
-     * it would specify that the 3rd URI for A, the 1st URI for B and the 5th URI for C should be
-     * used for this combination.
-     */
-    int[] counter = new int[params.length];
-    for (int i = 0; i < counter.length; i++) {
-      counter[i] = 0;
-    }
-    while (!allCombinationsProduced(counter)) {
-      combinations.add(createCombination(counter));
-      increaseCounterArray(counter, 0);
+  /**
+   * Rewrites the query and the replacement combinations into a single query.
+   *
+   * @return query covering the replacement combinations, or null if a parameter has no URIs
+   * @see BatchedQuery
+   */
+  public BatchedQuery getBatchedQuery() {
+    if (null == getPossibleParamInputs()) {
+      return null;
     }
-    combinations.add(createCombination(counter));
-    return combinations;
+    List<HashMap<String, String>> combinations = new ArrayList<>();
+    combinationIterator().forEachRemaining(combinations::add);
+    return new BatchedQuery(queryTemplate, combinations);
   }
 
-  private void increaseCounterArray(int[] counter, int i) {
-    int length = possibleParamInputs.get(params[i]).size() - 1;
-    if (counter[i] < length) {
-      counter[i]++;
-    } else if (i < counter.length - 1) {
-      counter[i] = 0;
-      increaseCounterArray(counter, i + 1);
+  /**
+   * Returns an iterator over the combinations of parameter replacements, best combination first.
+   * E.g. for 3 parameter with 2 URIs each, there are 8 combinations. Each element is 1
+   * combination.
+   *
+   * @return iterator over the combinations, empty if a parameter has no URIs
+   * @see CombinationIterator
+   */
+  public Iterator<HashMap<String, String>> combinationIterator() {
+    List<List<String>> paramInputs = getPossibleParamInputs();
+    if (null == paramInputs) {
+      return Collections.emptyIterator();
     }
+    return new CombinationIterator(params, paramInputs, maxCombinations);
   }
 
-  private boolean allCombinationsProduced(int[] counter) {
-    for (int i = 0; i < counter.length; i++) {
-      if (null != possibleParamInputs.get(params[i])) {
-        if (counter[i] < (possibleParamInputs.get(params[i]).size() - 1)) {
-          return false;
-        }
-      }
+  /**
+   * Returns the URIs for each parameter. They are only searched once, because searching them marks
+   * the used tokens.
+   */
+  private List<List<String>> getPossibleParamInputs() {
+    if (!paramInputsResolved) {
+      possibleParamInputs = resolvePossibleParamInputs();
+      paramInputsResolved = true;
     }
-    return true;
+    return possibleParamInputs;
   }
 
-  private HashMap<String, String> createCombination(int[] counter) {
-    HashMap<String, String> combination = new HashMap<>();
-    for (int i = 0; i < params.length; i++) {
-      String param = params[i];
-      String uri = possibleParamInputs.get(param).get(counter[i]);
-      combination.put(param, uri);
+  private List<List<String>> resolvePossibleParamInputs() {
+    List<List<String>> paramInputs = new ArrayList<>(params.length);
+    for (String param : params) {
+      List<String> uris = getUrisFromClosestToken(param);
+      if (null != uris)
+        paramInputs.add(uris);
+      else
+        return null;
     }
-    return combination;
+    return paramInputs;
   }
 
   /**
@@ -170,13 +193,13 @@ public class QueryParameterReplacer {
         String nextToken = token.getUris().iterator().next();
         if (resourceWanted && nextToken.contains("resource") || nextToken.contains("notInWiki")) {
           usedTokens.add(token);
-          return new ArrayList<>(token.getUris());
+          return rankUris(token);
         } else if (nextToken.contains("ontology")) {
           usedTokens.add(token);
-          return new ArrayList<>(token.getUris());
+          return rankUris(token);
         } else if (nextToken.contains("property")) {
           usedTokens.add(token);
-          return new ArrayList<>(token.getUris());
+          return rankUris(token);
         } else {
           return null;
         }
@@ -187,4 +210,21 @@ public class QueryParameterReplacer {
       return null;
     }
   }
+
+  /**
+   * Orders the URIs of the token best first, i.e. by the similarity of the last segment of the URI
+   * to the text of the token.
+   */
+  private static List<String> rankUris(Token token) {
+    String text = token.getText().toLowerCase();
+    Map<String, Double> similarities = new HashMap<>();
+    for (String uri : token.getUris()) {
+      String localName = uri.substring(uri.lastIndexOf('/') + 1).replace('_', ' ').toLowerCase();
+      similarities.put(uri, SurniaUtil.stringSimilarity(localName, text));
+    }
+    List<String> uris = new ArrayList<>(token.getUris());
+    uris.sort(Comparator.comparing((String uri) -> similarities.get(uri)).reversed()
+      .thenComparing(Comparator.naturalOrder()));
+    return uris;
+  }
 }
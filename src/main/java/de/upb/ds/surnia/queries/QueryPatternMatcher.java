@@ -1,15 +1,17 @@
 package de.upb.ds.surnia.queries;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import de.upb.ds.surnia.jfr.StageEvent;
 import de.upb.ds.surnia.preprocessing.model.Token;
-import de.upb.ds.surnia.util.SurniaUtil;
-import org.apache.jena.query.ParameterizedSparqlString;
+import de.upb.ds.surnia.util.Json;
+import de.upb.ds.surnia.util.RequestContext;
+import de.upb.ds.surnia.util.RequestTrace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class QueryPatternMatcher {
@@ -17,6 +19,9 @@ public class QueryPatternMatcher {
   public static final float QUERY_RANKING_THRESHOlD = 0.5f;
   static final Logger logger = LoggerFactory.getLogger(QueryPatternMatcher.class);
   private List<QueryTemplate> queryTemplates;
+  private QueryTemplateIndex queryTemplateIndex;
+  private float[] bufferRankings;
+  private int maxCombinations;
 
   /**
    * Parses all queryTemplates from a given file.
@@ -24,104 +29,82 @@ public class QueryPatternMatcher {
    * @param queryTemplatesFileName Name of the query file.
    */
   public QueryPatternMatcher(String queryTemplatesFileName) {
+    this(queryTemplatesFileName, QueryParameterReplacer.DEFAULT_MAX_COMBINATIONS);
+  }
+
+  /**
+   * Parses all queryTemplates from a given file.
+   *
+   * @param queryTemplatesFileName Name of the query file.
+   * @param maxCombinations maximum number of parameter replacements produced per query template.
+   */
+  public QueryPatternMatcher(String queryTemplatesFileName, int maxCombinations) {
+    this.maxCombinations = maxCombinations;
     queryTemplates = new LinkedList<>();
     try {
-      // Read all prepared queryTemplates from the JSON file.
-      String queryTemplatesFile = getClass().getClassLoader().getResource(queryTemplatesFileName)
-        .getFile();
-      BufferedReader queryTemplateFileReader = new BufferedReader(
-        new FileReader(queryTemplatesFile));
+      // Read all prepared queryTemplates from the JSON file, which may also be packed in a jar
+      BufferedReader queryTemplateFileReader = new BufferedReader(new InputStreamReader(
+        getClass().getClassLoader().getResourceAsStream(queryTemplatesFileName),
+        StandardCharsets.UTF_8));
       String line;
       StringBuilder jsonStringBuilder = new StringBuilder();
       while ((line = queryTemplateFileReader.readLine()) != null) {
         jsonStringBuilder.append(line);
       }
       if (jsonStringBuilder.length() > 0) {
-        ObjectMapper mapper = new ObjectMapper();
-        queryTemplates = mapper
+        queryTemplates = Json.MAPPER
           .readValue(jsonStringBuilder.toString(), new TypeReference<ArrayList<QueryTemplate>>() {
           });
       }
+      // Parse the SPARQL templates once now instead of for every question
+      for (QueryTemplate queryTemplate : queryTemplates) {
+        queryTemplate.getCompiledQuery();
+      }
       queryTemplateFileReader.close();
     } catch (Exception e) {
       logger.error("{}", e.getLocalizedMessage());
     }
-  }
-
-  /**
-   * Find all queryTemplates that were rated above the threshold for the given question.
-   *
-   * @param questionTokens Tokens of the question with the analysis of the pre-processing pipeline.
-   * @return A list with all parameterized SPARQL queryTemplates with a good rating.
-   */
-  public Map<Float, List<ParameterizedSparqlString>> findMatchingQueries(List<Token> questionTokens) {
-    float bufferRanking = 0.000f; // This is used to break tie between queries; Breaking tie is necessary to process all queries
-    QuestionProperties questionProperties = new QuestionProperties(questionTokens);
-    logger.info("{}", questionProperties);
-    Map<Float, List<ParameterizedSparqlString>> possibleQueries = new TreeMap<>(Collections.reverseOrder());
-    for (QueryTemplate queryTemplate : queryTemplates) {
+    queryTemplateIndex = new QueryTemplateIndex(queryTemplates, QUERY_RANKING_THRESHOlD);
+    // This is used to break tie between queries; Breaking tie is necessary to process all queries
+    bufferRankings = new float[queryTemplates.size()];
+    float bufferRanking = 0.000f;
+    for (int i = 0; i < bufferRankings.length; i++) {
       bufferRanking = bufferRanking + 0.001f;
-      String bestQuestionTempalateRawString = rateQuery(questionProperties, queryTemplate);
-      if (null != bestQuestionTempalateRawString) {
-        String[] bestQuestionTemplateTokenArray = bestQuestionTempalateRawString.split("-");
-        String bestQuestionTemplate = bestQuestionTemplateTokenArray[0];
-        QueryParameterReplacer queryParameterReplacer = new QueryParameterReplacer(questionTokens,
-          bestQuestionTemplate,
-          queryTemplate);
-        List<ParameterizedSparqlString> queriesWithReplacedParameters = queryParameterReplacer.getQueriesWithReplacedParameters();
-        String queryRanking = bestQuestionTemplateTokenArray[1];
-        if (null != queriesWithReplacedParameters && null != queryRanking) {
-          possibleQueries.put(Float.parseFloat(queryRanking) + bufferRanking, queriesWithReplacedParameters);
-        }
-      }
+      bufferRankings[i] = bufferRanking;
     }
-    logger.debug("QueryTemplate amount: {}", possibleQueries.size());
-    return possibleQueries;
   }
 
   /**
-   * Rate a query according to the properties of the given question.
+   * Find all queryTemplates that were rated above the threshold for the given question. The
+   * parameters of the templates are not replaced yet, this is left to the returned replacers.
    *
-   * @param questionProperties Analyzed properties of the input question.
-   * @param queryTemplate      A query template from the prepared query set.
-   * @return A ranking for the query regarding the question between 0 and 1.
+   * @param questionTokens Tokens of the question with the analysis of the pre-processing pipeline.
+   * @return Replacers for all queryTemplates with a good rating, best rating first.
    */
-  private String rateQuery(QuestionProperties questionProperties, QueryTemplate queryTemplate) {
-    String questionStartWord = questionProperties.getQuestionStart();
-    if (!Arrays.asList(queryTemplate.getQuestionStartWord()).contains(questionStartWord)) {
-      logger.debug("Wrong question word");
-      return null;
-    }
-    if (queryTemplate.containsSuperlative() && !questionProperties.containsSuperlative()) {
-      logger.debug("Inconsistent superlative");
-      return null;
+  public Map<Float, QueryParameterReplacer> findMatchingTemplates(List<Token> questionTokens) {
+    StageEvent event = StageEvent.start("template_rating");
+    QuestionProperties questionProperties = new QuestionProperties(questionTokens);
+    logger.debug("{}", questionProperties);
+    RequestTrace trace = RequestContext.getTrace();
+    if (trace != null) {
+      trace.setRepresentationForm(questionProperties.getRepresentationForm());
     }
-    // Commented out for now, as these conditions will never be met with the new implementation of tasks.
-//    if (query.resourceAmount > questionProperties.resourceAmount) {
-//      logger.info("Not enough properties");
-//      return null;
-//    }
-//    if (query.ontologyAmount > questionProperties.ontologyAmount) {
-//      logger.info("Not enough ontologies");
-//      return null;
-//    }
-
-    double max = 0.0f;
-    String bestFitQuestion = "";
-    for (String questionTemplate : queryTemplate.getExampleQuestions()) {
-      double similarity = SurniaUtil.stringSimilarity(questionTemplate,
-        questionProperties.getRepresentationForm());
-      if (similarity > max) {
-        max = similarity;
-        bestFitQuestion = questionTemplate;
+    Map<Float, QueryParameterReplacer> possibleTemplates = new TreeMap<>(Collections.reverseOrder());
+    for (QueryTemplateIndex.TemplateMatch match : queryTemplateIndex.findMatchingTemplates(questionProperties)) {
+      logger.debug("{} - {}: {}", match.getExampleQuestion(),
+        questionProperties.getRepresentationForm(), match.getSimilarity());
+      QueryParameterReplacer queryParameterReplacer = new QueryParameterReplacer(questionTokens,
+        match.getExampleQuestion(),
+        match.getQueryTemplate(), maxCombinations);
+      float queryRanking = (float) match.getSimilarity();
+      possibleTemplates.put(queryRanking + bufferRankings[match.getTemplatePosition()], queryParameterReplacer);
+      if (trace != null) {
+        trace.addTemplate(queryRanking + bufferRankings[match.getTemplatePosition()],
+          match.getExampleQuestion(), match.getQueryTemplate().getSparqlTemplate());
       }
     }
-    if (max >= QUERY_RANKING_THRESHOlD) {
-      logger.info("{} - {}: {}", bestFitQuestion, questionProperties.getRepresentationForm(), max);
-      return String.format("%s - %f", bestFitQuestion, max);
-    } else {
-      logger.warn("Similarity too low. Maximum is only {}", max);
-      return null;
-    }
+    logger.debug("QueryTemplate amount: {}", possibleTemplates.size());
+    event.finish(possibleTemplates.size(), -1);
+    return possibleTemplates;
   }
 }
@@ -1,7 +1,17 @@
 package de.upb.ds.surnia.queries;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.syntax.syntaxtransform.QueryTransformOps;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class QueryTemplate {
@@ -27,12 +37,51 @@ public class QueryTemplate {
   @JsonProperty("exampleQuestions")
   private String[] exampleQuestions;
 
+  /**
+   * The parsed SPARQL template, created on first use and dropped when the template changes.
+   */
+  @JsonIgnore
+  private volatile Query compiledQuery;
+
   public String getSparqlTemplate() {
     return sparqlTemplate;
   }
 
   public void setSparqlTemplate(String sparqlTemplate) {
     this.sparqlTemplate = sparqlTemplate;
+    this.compiledQuery = null;
+  }
+
+  /**
+   * Returns the parsed SPARQL template. It is parsed only once and must not be modified, use
+   * {@link Query#cloneQuery()} for changes.
+   *
+   * @return the SPARQL template as query with the parameters as variables
+   */
+  @JsonIgnore
+  public Query getCompiledQuery() {
+    Query query = compiledQuery;
+    if (query == null) {
+      query = QueryFactory.create(sparqlTemplate);
+      compiledQuery = query;
+    }
+    return query;
+  }
+
+  /**
+   * Replaces the parameters of the template with the given URIs. The parsed template is
+   * transformed directly, so the SPARQL text is not parsed again.
+   *
+   * @param parameterReplacement parameter names mapped to URIs
+   * @return executable query
+   */
+  public Query bind(Map<String, String> parameterReplacement) {
+    Map<Var, Node> substitutions = new HashMap<>();
+    for (String param : sparqlParams) {
+      substitutions.put(Var.alloc(param),
+        NodeFactory.createURI(parameterReplacement.get(param)));
+    }
+    return QueryTransformOps.transform(getCompiledQuery(), substitutions);
   }
 
   public String[] getSparqlParams() {
@@ -0,0 +1,277 @@
+package de.upb.ds.surnia.queries;
+
+import de.upb.ds.surnia.util.SurniaUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index over the example questions of the query templates, built once when the templates are
+ * loaded. It returns the templates whose best example question reaches the similarity threshold
+ * for a question, without comparing the question to every example.
+ *
+ * <p>The representation forms are compared element by element, with every POS tag and
+ * placeholder encoded by a {@link TagAlphabet}. The examples are encoded once when the index is
+ * built, the question once per lookup.</p>
+ *
+ * <p>The templates are partitioned by their question start words and by whether they need a
+ * superlative, so only templates that fit the question are looked at. Within a partition the
+ * examples are sorted by length and every element points to the examples containing it. A
+ * question only gets compared to the examples whose length and number of common elements allow the
+ * similarity to reach the threshold, all other examples are skipped safely.</p>
+ */
+public class QueryTemplateIndex {
+
+  /**
+   * Slack for the floating point bounds, so they never reject an example that reaches the
+   * threshold.
+   */
+  private static final double EPSILON = 1e-6;
+
+  private final List<QueryTemplate> queryTemplates;
+  private final float threshold;
+  private final TagAlphabet alphabet = new TagAlphabet();
+  private final Map<String, Partition> plainPartitions = new HashMap<>();
+  private final Map<String, Partition> superlativePartitions = new HashMap<>();
+
+  /**
+   * Builds the index for the given templates.
+   *
+   * @param queryTemplates all query templates in the order of the template file
+   * @param threshold minimal similarity of an example question to the question
+   */
+  public QueryTemplateIndex(List<QueryTemplate> queryTemplates, float threshold) {
+    this.queryTemplates = new ArrayList<>(queryTemplates);
+    this.threshold = threshold;
+    Map<String, List<Integer>> plainTemplates = new HashMap<>();
+    Map<String, List<Integer>> superlativeTemplates = new HashMap<>();
+    for (int position = 0; position < this.queryTemplates.size(); position++) {
+      QueryTemplate queryTemplate = this.queryTemplates.get(position);
+      Map<String, List<Integer>> templates = queryTemplate.containsSuperlative()
+        ? superlativeTemplates : plainTemplates;
+      for (String startWord : new LinkedHashSet<>(Arrays.asList(
+        queryTemplate.getQuestionStartWord()))) {
+        templates.computeIfAbsent(startWord, key -> new ArrayList<>()).add(position);
+      }
+    }
+    plainTemplates.forEach((startWord, positions) ->
+      plainPartitions.put(startWord, new Partition(positions)));
+    superlativeTemplates.forEach((startWord, positions) ->
+      superlativePartitions.put(startWord, new Partition(positions)));
+  }
+
+  /**
+   * Finds all templates with an example question similar enough to the question.
+   *
+   * @param questionProperties analyzed properties of the question
+   * @return the matching templates, in the order of the template file
+   */
+  public List<TemplateMatch> findMatchingTemplates(QuestionProperties questionProperties) {
+    String startWord = questionProperties.getQuestionStart();
+    short[] representationForm = alphabet.encode(questionProperties.getRepresentationForm());
+    Map<Integer, TemplateMatch> matches = new TreeMap<>();
+    Partition plainPartition = plainPartitions.get(startWord);
+    if (plainPartition != null) {
+      plainPartition.collectMatches(representationForm, matches);
+    }
+    // Templates with a superlative only fit questions with a superlative
+    Partition superlativePartition = superlativePartitions.get(startWord);
+    if (superlativePartition != null && questionProperties.containsSuperlative()) {
+      superlativePartition.collectMatches(representationForm, matches);
+    }
+    return new ArrayList<>(matches.values());
+  }
+
+  /**
+   * Counts how often each known element occurs in the encoded representation form.
+   */
+  private static Map<Short, Integer> countElements(short[] representationForm) {
+    Map<Short, Integer> elements = new HashMap<>();
+    for (short element : representationForm) {
+      if (element != TagAlphabet.UNKNOWN) {
+        elements.merge(element, 1, Integer::sum);
+      }
+    }
+    return elements;
+  }
+
+  /**
+   * The examples of all templates for one start word, sorted by their length.
+   */
+  private class Partition {
+
+    private final String[] examples;
+    private final short[][] encodedExamples;
+    private final int[] lengths;
+    private final int[] templatePositions;
+    private final int[] exampleIndices;
+    private final Map<Short, Postings> postings = new HashMap<>();
+
+    Partition(List<Integer> positions) {
+      List<int[]> entries = new ArrayList<>();
+      List<short[]> encodedEntries = new ArrayList<>();
+      for (int position : positions) {
+        String[] templateExamples = queryTemplates.get(position).getExampleQuestions();
+        for (int exampleIndex = 0; exampleIndex < templateExamples.length; exampleIndex++) {
+          short[] encodedExample = alphabet.intern(templateExamples[exampleIndex]);
+          entries.add(new int[]{position, exampleIndex, encodedExample.length,
+            encodedEntries.size()});
+          encodedEntries.add(encodedExample);
+        }
+      }
+      entries.sort(Comparator.comparingInt(entry -> entry[2]));
+
+      examples = new String[entries.size()];
+      encodedExamples = new short[entries.size()][];
+      lengths = new int[entries.size()];
+      templatePositions = new int[entries.size()];
+      exampleIndices = new int[entries.size()];
+      Map<Short, List<int[]>> postingLists = new HashMap<>();
+      for (int id = 0; id < entries.size(); id++) {
+        int[] entry = entries.get(id);
+        templatePositions[id] = entry[0];
+        exampleIndices[id] = entry[1];
+        lengths[id] = entry[2];
+        examples[id] = queryTemplates.get(entry[0]).getExampleQuestions()[entry[1]];
+        encodedExamples[id] = encodedEntries.get(entry[3]);
+        for (Map.Entry<Short, Integer> element : countElements(encodedExamples[id]).entrySet()) {
+          postingLists.computeIfAbsent(element.getKey(), key -> new ArrayList<>())
+            .add(new int[]{id, element.getValue()});
+        }
+      }
+      postingLists.forEach((element, postingList) ->
+        postings.put(element, new Postings(postingList)));
+    }
+
+    void collectMatches(short[] representationForm, Map<Integer, TemplateMatch> matches) {
+      int length = representationForm.length;
+      if (length == 0) {
+        return;
+      }
+      // The distance is at least the difference of the lengths
+      int firstId = lowerBound(lengths, (int) Math.ceil(threshold * length - EPSILON));
+      int endId = lowerBound(lengths, (int) Math.floor(length / threshold + EPSILON) + 1);
+      if (firstId >= endId) {
+        return;
+      }
+
+      int[] common = new int[endId - firstId];
+      for (Map.Entry<Short, Integer> element : countElements(representationForm).entrySet()) {
+        Postings elementPostings = postings.get(element.getKey());
+        if (elementPostings != null) {
+          elementPostings.addCommon(element.getValue(), firstId, endId, common);
+        }
+      }
+
+      for (int id = firstId; id < endId; id++) {
+        // Every edit changes at most one of the common elements
+        int maxLength = Math.max(length, lengths[id]);
+        int maxDistance = SurniaUtil.maxDistanceForSimilarity(maxLength, threshold);
+        if (common[id - firstId] < maxLength - maxDistance) {
+          continue;
+        }
+        int distance = SurniaUtil.boundedDistance(encodedExamples[id], representationForm,
+          maxDistance);
+        if (distance <= maxDistance) {
+          double similarity = 1.0d - ((double) distance / maxLength);
+          TemplateMatch match = matches.get(templatePositions[id]);
+          if (match == null || similarity > match.similarity
+            || similarity == match.similarity && exampleIndices[id] < match.exampleIndex) {
+            matches.put(templatePositions[id], new TemplateMatch(templatePositions[id],
+              queryTemplates.get(templatePositions[id]), examples[id], exampleIndices[id],
+              similarity));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The ids of the examples containing an element, ascending, with the number of occurrences.
+   */
+  private static class Postings {
+
+    private final int[] ids;
+    private final int[] counts;
+
+    Postings(List<int[]> postingList) {
+      ids = new int[postingList.size()];
+      counts = new int[postingList.size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = postingList.get(i)[0];
+        counts[i] = postingList.get(i)[1];
+      }
+    }
+
+    void addCommon(int count, int firstId, int endId, int[] common) {
+      for (int i = lowerBound(ids, firstId); i < ids.length && ids[i] < endId; i++) {
+        common[ids[i] - firstId] += Math.min(count, counts[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the first index of the sorted array with a value of at least the given value.
+   */
+  private static int lowerBound(int[] sorted, int value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * A template together with its example question that is most similar to the question.
+   */
+  public static class TemplateMatch {
+
+    private final int templatePosition;
+    private final QueryTemplate queryTemplate;
+    private final String exampleQuestion;
+    private final int exampleIndex;
+    private final double similarity;
+
+    TemplateMatch(int templatePosition, QueryTemplate queryTemplate, String exampleQuestion,
+      int exampleIndex, double similarity) {
+      this.templatePosition = templatePosition;
+      this.queryTemplate = queryTemplate;
+      this.exampleQuestion = exampleQuestion;
+      this.exampleIndex = exampleIndex;
+      this.similarity = similarity;
+    }
+
+    /**
+     * Returns the position of the template in the template file.
+     *
+     * @return position starting at 0
+     */
+    public int getTemplatePosition() {
+      return templatePosition;
+    }
+
+    public QueryTemplate getQueryTemplate() {
+      return queryTemplate;
+    }
+
+    public String getExampleQuestion() {
+      return exampleQuestion;
+    }
+
+    public double getSimilarity() {
+      return similarity;
+    }
+  }
+}
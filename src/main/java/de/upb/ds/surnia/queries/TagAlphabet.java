@@ -0,0 +1,83 @@
+package de.upb.ds.surnia.queries;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the elements of representation forms, i.e. POS tags and the placeholders for resources,
+ * ontology classes and properties, to small integer codes. Representation forms can then be
+ * compared as arrays of codes instead of strings.
+ *
+ * <p>Placeholders are mapped to their letter, so the numbered parameter R1 of an example question
+ * and the placeholder R of a question get the same code. New elements are only added while the
+ * alphabet is built; elements that were not added later are encoded as {@link #UNKNOWN}.</p>
+ */
+public class TagAlphabet {
+
+  /**
+   * Code of elements that are not part of the alphabet. It never equals another code.
+   */
+  public static final short UNKNOWN = -1;
+
+  private static final Pattern PLACEHOLDER = Pattern.compile("[ROP][0-9]*");
+
+  private final Map<String, Short> codes = new HashMap<>();
+
+  /**
+   * Adds all elements of the representation form to the alphabet and encodes it.
+   *
+   * @param representationForm elements separated by spaces, e.g. "WP VBZ DT O1 IN R1 ."
+   * @return codes of the elements
+   */
+  public short[] intern(String representationForm) {
+    String[] elements = split(representationForm);
+    short[] encoded = new short[elements.length];
+    for (int i = 0; i < elements.length; i++) {
+      String element = normalize(elements[i]);
+      Short code = codes.get(element);
+      if (code == null) {
+        if (codes.size() == Short.MAX_VALUE) {
+          throw new IllegalStateException("Too many different elements in representation forms");
+        }
+        code = (short) codes.size();
+        codes.put(element, code);
+      }
+      encoded[i] = code;
+    }
+    return encoded;
+  }
+
+  /**
+   * Encodes the representation form without changing the alphabet.
+   *
+   * @param representationForm elements separated by spaces, e.g. "WP VBZ DT O IN R ."
+   * @return codes of the elements, {@link #UNKNOWN} for elements not in the alphabet
+   */
+  public short[] encode(String representationForm) {
+    String[] elements = split(representationForm);
+    short[] encoded = new short[elements.length];
+    for (int i = 0; i < elements.length; i++) {
+      encoded[i] = codes.getOrDefault(normalize(elements[i]), UNKNOWN);
+    }
+    return encoded;
+  }
+
+  /**
+   * Returns the number of different elements.
+   *
+   * @return size of the alphabet
+   */
+  public int size() {
+    return codes.size();
+  }
+
+  private static String[] split(String representationForm) {
+    String trimmed = representationForm.trim();
+    return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+  }
+
+  private static String normalize(String element) {
+    return PLACEHOLDER.matcher(element).matches() ? element.substring(0, 1) : element;
+  }
+}
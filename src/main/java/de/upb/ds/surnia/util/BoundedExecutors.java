@@ -0,0 +1,33 @@
+package de.upb.ds.surnia.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory for the executors used to run parts of the question answering in parallel.
+ */
+public final class BoundedExecutors {
+
+  private BoundedExecutors() {
+  }
+
+  /**
+   * Creates an executor with a bounded amount of daemon threads and a bounded queue. If all threads
+   * are busy and the queue is full, the submitting thread runs the task itself, so a saturated
+   * executor slows callers down instead of rejecting their work.
+   *
+   * @param name name prefix of the worker threads
+   * @param threads maximum number of worker threads
+   * @param queueCapacity maximum number of waiting tasks
+   * @return bounded executor
+   */
+  public static ExecutorService create(String name, int threads, int queueCapacity) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory(name),
+      new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
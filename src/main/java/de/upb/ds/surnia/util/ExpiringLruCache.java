@@ -0,0 +1,266 @@
+package de.upb.ds.surnia.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A thread-safe cache that holds at most a given number of entries and forgets entries after a
+ * given time. If the cache is full, the least recently used entry is evicted. The cache counts
+ * hits, misses, evictions and expirations.
+ *
+ * <p>Optionally the entries are weighed, e.g. by their approximate size in bytes, and the cache
+ * also evicts entries while their total weight exceeds a maximum. Single entries may be stored with
+ * their own time to live.</p>
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class ExpiringLruCache<K, V> {
+
+  /**
+   * How often per time to live a full cache is swept for expired entries at most.
+   */
+  private static final int SWEEPS_PER_TTL = 10;
+
+  private final LinkedHashMap<K, CacheEntry<V>> entries;
+  private final int maxSize;
+  private final long maxWeight;
+  private final long ttlMillis;
+  private final ToLongBiFunction<? super K, ? super V> weigher;
+  private final LongSupplier clock;
+  private final long sweepIntervalMillis;
+  private long weight;
+  private long nextSweep;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * Creates a cache with the given bounds.
+   *
+   * @param maxSize maximum number of entries
+   * @param ttlMillis time in milliseconds after which an entry expires
+   */
+  public ExpiringLruCache(int maxSize, long ttlMillis) {
+    this(maxSize, Long.MAX_VALUE, ttlMillis, null);
+  }
+
+  /**
+   * Creates a cache that is also bounded by the total weight of its entries.
+   *
+   * @param maxSize maximum number of entries
+   * @param maxWeight maximum total weight of the entries
+   * @param ttlMillis default time in milliseconds after which an entry expires
+   * @param weigher computes the weight of an entry, e.g. its approximate size in bytes
+   */
+  public ExpiringLruCache(int maxSize, long maxWeight, long ttlMillis,
+    ToLongBiFunction<? super K, ? super V> weigher) {
+    this(maxSize, maxWeight, ttlMillis, weigher, System::currentTimeMillis);
+  }
+
+  ExpiringLruCache(int maxSize, long ttlMillis, LongSupplier clock) {
+    this(maxSize, Long.MAX_VALUE, ttlMillis, null, clock);
+  }
+
+  ExpiringLruCache(int maxSize, long maxWeight, long ttlMillis,
+    ToLongBiFunction<? super K, ? super V> weigher, LongSupplier clock) {
+    this.maxSize = maxSize;
+    this.maxWeight = maxWeight;
+    this.ttlMillis = ttlMillis;
+    this.weigher = weigher;
+    this.clock = clock;
+    this.sweepIntervalMillis = Math.max(1, ttlMillis / SWEEPS_PER_TTL);
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns the value for the given key, or null if there is no value or it has expired.
+   *
+   * @param key key of the value
+   * @return cached value or null
+   */
+  public synchronized V get(K key) {
+    CacheEntry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    if (entry.expiresAt <= clock.getAsLong()) {
+      entries.remove(key);
+      weight -= entry.weight;
+      expirations.increment();
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  /**
+   * Stores the given value. If the cache is full afterwards, the least recently used entries are
+   * dropped. Expired entries are dropped first, but the whole cache is searched for them at most a
+   * few times per time to live, so that inserting into a full cache does not scan every entry.
+   *
+   * @param key key of the value
+   * @param value value to cache
+   */
+  public void put(K key, V value) {
+    put(key, value, ttlMillis);
+  }
+
+  /**
+   * Stores the given value with its own time to live. A value heavier than the maximum weight of
+   * the cache is not stored.
+   *
+   * @param key key of the value
+   * @param value value to cache
+   * @param ttlMillis time in milliseconds after which this value expires
+   */
+  public synchronized void put(K key, V value, long ttlMillis) {
+    long now = clock.getAsLong();
+    long entryWeight = weigher == null ? 0 : weigher.applyAsLong(key, value);
+    CacheEntry<V> previous;
+    if (entryWeight > maxWeight) {
+      previous = entries.remove(key);
+    } else {
+      previous = entries.put(key, new CacheEntry<>(value, now + ttlMillis, entryWeight));
+      weight += entryWeight;
+    }
+    if (previous != null) {
+      weight -= previous.weight;
+    }
+    if (isOverfull() && now >= nextSweep) {
+      removeExpired(now);
+      nextSweep = now + sweepIntervalMillis;
+    }
+    Iterator<CacheEntry<V>> iterator = entries.values().iterator();
+    while (isOverfull() && iterator.hasNext()) {
+      CacheEntry<V> entry = iterator.next();
+      weight -= entry.weight;
+      iterator.remove();
+      if (entry.expiresAt <= now) {
+        expirations.increment();
+      } else {
+        evictions.increment();
+      }
+    }
+  }
+
+  private boolean isOverfull() {
+    return entries.size() > maxSize || weight > maxWeight;
+  }
+
+  private void removeExpired(long now) {
+    Iterator<CacheEntry<V>> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      CacheEntry<V> entry = iterator.next();
+      if (entry.expiresAt <= now) {
+        weight -= entry.weight;
+        iterator.remove();
+        expirations.increment();
+      }
+    }
+  }
+
+  /**
+   * Removes the value for the given key.
+   *
+   * @param key key of the value
+   */
+  public synchronized void invalidate(K key) {
+    CacheEntry<V> entry = entries.remove(key);
+    if (entry != null) {
+      weight -= entry.weight;
+    }
+  }
+
+  /**
+   * Removes all values.
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    weight = 0;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the total weight of the entries, 0 if the cache has no weigher.
+   *
+   * @return total weight of the entries
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns how many entries were dropped because the cache was full.
+   *
+   * @return number of evicted entries
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns how many entries were dropped because they were older than the time to live.
+   *
+   * @return number of expired entries
+   */
+  public long getExpirationCount() {
+    return expirations.sum();
+  }
+
+  /**
+   * Returns the statistics of this cache, e.g. for monitoring endpoints.
+   *
+   * @return statistic names mapped to their current values
+   */
+  public Map<String, Object> getStatistics() {
+    Map<String, Object> statistics = new LinkedHashMap<>();
+    statistics.put("size", size());
+    statistics.put("maxSize", maxSize);
+    if (weigher != null) {
+      statistics.put("weight", getWeight());
+      statistics.put("maxWeight", maxWeight);
+    }
+    statistics.put("hits", getHitCount());
+    statistics.put("misses", getMissCount());
+    statistics.put("evictions", getEvictionCount());
+    statistics.put("expirations", getExpirationCount());
+    return statistics;
+  }
+
+  private static class CacheEntry<V> {
+
+    private final V value;
+    private final long expiresAt;
+    private final long weight;
+
+    CacheEntry(V value, long expiresAt, long weight) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+      this.weight = weight;
+    }
+  }
+}
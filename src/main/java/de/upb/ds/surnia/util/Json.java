@@ -0,0 +1,22 @@
+package de.upb.ds.surnia.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The JSON mapper shared by all parts of the service. Creating a mapper is expensive, while a
+ * configured mapper is thread-safe, so it is created once. It must not be reconfigured.
+ */
+public final class Json {
+
+  /**
+   * Mapper that ignores unknown properties and does not close the streams it writes to.
+   */
+  public static final ObjectMapper MAPPER = new ObjectMapper()
+    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+    .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+  private Json() {
+  }
+}
@@ -0,0 +1,140 @@
+package de.upb.ds.surnia.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of latencies with log-linear buckets, like an HDR histogram. Values below
+ * 32 get a bucket each, above that every power of two is split into 32 buckets, so quantiles are
+ * off by at most 1/32 (about 3%). Recording is lock-free and does not allocate.
+ *
+ * <p>The unit of the values is up to the caller, e.g. microseconds. Values above
+ * {@link #MAX_VALUE} are counted as {@link #MAX_VALUE}.</p>
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Largest value that is told apart, about 19 hours in microseconds.
+   */
+  public static final long MAX_VALUE = (1L << 36) - 1;
+
+  /**
+   * Number of buckets.
+   */
+  static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records one value.
+   *
+   * @param value value to record, negative values are counted as 0
+   */
+  public void record(long value) {
+    long clampedValue = Math.max(0, Math.min(value, MAX_VALUE));
+    counts.incrementAndGet(index(clampedValue));
+    count.increment();
+    sum.add(clampedValue);
+    max.accumulate(clampedValue);
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * Returns the largest value that falls into the bucket with the given index.
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = SUB_BUCKETS + index % SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the values at the given quantiles, e.g. 0.5 for the median and 0.99 for the 99th
+   * percentile. Each value is the largest value of its bucket, but at most the largest recorded
+   * value. The quantiles are computed from one copy of the buckets, so they fit to each other even
+   * while values are recorded.
+   *
+   * @param quantiles quantiles between 0 and 1
+   * @return value at each quantile, 0 if nothing was recorded
+   */
+  public long[] getValuesAtQuantiles(double... quantiles) {
+    long[] bucketCounts = new long[BUCKETS];
+    addCountsTo(bucketCounts);
+    return valuesAtQuantiles(bucketCounts, getMax(), quantiles);
+  }
+
+  /**
+   * Adds the count of each bucket to the given array, which has {@link #BUCKETS} elements.
+   */
+  void addCountsTo(long[] bucketCounts) {
+    for (int i = 0; i < bucketCounts.length; i++) {
+      bucketCounts[i] += counts.get(i);
+    }
+  }
+
+  /**
+   * Returns the values at the given quantiles of a copy of the buckets.
+   *
+   * @see #getValuesAtQuantiles(double...)
+   */
+  static long[] valuesAtQuantiles(long[] bucketCounts, long maxValue, double... quantiles) {
+    long total = 0;
+    for (long bucketCount : bucketCounts) {
+      total += bucketCount;
+    }
+    long[] values = new long[quantiles.length];
+    for (int q = 0; q < quantiles.length; q++) {
+      if (total == 0) {
+        continue;
+      }
+      long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+      long seen = 0;
+      int index = 0;
+      while (index < bucketCounts.length - 1 && seen + bucketCounts[index] < rank) {
+        seen += bucketCounts[index++];
+      }
+      values[q] = Math.min(highestValue(index), maxValue);
+    }
+    return values;
+  }
+
+  /**
+   * Returns the value at the given quantile.
+   *
+   * @param quantile quantile between 0 and 1
+   * @return value at the quantile, 0 if nothing was recorded
+   * @see #getValuesAtQuantiles(double...)
+   */
+  public long getValueAtQuantile(double quantile) {
+    return getValuesAtQuantiles(quantile)[0];
+  }
+}
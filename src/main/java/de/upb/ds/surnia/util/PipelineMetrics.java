@@ -0,0 +1,184 @@
+package de.upb.ds.surnia.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters of the question answering pipeline. Each stage, e.g. the CoreNLP
+ * analysis or the SPARQL execution, is timed into its own {@link WindowedLatencyHistogram} in
+ * microseconds, so the quantiles describe the recent requests rather than the whole uptime. The
+ * metrics are exported in the Prometheus text format.
+ */
+@Component
+public class PipelineMetrics {
+
+  /**
+   * Answering a whole request, from receiving the question to the rendered response.
+   */
+  public static final String REQUEST = "request";
+
+  /**
+   * Rating the query templates for the question tokens.
+   */
+  public static final String TEMPLATE_RATING = "template_rating";
+
+  /**
+   * Replacing the parameters of the rated templates to get the candidate queries.
+   */
+  public static final String PARAMETER_REPLACEMENT = "parameter_replacement";
+
+  /**
+   * Finding the answer among the candidate queries, including probing them.
+   */
+  public static final String SPARQL = "sparql";
+
+  /**
+   * A single query sent to the knowledge graph.
+   */
+  public static final String SPARQL_QUERY = "sparql_query";
+
+  /**
+   * Rendering the answer as QALD JSON.
+   */
+  public static final String JSON_RENDERING = "json_rendering";
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  /**
+   * Events counted by the pipeline.
+   */
+  public enum Counter {
+    CANDIDATES_GENERATED("Candidate queries generated from the query templates."),
+    QUERIES_EXECUTED("Queries sent to the knowledge graph."),
+    QUERY_TIMEOUTS("Queries to the knowledge graph that timed out."),
+    FALSE_ANSWERS("Questions answered with the fallback answer false.");
+
+    private final String help;
+
+    Counter(String help) {
+      this.help = help;
+    }
+
+    public String getMetricName() {
+      return "surnia_" + name().toLowerCase(Locale.ROOT) + "_total";
+    }
+  }
+
+  private final long windowMillis;
+  private final Map<String, WindowedLatencyHistogram> stages = new ConcurrentSkipListMap<>();
+  private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+  /**
+   * Creates the metrics with the window of the quantiles given in the application properties.
+   *
+   * @param env environment with the application properties
+   */
+  @Autowired
+  public PipelineMetrics(Environment env) {
+    this(TimeUnit.MINUTES.toMillis(env.getProperty("metrics.window-minutes", Long.class, 5L)));
+  }
+
+  /**
+   * Creates the metrics with the given window of the quantiles.
+   *
+   * @param windowMillis time in milliseconds after which the histograms of the stages are rotated;
+   *     the quantiles cover between one and two windows
+   */
+  public PipelineMetrics(long windowMillis) {
+    this.windowMillis = windowMillis;
+    for (Counter counter : Counter.values()) {
+      counters.put(counter, new LongAdder());
+    }
+  }
+
+  /**
+   * Records the duration of a stage, also in the trace of the current request if it is traced.
+   *
+   * @param stage name of the stage, e.g. {@link #SPARQL}
+   * @param startNanos start of the stage as given by {@link System#nanoTime()}
+   * @return duration of the stage in microseconds
+   */
+  public long recordSince(String stage, long startNanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    getStage(stage).record(micros);
+    RequestTrace trace = RequestContext.getTrace();
+    if (trace != null) {
+      trace.addStage(stage, micros);
+    }
+    return micros;
+  }
+
+  /**
+   * Returns the histogram of a stage, creating it on first use.
+   *
+   * @param stage name of the stage
+   * @return histogram of the stage in microseconds
+   */
+  public WindowedLatencyHistogram getStage(String stage) {
+    return stages.computeIfAbsent(stage, name -> new WindowedLatencyHistogram(windowMillis));
+  }
+
+  public void increment(Counter counter) {
+    counters.get(counter).increment();
+  }
+
+  public void add(Counter counter, long value) {
+    counters.get(counter).add(value);
+  }
+
+  public long getCount(Counter counter) {
+    return counters.get(counter).sum();
+  }
+
+  /**
+   * Writes all metrics in the Prometheus text format, version 0.0.4. The stages are exported as a
+   * summary with the median, the 90th, 99th and 99.9th percentile in seconds over the recent
+   * window, the sum and count of the summary cover the whole uptime.
+   *
+   * @return the metrics, one sample per line
+   */
+  public String toPrometheusText() {
+    StringBuilder text = new StringBuilder();
+    text.append("# HELP surnia_stage_latency_seconds Latency of the question answering stages.\n");
+    text.append("# TYPE surnia_stage_latency_seconds summary\n");
+    for (Map.Entry<String, WindowedLatencyHistogram> stage : stages.entrySet()) {
+      String label = "stage=\"" + stage.getKey() + "\"";
+      WindowedLatencyHistogram histogram = stage.getValue();
+      long[] values = histogram.getValuesAtQuantiles(QUANTILES);
+      for (int i = 0; i < QUANTILES.length; i++) {
+        text.append("surnia_stage_latency_seconds{").append(label).append(",quantile=\"")
+          .append(QUANTILES[i]).append("\"} ").append(toSeconds(values[i])).append('\n');
+      }
+      text.append("surnia_stage_latency_seconds_sum{").append(label).append("} ")
+        .append(toSeconds(histogram.getSum())).append('\n');
+      text.append("surnia_stage_latency_seconds_count{").append(label).append("} ")
+        .append(histogram.getCount()).append('\n');
+    }
+    text.append("# HELP surnia_stage_latency_max_seconds Longest recent latency of the question"
+      + " answering stages.\n");
+    text.append("# TYPE surnia_stage_latency_max_seconds gauge\n");
+    for (Map.Entry<String, WindowedLatencyHistogram> stage : stages.entrySet()) {
+      text.append("surnia_stage_latency_max_seconds{stage=\"").append(stage.getKey())
+        .append("\"} ").append(toSeconds(stage.getValue().getMax())).append('\n');
+    }
+    for (Counter counter : Counter.values()) {
+      text.append("# HELP ").append(counter.getMetricName()).append(' ').append(counter.help)
+        .append('\n');
+      text.append("# TYPE ").append(counter.getMetricName()).append(" counter\n");
+      text.append(counter.getMetricName()).append(' ').append(getCount(counter)).append('\n');
+    }
+    return text.toString();
+  }
+
+  private static double toSeconds(long micros) {
+    return micros / 1e6;
+  }
+}
@@ -0,0 +1,138 @@
+package de.upb.ds.surnia.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The id of the request the current thread works for, e.g. to correlate profiling events and log
+ * lines of one question, and optionally the {@link RequestTrace} the request is recorded in. A
+ * request is opened when a question arrives; work handed to executors is wrapped with
+ * {@link #wrap(Callable)}, so it runs with the request of the submitting thread.
+ */
+public final class RequestContext {
+
+  /**
+   * Id of work outside of any request.
+   */
+  public static final long NO_REQUEST = 0;
+
+  private static final AtomicLong nextRequestId = new AtomicLong(1);
+  private static final ThreadLocal<Request> currentRequest = new ThreadLocal<>();
+
+  private RequestContext() {
+  }
+
+  /**
+   * Starts a new request on the current thread.
+   *
+   * @return scope of the request, closing it restores the previous request id
+   */
+  public static Scope open() {
+    return enter(new Request(nextRequestId.getAndIncrement(), null));
+  }
+
+  /**
+   * Starts a new request on the current thread that is recorded in the given trace. The trace gets
+   * the id of the request.
+   *
+   * @param trace trace of the request
+   * @return scope of the request, closing it restores the previous request
+   */
+  public static Scope open(RequestTrace trace) {
+    long requestId = nextRequestId.getAndIncrement();
+    trace.setRequestId(requestId);
+    return enter(new Request(requestId, trace));
+  }
+
+  private static Scope enter(Request request) {
+    Request previousRequest = currentRequest.get();
+    currentRequest.set(request);
+    return () -> {
+      if (previousRequest == null) {
+        currentRequest.remove();
+      } else {
+        currentRequest.set(previousRequest);
+      }
+    };
+  }
+
+  /**
+   * Returns the id of the request the current thread works for.
+   *
+   * @return id of the request, or {@link #NO_REQUEST}
+   */
+  public static long getRequestId() {
+    Request request = currentRequest.get();
+    return request != null ? request.id : NO_REQUEST;
+  }
+
+  /**
+   * Returns the trace of the request the current thread works for.
+   *
+   * @return trace of the request, or null if the request is not traced
+   */
+  public static RequestTrace getTrace() {
+    Request request = currentRequest.get();
+    return request != null ? request.trace : null;
+  }
+
+  /**
+   * Binds the work to the request of the current thread.
+   *
+   * @param work work to be run on another thread
+   * @param <T> type of the result
+   * @return work that runs with the request of the current thread
+   */
+  public static <T> Callable<T> wrap(Callable<T> work) {
+    Request request = currentRequest.get();
+    if (request == null) {
+      return work;
+    }
+    return () -> {
+      try (Scope scope = enter(request)) {
+        return work.call();
+      }
+    };
+  }
+
+  /**
+   * Binds the work to the request of the current thread.
+   *
+   * @param work work to be run on another thread
+   * @param <T> type of the result
+   * @return work that runs with the request of the current thread
+   * @see #wrap(Callable)
+   */
+  public static <T> Supplier<T> wrapSupplier(Supplier<T> work) {
+    Request request = currentRequest.get();
+    if (request == null) {
+      return work;
+    }
+    return () -> {
+      try (Scope scope = enter(request)) {
+        return work.get();
+      }
+    };
+  }
+
+  private static final class Request {
+
+    private final long id;
+    private final RequestTrace trace;
+
+    Request(long id, RequestTrace trace) {
+      this.id = id;
+      this.trace = trace;
+    }
+  }
+
+  /**
+   * The scope of a request on a thread.
+   */
+  public interface Scope extends AutoCloseable {
+
+    @Override
+    void close();
+  }
+}
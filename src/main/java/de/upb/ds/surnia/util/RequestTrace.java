@@ -0,0 +1,256 @@
+package de.upb.ds.surnia.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything the pipeline did for one question: the tokens, the representation form, the rated
+ * templates, every query sent to the knowledge graph with its latency, the time of each stage and
+ * the answer. The trace is bound to the request with {@link RequestContext#open(RequestTrace)}, so
+ * every stage, also on other threads, adds to the trace of its request.
+ *
+ * <p>Durations are given in microseconds. At most {@link #MAX_QUERIES} queries are kept, further
+ * queries are only counted.</p>
+ */
+public class RequestTrace {
+
+  /**
+   * Maximum number of queries kept in a trace.
+   */
+  public static final int MAX_QUERIES = 200;
+
+  private final String question;
+  private final String language;
+  private final long startTime = System.currentTimeMillis();
+  private volatile long requestId = RequestContext.NO_REQUEST;
+  private volatile long durationMicros;
+  private volatile List<String> tokens = Collections.emptyList();
+  private volatile String representationForm;
+  private final Queue<Template> templates = new ConcurrentLinkedQueue<>();
+  private final Queue<QueryTiming> queries = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queryCount = new AtomicInteger();
+  private final Map<String, Long> stageMicros = new ConcurrentSkipListMap<>();
+  private volatile String answerType;
+  private volatile List<String> answers = Collections.emptyList();
+  private volatile String sparqlQuery;
+
+  public RequestTrace(String question, String language) {
+    this.question = question;
+    this.language = language;
+  }
+
+  public long getRequestId() {
+    return requestId;
+  }
+
+  void setRequestId(long requestId) {
+    this.requestId = requestId;
+  }
+
+  public String getQuestion() {
+    return question;
+  }
+
+  public String getLanguage() {
+    return language;
+  }
+
+  /**
+   * Returns when the request started.
+   *
+   * @return start of the request in milliseconds since the epoch
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  public long getDurationMicros() {
+    return durationMicros;
+  }
+
+  public void setDurationMicros(long durationMicros) {
+    this.durationMicros = durationMicros;
+  }
+
+  public List<String> getTokens() {
+    return tokens;
+  }
+
+  public void setTokens(List<String> tokens) {
+    this.tokens = tokens;
+  }
+
+  public String getRepresentationForm() {
+    return representationForm;
+  }
+
+  public void setRepresentationForm(String representationForm) {
+    this.representationForm = representationForm;
+  }
+
+  /**
+   * Returns the rated templates.
+   *
+   * @return templates, best rating first
+   */
+  public List<Template> getTemplates() {
+    List<Template> sortedTemplates = new ArrayList<>(templates);
+    sortedTemplates.sort(Comparator.comparingDouble(Template::getRating).reversed());
+    return sortedTemplates;
+  }
+
+  /**
+   * Adds a template that was rated above the threshold.
+   *
+   * @param rating rating of the template for the question
+   * @param exampleQuestion example question of the template that matched best
+   * @param sparqlTemplate SPARQL query of the template
+   */
+  public void addTemplate(float rating, String exampleQuestion, String sparqlTemplate) {
+    templates.add(new Template(rating, exampleQuestion, sparqlTemplate));
+  }
+
+  /**
+   * Returns the queries sent to the knowledge graph.
+   *
+   * @return queries in the order they finished
+   */
+  public List<QueryTiming> getQueries() {
+    return new ArrayList<>(queries);
+  }
+
+  /**
+   * Returns the number of queries sent to the knowledge graph, including those not kept.
+   *
+   * @return number of queries
+   */
+  public int getQueryCount() {
+    return queryCount.get();
+  }
+
+  /**
+   * Adds a query sent to the knowledge graph.
+   *
+   * @param query the query
+   * @param micros latency of the query
+   * @param outcome how the query ended, e.g. ok or timeout
+   */
+  public void addQuery(String query, long micros, String outcome) {
+    if (queryCount.getAndIncrement() < MAX_QUERIES) {
+      queries.add(new QueryTiming(query, micros, outcome));
+    }
+  }
+
+  /**
+   * Returns the time spent in each stage. Stages passed several times, like single queries, are
+   * summed up.
+   *
+   * @return microseconds by stage name
+   */
+  public Map<String, Long> getStageMicros() {
+    return stageMicros;
+  }
+
+  /**
+   * Adds the time of a stage.
+   *
+   * @param stage name of the stage
+   * @param micros duration of the stage
+   */
+  public void addStage(String stage, long micros) {
+    stageMicros.merge(stage, micros, Long::sum);
+  }
+
+  public String getAnswerType() {
+    return answerType;
+  }
+
+  public List<String> getAnswers() {
+    return answers;
+  }
+
+  public String getSparqlQuery() {
+    return sparqlQuery;
+  }
+
+  /**
+   * Sets the final answer.
+   *
+   * @param answerType type of the answer, e.g. resource
+   * @param answers the answers
+   * @param sparqlQuery query the answers came from, or null
+   */
+  public void setAnswer(String answerType, List<String> answers, String sparqlQuery) {
+    this.answerType = answerType;
+    this.answers = answers;
+    this.sparqlQuery = sparqlQuery;
+  }
+
+  /**
+   * A template rated above the threshold.
+   */
+  public static final class Template {
+
+    private final float rating;
+    private final String exampleQuestion;
+    private final String sparqlTemplate;
+
+    Template(float rating, String exampleQuestion, String sparqlTemplate) {
+      this.rating = rating;
+      this.exampleQuestion = exampleQuestion;
+      this.sparqlTemplate = sparqlTemplate;
+    }
+
+    public float getRating() {
+      return rating;
+    }
+
+    public String getExampleQuestion() {
+      return exampleQuestion;
+    }
+
+    public String getSparqlTemplate() {
+      return sparqlTemplate;
+    }
+  }
+
+  /**
+   * A query sent to the knowledge graph.
+   */
+  public static final class QueryTiming {
+
+    private final String query;
+    private final long micros;
+    private final String outcome;
+
+    QueryTiming(String query, long micros, String outcome) {
+      this.query = query;
+      this.micros = micros;
+      this.outcome = outcome;
+    }
+
+    public String getQuery() {
+      return query;
+    }
+
+    public long getMicros() {
+      return micros;
+    }
+
+    /**
+     * Returns how the query ended: ok, timeout, cancelled (another candidate won) or error.
+     *
+     * @return outcome of the query
+     */
+    public String getOutcome() {
+      return outcome;
+    }
+  }
+}
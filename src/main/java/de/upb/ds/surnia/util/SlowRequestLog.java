@@ -0,0 +1,243 @@
+package de.upb.ds.surnia.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the traces of slow requests in memory: the slowest requests of the recent window and the
+ * latest requests over the threshold. Requests over the threshold are also appended as JSON lines
+ * to a rolling file, if one is configured.
+ *
+ * <p>Instead of logging every request, a sample of the requests and every request over the
+ * threshold is logged as a single line of key=value pairs.</p>
+ */
+@Component
+public class SlowRequestLog {
+
+  private static final Logger logger = LoggerFactory.getLogger(SlowRequestLog.class);
+
+  private static final Comparator<RequestTrace> BY_DURATION =
+    Comparator.comparingLong(RequestTrace::getDurationMicros);
+
+  private final int slowestCount;
+  private final long windowMillis;
+  private final long thresholdMicros;
+  private final int capacity;
+  private final double sampleRate;
+  private final PriorityQueue<RequestTrace> slowest = new PriorityQueue<>(BY_DURATION);
+  private final Deque<RequestTrace> overThreshold = new ArrayDeque<>();
+
+  private final Path spillFile;
+  private final long spillFileMaxBytes;
+  private final int spillFileCount;
+  private final ExecutorService spillExecutor;
+  private final Object spillLock = new Object();
+
+  /**
+   * Creates the log with the bounds and the spill file given in the application properties.
+   *
+   * @param env environment with the application properties
+   */
+  @Autowired
+  public SlowRequestLog(Environment env) {
+    this(env.getProperty("slow-requests.slowest", Integer.class, 20),
+      TimeUnit.MINUTES.toMillis(env.getProperty("slow-requests.window-minutes", Long.class, 60L)),
+      env.getProperty("slow-requests.threshold-ms", Long.class, 2000L),
+      env.getProperty("slow-requests.capacity", Integer.class, 100),
+      env.getProperty("slow-requests.log-sample-rate", Double.class, 0.01),
+      env.getProperty("slow-requests.file", "").isEmpty() ? null
+        : Paths.get(env.getProperty("slow-requests.file")),
+      env.getProperty("slow-requests.file.max-megabytes", Long.class, 10L) << 20,
+      env.getProperty("slow-requests.file.count", Integer.class, 5));
+  }
+
+  /**
+   * Creates the log with the given bounds.
+   *
+   * @param slowestCount number of slowest requests kept
+   * @param windowMillis time in milliseconds after which a request no longer counts as recent
+   * @param thresholdMillis duration in milliseconds above which a request is slow
+   * @param capacity number of latest slow requests kept
+   * @param sampleRate fraction of the requests that is logged
+   * @param spillFile file the slow requests are appended to, or null
+   * @param spillFileMaxBytes size after which the file is rolled over
+   * @param spillFileCount number of files kept, including the current one
+   */
+  public SlowRequestLog(int slowestCount, long windowMillis, long thresholdMillis, int capacity,
+    double sampleRate, Path spillFile, long spillFileMaxBytes, int spillFileCount) {
+    this.slowestCount = slowestCount;
+    this.windowMillis = windowMillis;
+    this.thresholdMicros = TimeUnit.MILLISECONDS.toMicros(thresholdMillis);
+    this.capacity = capacity;
+    this.sampleRate = sampleRate;
+    this.spillFile = spillFile;
+    this.spillFileMaxBytes = spillFileMaxBytes;
+    this.spillFileCount = Math.max(1, spillFileCount);
+    this.spillExecutor = spillFile == null ? null
+      : BoundedExecutors.create("slow-request-spill", 1, capacity);
+  }
+
+  /**
+   * Adds a finished request.
+   *
+   * @param trace trace of the request with its duration
+   */
+  public void record(RequestTrace trace) {
+    boolean slow = trace.getDurationMicros() > thresholdMicros;
+    if (slow) {
+      logger.warn("Slow request: {}", toLogLine(trace));
+    } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+      logger.info("{}", toLogLine(trace));
+    }
+    synchronized (this) {
+      removeExpired(System.currentTimeMillis());
+      if (slowest.size() < slowestCount) {
+        slowest.add(trace);
+      } else if (slowestCount > 0 && BY_DURATION.compare(trace, slowest.peek()) > 0) {
+        slowest.poll();
+        slowest.add(trace);
+      }
+      if (slow && capacity > 0) {
+        if (overThreshold.size() == capacity) {
+          overThreshold.removeFirst();
+        }
+        overThreshold.addLast(trace);
+      }
+    }
+    if (slow && spillExecutor != null) {
+      spillExecutor.execute(() -> spill(trace));
+    }
+  }
+
+  private void removeExpired(long now) {
+    slowest.removeIf(trace -> trace.getStartTime() < now - windowMillis);
+  }
+
+  /**
+   * Returns the slowest requests of the recent window.
+   *
+   * @return traces of the requests, slowest first
+   */
+  public synchronized List<RequestTrace> getSlowest() {
+    removeExpired(System.currentTimeMillis());
+    List<RequestTrace> traces = new ArrayList<>(slowest);
+    traces.sort(BY_DURATION.reversed());
+    return traces;
+  }
+
+  /**
+   * Returns the latest requests over the threshold.
+   *
+   * @return traces of the requests, latest first
+   */
+  public synchronized List<RequestTrace> getOverThreshold() {
+    List<RequestTrace> traces = new ArrayList<>(overThreshold.size());
+    overThreshold.descendingIterator().forEachRemaining(traces::add);
+    return traces;
+  }
+
+  /**
+   * Drops all kept requests. The spill file is kept.
+   */
+  public synchronized void clear() {
+    slowest.clear();
+    overThreshold.clear();
+  }
+
+  /**
+   * Formats the trace as one line of key=value pairs, with the question last.
+   */
+  static String toLogLine(RequestTrace trace) {
+    StringBuilder line = new StringBuilder();
+    line.append("request=").append(trace.getRequestId())
+      .append(" lang=").append(trace.getLanguage())
+      .append(" duration_ms=").append(toMillis(trace.getDurationMicros()));
+    trace.getStageMicros().forEach((stage, micros) ->
+      line.append(' ').append(stage).append("_ms=").append(toMillis(micros)));
+    line.append(" templates=").append(trace.getTemplates().size())
+      .append(" queries=").append(trace.getQueryCount())
+      .append(" answer_type=").append(trace.getAnswerType())
+      .append(" answers=").append(trace.getAnswers().size())
+      .append(" question=\"").append(trace.getQuestion() == null ? ""
+        : trace.getQuestion().replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    return line.toString();
+  }
+
+  private static String toMillis(long micros) {
+    return String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+  }
+
+  /**
+   * Appends the trace to the spill file, rolling the files over if it is full: the file becomes
+   * file.1, file.1 becomes file.2 and so on, the oldest file is deleted.
+   */
+  private void spill(RequestTrace trace) {
+    synchronized (spillLock) {
+      try {
+        byte[] line = (Json.MAPPER.writeValueAsString(trace) + "\n")
+          .getBytes(StandardCharsets.UTF_8);
+        if (Files.exists(spillFile) && Files.size(spillFile) + line.length > spillFileMaxBytes) {
+          rollOver();
+        }
+        try (OutputStream out = Files.newOutputStream(spillFile, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND)) {
+          out.write(line);
+        }
+      } catch (IOException e) {
+        logger.warn("Could not write slow request to " + spillFile, e);
+      }
+    }
+  }
+
+  private void rollOver() throws IOException {
+    if (spillFileCount == 1) {
+      Files.delete(spillFile);
+      return;
+    }
+    Files.deleteIfExists(rolledFile(spillFileCount - 1));
+    for (int i = spillFileCount - 2; i >= 1; i--) {
+      if (Files.exists(rolledFile(i))) {
+        Files.move(rolledFile(i), rolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    Files.move(spillFile, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private Path rolledFile(int index) {
+    return spillFile.resolveSibling(spillFile.getFileName() + "." + index);
+  }
+
+  /**
+   * Writes the remaining slow requests to the spill file and stops its writer thread.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    if (spillExecutor != null) {
+      spillExecutor.shutdown();
+      spillExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+}
@@ -1,6 +1,20 @@
 package de.upb.ds.surnia.util;
 
 public class SurniaUtil {
+
+  /**
+   * Two rows of the edit distance matrix per thread, grown when longer inputs come along.
+   */
+  private static final ThreadLocal<int[][]> EDIT_DISTANCE_ROWS =
+    ThreadLocal.withInitial(() -> new int[2][32]);
+
+  /**
+   * Bit masks of the pattern characters for the bit-parallel edit distance, indexed by ASCII
+   * character. All entries are 0 between two calls.
+   */
+  private static final ThreadLocal<long[]> PATTERN_MASKS =
+    ThreadLocal.withInitial(() -> new long[128]);
+
   public static double stringSimilarity(String s1, String s2) {
     double len = Math.max(s1.length(), s2.length());
     int[] v0 = new int[s2.length() + 1];
@@ -45,4 +59,257 @@ public class SurniaUtil {
     }
     return costs[b.length()];
   }
+
+  /**
+   * Checks whether the edit distance of the strings is at most k.
+   *
+   * @param a first string
+   * @param b second string
+   * @param k maximum distance
+   * @return true if a can be changed into b with at most k edits
+   */
+  public static boolean withinDistance(String a, String b, int k) {
+    return boundedDistance(a, b, k, false) <= k;
+  }
+
+  /**
+   * Checks whether the edit distance of the strings is at most k, ignoring upper and lower case
+   * like {@link #levenshtein(String, String)}.
+   *
+   * @param a first string
+   * @param b second string
+   * @param k maximum distance
+   * @return true if a can be changed into b with at most k edits
+   */
+  public static boolean withinDistanceIgnoreCase(String a, String b, int k) {
+    return boundedDistance(a, b, k, true) <= k;
+  }
+
+  /**
+   * Checks whether {@link #stringSimilarity(String, String)} of the strings is at least the given
+   * minimum, without computing the exact similarity of dissimilar strings.
+   *
+   * @param a first string
+   * @param b second string
+   * @param min minimal similarity
+   * @return true if the similarity is at least min
+   */
+  public static boolean similarityAtLeast(String a, String b, double min) {
+    int len = Math.max(a.length(), b.length());
+    if (len == 0) {
+      return false;
+    }
+    int k = maxDistanceForSimilarity(len, min);
+    return k >= 0 && boundedDistance(a, b, k, false) <= k;
+  }
+
+  /**
+   * Returns the largest edit distance for which the similarity of strings with the given length
+   * of the longer one is still at least min. The result is exact for the formula of
+   * {@link #stringSimilarity(String, String)}.
+   *
+   * @param len length of the longer string
+   * @param min minimal similarity
+   * @return maximum distance, negative if no distance is good enough
+   */
+  public static int maxDistanceForSimilarity(int len, double min) {
+    double doubleLen = len;
+    int k = (int) Math.max(-1, Math.min(len, Math.floor((1.0d - min) * len)));
+    while (k < len && 1.0d - ((k + 1) / doubleLen) >= min) {
+      k++;
+    }
+    while (k >= 0 && 1.0d - (k / doubleLen) < min) {
+      k--;
+    }
+    return k;
+  }
+
+  /**
+   * Computes the edit distance of the strings if it is at most k. Strings whose lengths differ by
+   * more than k are rejected right away. Otherwise the bit-parallel algorithm of Myers is used if
+   * the shorter string has at most 64 ASCII characters, and a DP limited to the diagonal band of
+   * width k (Ukkonen) for longer strings. Both stop as soon as the distance must exceed k.
+   *
+   * @param a first string
+   * @param b second string
+   * @param k maximum distance of interest
+   * @param ignoreCase true to compare the characters ignoring upper and lower case
+   * @return the edit distance if it is at most k, otherwise k + 1
+   */
+  public static int boundedDistance(String a, String b, int k, boolean ignoreCase) {
+    if (k < 0) {
+      return k + 1;
+    }
+    if (Math.abs(a.length() - b.length()) > k) {
+      return k + 1;
+    }
+    String pattern = a.length() <= b.length() ? a : b;
+    String text = pattern == a ? b : a;
+    if (pattern.isEmpty()) {
+      return text.length();
+    }
+    if (pattern.length() <= 64) {
+      int distance = myersDistance(pattern, text, k, ignoreCase);
+      if (distance >= 0) {
+        return distance;
+      }
+    }
+    return bandedDistance(pattern, text, k, ignoreCase);
+  }
+
+  private static char normalize(char c, boolean ignoreCase) {
+    return ignoreCase ? Character.toLowerCase(c) : c;
+  }
+
+  /**
+   * Bit-parallel edit distance of Myers in the formulation of Hyyro, one bit per pattern
+   * character.
+   *
+   * @return the distance, k + 1 if it exceeds k, or -1 if the pattern has non-ASCII characters
+   */
+  private static int myersDistance(String pattern, String text, int k, boolean ignoreCase) {
+    int m = pattern.length();
+    long[] masks = PATTERN_MASKS.get();
+    for (int i = 0; i < m; i++) {
+      char c = normalize(pattern.charAt(i), ignoreCase);
+      if (c >= masks.length) {
+        for (int j = 0; j < i; j++) {
+          masks[normalize(pattern.charAt(j), ignoreCase)] = 0L;
+        }
+        return -1;
+      }
+      masks[c] |= 1L << i;
+    }
+
+    long last = 1L << (m - 1);
+    long pv = -1L;
+    long mv = 0L;
+    int score = m;
+    int n = text.length();
+    int distance = -1;
+    for (int j = 0; j < n; j++) {
+      char c = normalize(text.charAt(j), ignoreCase);
+      long eq = c < masks.length ? masks[c] : 0L;
+      long xv = eq | mv;
+      long xh = (((eq & pv) + pv) ^ pv) | eq;
+      long ph = mv | ~(xh | pv);
+      long mh = pv & xh;
+      if ((ph & last) != 0) {
+        score++;
+      } else if ((mh & last) != 0) {
+        score--;
+      }
+      // Each remaining text character can lower the distance by at most 1
+      if (score - (n - j - 1) > k) {
+        distance = k + 1;
+        break;
+      }
+      ph = (ph << 1) | 1L;
+      mh = mh << 1;
+      pv = mh | ~(xv | ph);
+      mv = ph & xv;
+    }
+    if (distance < 0) {
+      distance = Math.min(score, k + 1);
+    }
+
+    for (int i = 0; i < m; i++) {
+      masks[normalize(pattern.charAt(i), ignoreCase)] = 0L;
+    }
+    return distance;
+  }
+
+  /**
+   * Edit distance DP that only fills the cells at most k away from the diagonal.
+   *
+   * @return the distance, or k + 1 if it exceeds k
+   */
+  private static int bandedDistance(String a, String b, int k, boolean ignoreCase) {
+    int lb = b.length();
+    int inf = k + 1;
+    int[][] rows = editDistanceRows(lb + 2);
+    int[] prev = rows[0];
+    int[] cur = rows[1];
+    int[] temp;
+    for (int j = 0; j <= Math.min(lb, k); j++) {
+      prev[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      int lo = Math.max(1, i - k);
+      int hi = Math.min(lb, i + k);
+      cur[lo - 1] = lo == 1 ? Math.min(i, inf) : inf;
+      int rowMin = cur[lo - 1];
+      char ca = normalize(a.charAt(i - 1), ignoreCase);
+      for (int j = lo; j <= hi; j++) {
+        int cost = ca == normalize(b.charAt(j - 1), ignoreCase) ? 0 : 1;
+        int above = j <= i - 1 + k ? prev[j] : inf;
+        int value = Math.min(prev[j - 1] + cost, Math.min(cur[j - 1], above) + 1);
+        cur[j] = Math.min(value, inf);
+        rowMin = Math.min(rowMin, cur[j]);
+      }
+      if (rowMin > k) {
+        return inf;
+      }
+      temp = prev;
+      prev = cur;
+      cur = temp;
+    }
+    return Math.min(prev[lb], inf);
+  }
+
+  /**
+   * Computes the edit distance of two encoded sequences, e.g. of representation forms, if it is
+   * at most k. Inserting, deleting or replacing an element costs 1. Negative codes stand for
+   * unknown elements and never match, not even an equal negative code. Only the cells at most k
+   * away from the diagonal are filled.
+   *
+   * @param a first sequence of codes
+   * @param b second sequence of codes
+   * @param k maximum distance of interest
+   * @return the edit distance if it is at most k, otherwise k + 1
+   */
+  public static int boundedDistance(short[] a, short[] b, int k) {
+    int lb = b.length;
+    int inf = k + 1;
+    if (k < 0 || Math.abs(a.length - lb) > k) {
+      return inf;
+    }
+    int[][] rows = editDistanceRows(lb + 2);
+    int[] prev = rows[0];
+    int[] cur = rows[1];
+    int[] temp;
+    for (int j = 0; j <= Math.min(lb, k); j++) {
+      prev[j] = j;
+    }
+    for (int i = 1; i <= a.length; i++) {
+      int lo = Math.max(1, i - k);
+      int hi = Math.min(lb, i + k);
+      cur[lo - 1] = lo == 1 ? Math.min(i, inf) : inf;
+      int rowMin = cur[lo - 1];
+      short ca = a[i - 1];
+      for (int j = lo; j <= hi; j++) {
+        int cost = ca == b[j - 1] && ca >= 0 ? 0 : 1;
+        int above = j <= i - 1 + k ? prev[j] : inf;
+        int value = Math.min(prev[j - 1] + cost, Math.min(cur[j - 1], above) + 1);
+        cur[j] = Math.min(value, inf);
+        rowMin = Math.min(rowMin, cur[j]);
+      }
+      if (rowMin > k) {
+        return inf;
+      }
+      temp = prev;
+      prev = cur;
+      cur = temp;
+    }
+    return Math.min(prev[lb], inf);
+  }
+
+  private static int[][] editDistanceRows(int length) {
+    int[][] rows = EDIT_DISTANCE_ROWS.get();
+    if (rows[0].length < length) {
+      rows = new int[2][length];
+      EDIT_DISTANCE_ROWS.set(rows);
+    }
+    return rows;
+  }
 }
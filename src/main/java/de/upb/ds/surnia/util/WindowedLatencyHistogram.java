@@ -0,0 +1,118 @@
+package de.upb.ds.surnia.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link LatencyHistogram} whose quantiles and maximum cover only the recent values. Values are
+ * recorded into the current interval; after each interval the current histogram becomes the
+ * previous one and a new one is started. Quantiles are computed over the previous and the current
+ * interval, so they cover between one and two intervals. The count and the sum cover all values,
+ * as the Prometheus summary expects.
+ */
+public class WindowedLatencyHistogram {
+
+  private final long intervalNanos;
+  private final LongSupplier nanoClock;
+  private final LatencyHistogram total = new LatencyHistogram();
+  private volatile LatencyHistogram current = new LatencyHistogram();
+  private volatile LatencyHistogram previous = new LatencyHistogram();
+  private volatile long rotateAt;
+
+  /**
+   * Creates a histogram with the given interval.
+   *
+   * @param intervalMillis time in milliseconds after which the current interval is rotated
+   */
+  public WindowedLatencyHistogram(long intervalMillis) {
+    this(intervalMillis, System::nanoTime);
+  }
+
+  WindowedLatencyHistogram(long intervalMillis, LongSupplier nanoClock) {
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.nanoClock = nanoClock;
+    this.rotateAt = nanoClock.getAsLong() + intervalNanos;
+  }
+
+  /**
+   * Records one value.
+   *
+   * @param value value to record, negative values are counted as 0
+   */
+  public void record(long value) {
+    rotateIfDue();
+    total.record(value);
+    current.record(value);
+  }
+
+  private void rotateIfDue() {
+    long now = nanoClock.getAsLong();
+    if (now - rotateAt < 0) {
+      return;
+    }
+    synchronized (this) {
+      if (now - rotateAt >= 0) {
+        // After a pause longer than an interval, the current values are too old as well
+        previous = now - rotateAt < intervalNanos ? current : new LatencyHistogram();
+        current = new LatencyHistogram();
+        rotateAt = now + intervalNanos;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of all recorded values.
+   *
+   * @return number of values since the start
+   */
+  public long getCount() {
+    return total.getCount();
+  }
+
+  /**
+   * Returns the sum of all recorded values.
+   *
+   * @return sum of the values since the start
+   */
+  public long getSum() {
+    return total.getSum();
+  }
+
+  /**
+   * Returns the largest value of the previous and the current interval.
+   *
+   * @return largest recent value, 0 if there is none
+   */
+  public long getMax() {
+    rotateIfDue();
+    return Math.max(previous.getMax(), current.getMax());
+  }
+
+  /**
+   * Returns the values at the given quantiles of the previous and the current interval.
+   *
+   * @param quantiles quantiles between 0 and 1
+   * @return value at each quantile, 0 if no value was recorded recently
+   * @see LatencyHistogram#getValuesAtQuantiles(double...)
+   */
+  public long[] getValuesAtQuantiles(double... quantiles) {
+    rotateIfDue();
+    LatencyHistogram previousInterval = previous;
+    LatencyHistogram currentInterval = current;
+    long[] bucketCounts = new long[LatencyHistogram.BUCKETS];
+    previousInterval.addCountsTo(bucketCounts);
+    currentInterval.addCountsTo(bucketCounts);
+    return LatencyHistogram.valuesAtQuantiles(bucketCounts,
+      Math.max(previousInterval.getMax(), currentInterval.getMax()), quantiles);
+  }
+
+  /**
+   * Returns the value at the given quantile of the previous and the current interval.
+   *
+   * @param quantile quantile between 0 and 1
+   * @return value at the quantile, 0 if no value was recorded recently
+   */
+  public long getValueAtQuantile(double quantile) {
+    return getValuesAtQuantiles(quantile)[0];
+  }
+}
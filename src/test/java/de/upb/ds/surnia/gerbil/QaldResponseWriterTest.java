@@ -0,0 +1,89 @@
+package de.upb.ds.surnia.gerbil;
+
+import de.upb.ds.surnia.qa.AnswerContainer;
+import de.upb.ds.surnia.qa.AnswerContainer.AnswerType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class QaldResponseWriterTest {
+
+  private static String write(AnswerType type, String sparqlQuery, String... answers)
+    throws IOException {
+    AnswerContainer answer = new AnswerContainer();
+    answer.setType(type);
+    answer.setSparqlQuery(sparqlQuery);
+    Set<String> answerSet = new LinkedHashSet<>();
+    Collections.addAll(answerSet, answers);
+    answer.setAnswers(answerSet);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new QaldResponseWriter().write(answer, "Wer ist der Bürgermeister?", "de", out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testWrite_Resources() throws IOException {
+    Assert.assertThat(write(AnswerType.RESOURCE, "SELECT ?x {}", "http://dbpedia.org/resource/A",
+      "http://dbpedia.org/resource/B"), equalTo("{\"questions\":[{\"id\":\"1\","
+      + "\"answertype\":\"resource\",\"query\":{\"sparql\":\"SELECT ?x {}\"},"
+      + "\"question\":[{\"language\":\"de\",\"string\":\"Wer ist der Bürgermeister?\"}],"
+      + "\"answers\":[{\"head\":{\"vars\":[\"resource\"]},\"results\":{\"bindings\":["
+      + "{\"resource\":{\"type\":\"resource\",\"value\":\"http://dbpedia.org/resource/A\"}},"
+      + "{\"resource\":{\"type\":\"resource\",\"value\":\"http://dbpedia.org/resource/B\"}}"
+      + "]}}]}]}"));
+  }
+
+  @Test
+  public void testWrite_Boolean() throws IOException {
+    Assert.assertThat(write(AnswerType.BOOLEAN, null, "true"), equalTo("{\"questions\":[{"
+      + "\"id\":\"1\",\"answertype\":\"boolean\",\"query\":{\"sparql\":null},"
+      + "\"question\":[{\"language\":\"de\",\"string\":\"Wer ist der Bürgermeister?\"}],"
+      + "\"answers\":[{\"head\":{},\"boolean\":true}]}]}"));
+  }
+
+  @Test
+  public void testWrite_Literals() throws IOException {
+    Assert.assertThat(write(AnswerType.NUMBER, "SELECT ?n {}", "3.5^^xml:double").contains(
+      "\"answers\":[{\"head\":{\"vars\":[\"number\"]},\"results\":{\"bindings\":["
+        + "{\"number\":{\"type\":\"literal\",\"datatype\":\"xml:double\",\"value\":\"3.5\"}}"
+        + "]}}]"), equalTo(true));
+  }
+
+  @Test
+  public void testParseLiteral() {
+    QaldResponseWriter.Literal literal = QaldResponseWriter.parseLiteral("\"Berlin\"@en");
+    Assert.assertThat(literal.value, equalTo("Berlin"));
+    Assert.assertThat(literal.lang, equalTo("en"));
+    Assert.assertThat(literal.datatype, equalTo(null));
+
+    literal = QaldResponseWriter.parseLiteral(
+      "'3.5'^^<http://www.w3.org/2001/XMLSchema#double>");
+    Assert.assertThat(literal.value, equalTo("3.5"));
+    Assert.assertThat(literal.lang, equalTo(null));
+    Assert.assertThat(literal.datatype, equalTo("http://www.w3.org/2001/XMLSchema#double"));
+
+    literal = QaldResponseWriter.parseLiteral("'''multi\nline'''^^xml:string");
+    Assert.assertThat(literal.value, equalTo("multi\nline"));
+    Assert.assertThat(literal.datatype, equalTo("xml:string"));
+
+    literal = QaldResponseWriter.parseLiteral("1989-11-09");
+    Assert.assertThat(literal.value, equalTo("1989-11-09"));
+    Assert.assertThat(literal.lang, equalTo(null));
+    Assert.assertThat(literal.datatype, equalTo(null));
+
+    literal = QaldResponseWriter.parseLiteral("'90s <music>");
+    Assert.assertThat(literal.value, equalTo("'90s <music>"));
+    Assert.assertThat(literal.datatype, equalTo(null));
+
+    Assert.assertThat(QaldResponseWriter.parseLiteral("mail@").value, equalTo("mail@"));
+    Assert.assertThat(QaldResponseWriter.parseLiteral("\"").value, equalTo("\""));
+  }
+}
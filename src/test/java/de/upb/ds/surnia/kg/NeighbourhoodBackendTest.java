@@ -0,0 +1,174 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryException;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class NeighbourhoodBackendTest {
+
+  private static final String BERLIN = "http://dbpedia.org/resource/Berlin";
+  private static final String GERMANY = "http://dbpedia.org/resource/Germany";
+  private static final String CAPITAL_QUERY = "SELECT DISTINCT ?x WHERE { ?x "
+    + "<http://dbpedia.org/ontology/capital> <" + BERLIN + "> . }";
+
+  private ModelBackend remote;
+  private NeighbourhoodBackend neighbourhoods;
+
+  @Before
+  public void init() {
+    Model model = ModelFactory.createDefaultModel();
+    model.createResource(GERMANY).addProperty(
+      model.createProperty("http://dbpedia.org/ontology/capital"), model.createResource(BERLIN));
+    remote = new ModelBackend(model);
+    neighbourhoods = new NeighbourhoodBackend(remote, 10, 1000, 100, 5, 60000, 5000);
+  }
+
+  private static Set<String> select(QueryExecution execution) {
+    Set<String> answers = new HashSet<>();
+    ResultSet resultSet = execution.execSelect();
+    while (resultSet.hasNext()) {
+      answers.add(resultSet.next().getResource("x").getURI());
+    }
+    return answers;
+  }
+
+  private static Set<String> findAnchorResources(String query) {
+    return NeighbourhoodBackend.findAnchorResources(QueryFactory.create(query));
+  }
+
+  @Test
+  public void testFindAnchorResources_OneHop() {
+    Assert.assertThat(findAnchorResources("SELECT DISTINCT ?x WHERE { ?x "
+        + "<http://dbpedia.org/ontology/capital> <" + BERLIN + "> . }"),
+      equalTo(new LinkedHashSet<>(Arrays.asList(BERLIN))));
+  }
+
+  @Test
+  public void testFindAnchorResources_Values() {
+    Assert.assertThat(findAnchorResources("SELECT DISTINCT ?x ?R1 WHERE { VALUES ?R1 { <"
+        + BERLIN + "> <" + GERMANY + "> } ?R1 <http://dbpedia.org/ontology/country> ?x . }"),
+      equalTo(new LinkedHashSet<>(Arrays.asList(BERLIN, GERMANY))));
+  }
+
+  @Test
+  public void testFindAnchorResources_MultiHop() {
+    Assert.assertThat(findAnchorResources("SELECT DISTINCT ?x WHERE { <" + BERLIN + "> "
+        + "<http://dbpedia.org/ontology/country> ?y . "
+        + "?y <http://dbpedia.org/ontology/capital> ?x }"),
+      nullValue());
+  }
+
+  @Test
+  public void testFindAnchorResources_Exists() {
+    Assert.assertThat(findAnchorResources("ASK WHERE { <" + BERLIN + "> ?p ?o "
+        + "FILTER NOT EXISTS { ?o ?q ?r } }"), nullValue());
+  }
+
+  @Test
+  public void testExecute_PassesFetchToListener() {
+    List<QueryExecution> executions = new ArrayList<>();
+    Set<String> answers = neighbourhoods.execute(QueryFactory.create(CAPITAL_QUERY),
+      executions::add, NeighbourhoodBackendTest::select);
+    Assert.assertThat(answers, equalTo(Collections.singleton(GERMANY)));
+    Assert.assertThat(executions.size(), equalTo(2));
+    Assert.assertThat(executions.get(0).getQuery().isConstructType(), equalTo(true));
+    Assert.assertThat(remote.fetches.getCount(), equalTo(0L));
+  }
+
+  @Test
+  public void testExecute_FallsBackIfFetchFails() {
+    remote.failFetches = true;
+    Set<String> answers = neighbourhoods.execute(QueryFactory.create(CAPITAL_QUERY),
+      NeighbourhoodBackendTest::select);
+    Assert.assertThat(answers, equalTo(Collections.singleton(GERMANY)));
+  }
+
+  @Test
+  public void testExecute_StopsWaitingForFetchWhenInterrupted() throws Exception {
+    remote.blockFetches = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      executor.submit(() -> neighbourhoods.execute(QueryFactory.create(CAPITAL_QUERY),
+        NeighbourhoodBackendTest::select));
+      Assert.assertThat(remote.fetches.await(5, TimeUnit.SECONDS), equalTo(true));
+      Future<Set<String>> waiter = executor.submit(() -> neighbourhoods.execute(
+        QueryFactory.create(CAPITAL_QUERY), NeighbourhoodBackendTest::select));
+      Thread.sleep(100);
+      waiter.cancel(true);
+      executor.shutdown();
+      // The waiter queried the wrapped backend directly, while the fetch is still blocked
+      Assert.assertThat(remote.queries.await(5, TimeUnit.SECONDS), equalTo(true));
+      Assert.assertThat(remote.blockFetches.getCount(), equalTo(1L));
+    } finally {
+      remote.blockFetches.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Answers the queries on an in-memory model. Fetches of neighbourhoods can fail or block.
+   */
+  private static class ModelBackend implements KnowledgeGraphBackend {
+
+    private final Model model;
+    private final CountDownLatch fetches = new CountDownLatch(1);
+    private final CountDownLatch queries = new CountDownLatch(1);
+    private volatile boolean failFetches;
+    private volatile CountDownLatch blockFetches;
+
+    ModelBackend(Model model) {
+      this.model = model;
+    }
+
+    @Override
+    public <T> T execute(Query query, Function<QueryExecution, T> action) {
+      if (query.isConstructType()) {
+        fetches.countDown();
+        if (failFetches) {
+          throw new QueryException("Endpoint unavailable");
+        }
+        if (blockFetches != null) {
+          try {
+            blockFetches.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      } else {
+        queries.countDown();
+      }
+      try (QueryExecution execution = QueryExecutionFactory.create(query, model)) {
+        return action.apply(execution);
+      }
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package de.upb.ds.surnia.kg;
+
+import de.upb.ds.surnia.qa.QueryExecutionHandle;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFormatter;
+import org.apache.jena.system.Txn;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class Tdb2BackendTest {
+
+  private static final Query CAPITALS = QueryFactory.create(
+    "SELECT ?x WHERE { ?x <http://dbpedia.org/ontology/capital> ?y }");
+
+  private Path directory;
+  private Tdb2Backend backend;
+
+  @Before
+  public void init() throws IOException {
+    directory = Files.createTempDirectory("tdb2");
+    Path dump = directory.resolve("dump.nt");
+    Files.write(dump, Arrays.asList(
+      "<http://dbpedia.org/resource/Germany> <http://dbpedia.org/ontology/capital> "
+        + "<http://dbpedia.org/resource/Berlin> .",
+      "<http://dbpedia.org/resource/France> <http://dbpedia.org/ontology/capital> "
+        + "<http://dbpedia.org/resource/Paris> ."), StandardCharsets.UTF_8);
+    String location = directory.resolve("dataset").toString();
+    Tdb2Loader.load(location, dump.toString());
+    backend = new Tdb2Backend(location);
+  }
+
+  @After
+  public void cleanUp() throws IOException {
+    backend.close();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Test
+  public void testLoad_WritesIntoDefaultGraph() {
+    Dataset dataset = backend.getDataset();
+    Txn.executeRead(dataset, () -> {
+      Assert.assertThat(dataset.getDefaultModel().size(), equalTo(2L));
+      Assert.assertThat(dataset.listNames().hasNext(), equalTo(false));
+    });
+  }
+
+  @Test
+  public void testExecute_RunsInReadTransaction() {
+    Dataset dataset = backend.getDataset();
+    QueryExecution[] executions = new QueryExecution[1];
+    int capitals = backend.execute(CAPITALS, execution -> {
+      executions[0] = execution;
+      Assert.assertThat(dataset.isInTransaction(), equalTo(true));
+      Assert.assertThat(dataset.transactionMode(), equalTo(ReadWrite.READ));
+      return ResultSetFormatter.consume(execution.execSelect());
+    });
+    Assert.assertThat(capitals, equalTo(2));
+    Assert.assertThat(executions[0].isClosed(), equalTo(true));
+    Assert.assertThat(dataset.isInTransaction(), equalTo(false));
+  }
+
+  @Test
+  public void testExecute_EndsTransactionWhenAborted() {
+    Dataset dataset = backend.getDataset();
+    QueryExecutionHandle handle = new QueryExecutionHandle();
+    boolean cancelled = false;
+    try {
+      backend.execute(CAPITALS, handle::register, execution -> {
+        ResultSet results = execution.execSelect();
+        handle.cancel();
+        return ResultSetFormatter.consume(results);
+      });
+    } catch (QueryCancelledException e) {
+      cancelled = true;
+    }
+    Assert.assertThat(cancelled, equalTo(true));
+    Assert.assertThat(dataset.isInTransaction(), equalTo(false));
+    // The next query gets a transaction of its own
+    Assert.assertThat(backend.execute(CAPITALS,
+      execution -> ResultSetFormatter.consume(execution.execSelect())), equalTo(2));
+  }
+}
@@ -0,0 +1,153 @@
+package de.upb.ds.surnia.kg;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class TripleIndexAnswererTest {
+
+  private static final String PREFIXES = "PREFIX dbr: <http://dbpedia.org/resource/> "
+    + "PREFIX dbo: <http://dbpedia.org/ontology/> "
+    + "PREFIX foaf: <http://xmlns.com/foaf/0.1/> "
+    + "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> ";
+
+  private static final Node BERLIN = NodeFactory.createURI("http://dbpedia.org/resource/Berlin");
+  private static final Node HAMBURG = NodeFactory.createURI("http://dbpedia.org/resource/Hamburg");
+  private static final Node GERMANY = NodeFactory.createURI("http://dbpedia.org/resource/Germany");
+  private static final Node CAPITAL = NodeFactory.createURI("http://dbpedia.org/ontology/capital");
+  private static final Node COUNTRY = NodeFactory.createURI("http://dbpedia.org/ontology/country");
+  private static final Node AREA = NodeFactory.createURI("http://dbpedia.org/ontology/areaTotal");
+  private static final Node NAME = NodeFactory.createURI("http://xmlns.com/foaf/0.1/name");
+  private static final Node BERLIN_DE = NodeFactory.createLiteral("Berlin", "de");
+  private static final Node BERLIN_AREA = NodeFactory.createLiteral("891.8",
+    XSDDatatype.XSDdouble);
+
+  private Path file;
+  private TripleIndex index;
+  private TripleIndexAnswerer answerer;
+
+  @Before
+  public void init() throws IOException {
+    // Terms are written like TripleIndexLoader does
+    TripleIndexBuilder builder = new TripleIndexBuilder();
+    add(builder, GERMANY, CAPITAL, BERLIN);
+    add(builder, BERLIN, COUNTRY, GERMANY);
+    add(builder, HAMBURG, COUNTRY, GERMANY);
+    add(builder, BERLIN, NAME, BERLIN_DE);
+    add(builder, BERLIN, AREA, BERLIN_AREA);
+    file = Files.createTempFile("triples", ".idx");
+    builder.write(file);
+    index = TripleIndex.open(file);
+    answerer = new TripleIndexAnswerer(index);
+  }
+
+  @After
+  public void cleanUp() throws IOException {
+    index.close();
+    Files.delete(file);
+  }
+
+  private static void add(TripleIndexBuilder builder, Node subject, Node predicate, Node object) {
+    builder.add(NodeFmtLib.str(subject), NodeFmtLib.str(predicate), NodeFmtLib.str(object));
+  }
+
+  private static Query query(String sparql) {
+    return QueryFactory.create(PREFIXES + sparql);
+  }
+
+  private Set<Node> select(String sparql) {
+    Query query = query(sparql);
+    Assert.assertThat(sparql, answerer.canAnswer(query), equalTo(true));
+    Set<Node> nodes = new HashSet<>();
+    for (RDFNode node : answerer.select(query)) {
+      nodes.add(node.asNode());
+    }
+    return nodes;
+  }
+
+  private boolean ask(String sparql) {
+    Query query = query(sparql);
+    Assert.assertThat(sparql, answerer.canAnswer(query), equalTo(true));
+    return answerer.ask(query);
+  }
+
+  @Test
+  public void testSelect_RoundTripsLiteralObjects() {
+    Assert.assertThat(select("SELECT ?n WHERE { dbr:Berlin foaf:name ?n }"),
+      equalTo(Collections.singleton(BERLIN_DE)));
+    Assert.assertThat(select("SELECT ?a WHERE { dbr:Berlin dbo:areaTotal ?a }"),
+      equalTo(Collections.singleton(BERLIN_AREA)));
+    Assert.assertThat(select("SELECT ?x WHERE { ?x foaf:name \"Berlin\"@de }"),
+      equalTo(Collections.singleton(BERLIN)));
+    Assert.assertThat(select("SELECT ?x WHERE { ?x dbo:areaTotal \"891.8\"^^xsd:double }"),
+      equalTo(Collections.singleton(BERLIN)));
+    // Neither another language nor a plain string matches
+    Assert.assertThat(select("SELECT ?x WHERE { ?x foaf:name \"Berlin\"@en }").isEmpty(),
+      equalTo(true));
+    Assert.assertThat(select("SELECT ?x WHERE { ?x foaf:name \"Berlin\" }").isEmpty(),
+      equalTo(true));
+  }
+
+  @Test
+  public void testSelect_AppliesLimit() {
+    Assert.assertThat(select("SELECT ?x WHERE { ?x dbo:country dbr:Germany }"),
+      equalTo(new HashSet<>(Arrays.asList(BERLIN, HAMBURG))));
+    Assert.assertThat(select("SELECT ?x WHERE { ?x dbo:country dbr:Germany } LIMIT 1").size(),
+      equalTo(1));
+    Assert.assertThat(select("SELECT DISTINCT ?x WHERE { ?x dbo:country dbr:Germany } LIMIT 5"),
+      equalTo(new HashSet<>(Arrays.asList(BERLIN, HAMBURG))));
+    Assert.assertThat(select("SELECT ?x WHERE { ?x dbo:country dbr:Germany } ORDER BY ?x"),
+      equalTo(new HashSet<>(Arrays.asList(BERLIN, HAMBURG))));
+  }
+
+  @Test
+  public void testCanAnswer_RejectsOtherShapes() {
+    String[] queries = {
+      "SELECT ?x WHERE { ?x dbo:country dbr:Germany } ORDER BY ?x LIMIT 1",
+      "SELECT (COUNT(?x) AS ?c) WHERE { ?x dbo:country dbr:Germany }",
+      "SELECT ?x WHERE { ?x dbo:country ?c } VALUES ?c { dbr:Germany }",
+      "SELECT ?x WHERE { ?x dbo:country dbr:Germany } OFFSET 1",
+      "SELECT ?x WHERE { ?x dbo:country dbr:Germany . ?x foaf:name ?n }",
+      "SELECT ?p WHERE { dbr:Berlin ?p dbr:Germany }",
+      "SELECT ?x ?c WHERE { ?x dbo:country ?c }",
+      "SELECT ?c WHERE { dbr:Berlin dbo:country ?x }",
+      "ASK WHERE { ?x dbo:country ?c }"
+    };
+    for (String sparql : queries) {
+      Assert.assertThat(sparql, answerer.canAnswer(query(sparql)), equalTo(false));
+    }
+  }
+
+  @Test
+  public void testAsk() {
+    Assert.assertThat(ask("ASK WHERE { dbr:Germany dbo:capital dbr:Berlin }"), equalTo(true));
+    Assert.assertThat(ask("ASK WHERE { dbr:Germany dbo:capital dbr:Hamburg }"), equalTo(false));
+    Assert.assertThat(ask("ASK WHERE { dbr:Rome dbo:capital dbr:Berlin }"), equalTo(false));
+  }
+
+  @Test
+  public void testAsk_WithOneVariableSide() {
+    Assert.assertThat(ask("ASK WHERE { ?x dbo:capital dbr:Berlin }"), equalTo(true));
+    Assert.assertThat(ask("ASK WHERE { ?x dbo:capital dbr:Hamburg }"), equalTo(false));
+    Assert.assertThat(ask("ASK WHERE { dbr:Berlin foaf:name ?n }"), equalTo(true));
+    Assert.assertThat(ask("ASK WHERE { dbr:Hamburg foaf:name ?n }"), equalTo(false));
+  }
+}
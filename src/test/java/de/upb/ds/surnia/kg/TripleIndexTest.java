@@ -0,0 +1,95 @@
+package de.upb.ds.surnia.kg;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class TripleIndexTest {
+
+  private static final String BERLIN = "<http://dbpedia.org/resource/Berlin>";
+  private static final String GERMANY = "<http://dbpedia.org/resource/Germany>";
+  private static final String FRANCE = "<http://dbpedia.org/resource/France>";
+  private static final String PARIS = "<http://dbpedia.org/resource/Paris>";
+  private static final String CAPITAL = "<http://dbpedia.org/ontology/capital>";
+  private static final String COUNTRY = "<http://dbpedia.org/ontology/country>";
+  private static final String NAME = "<http://xmlns.com/foaf/0.1/name>";
+
+  private Path file;
+  private TripleIndex index;
+
+  @Before
+  public void init() throws IOException {
+    TripleIndexBuilder builder = new TripleIndexBuilder();
+    builder.add(GERMANY, CAPITAL, BERLIN);
+    builder.add(FRANCE, CAPITAL, PARIS);
+    builder.add(BERLIN, COUNTRY, GERMANY);
+    builder.add(PARIS, COUNTRY, FRANCE);
+    builder.add(BERLIN, NAME, "\"Berlin\"@de");
+    builder.add(BERLIN, NAME, "\"Berlin\"@en");
+    builder.add(GERMANY, CAPITAL, BERLIN);
+    file = Files.createTempFile("triples", ".idx");
+    builder.write(file);
+    index = TripleIndex.open(file);
+  }
+
+  @After
+  public void cleanUp() throws IOException {
+    index.close();
+    Files.delete(file);
+  }
+
+  @Test
+  public void testOpen_DropsDuplicates() {
+    Assert.assertThat(index.getTripleCount(), equalTo(6));
+    Assert.assertThat(index.getTermCount(), equalTo(9));
+  }
+
+  @Test
+  public void testSize_MatchesFile() throws IOException {
+    Assert.assertThat(index.getColumnBytes(), equalTo(24L * 6));
+    Assert.assertThat(TripleIndex.HEADER_BYTES + index.getDictionaryBytes()
+      + index.getColumnBytes(), equalTo(Files.size(file)));
+  }
+
+  @Test
+  public void testGetId() {
+    for (int id = 0; id < index.getTermCount(); id++) {
+      Assert.assertThat(index.getId(index.getTerm(id)), equalTo(id));
+    }
+    Assert.assertThat(index.getId("<http://dbpedia.org/resource/Rome>"),
+      equalTo(TripleIndex.UNKNOWN));
+  }
+
+  @Test
+  public void testGetObjects() {
+    int[] names = index.getObjects(index.getId(BERLIN), index.getId(NAME));
+    Assert.assertThat(names.length, equalTo(2));
+    Assert.assertThat(index.getTerm(names[0]), equalTo("\"Berlin\"@de"));
+    Assert.assertThat(index.getTerm(names[1]), equalTo("\"Berlin\"@en"));
+    Assert.assertThat(index.getObjects(index.getId(PARIS), index.getId(NAME)).length, equalTo(0));
+  }
+
+  @Test
+  public void testGetSubjects() {
+    int[] countries = index.getSubjects(index.getId(CAPITAL), index.getId(PARIS));
+    Assert.assertThat(countries.length, equalTo(1));
+    Assert.assertThat(index.getTerm(countries[0]), equalTo(FRANCE));
+  }
+
+  @Test
+  public void testContains() {
+    Assert.assertThat(index.contains(index.getId(GERMANY), index.getId(CAPITAL),
+      index.getId(BERLIN)), equalTo(true));
+    Assert.assertThat(index.contains(index.getId(GERMANY), index.getId(CAPITAL),
+      index.getId(PARIS)), equalTo(false));
+    Assert.assertThat(index.contains(TripleIndex.UNKNOWN, index.getId(CAPITAL),
+      index.getId(PARIS)), equalTo(false));
+  }
+}
@@ -8,11 +8,13 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
+import static org.hamcrest.core.IsEqual.equalTo;
 
 public class TokenMergerTest {
 
@@ -88,4 +90,69 @@ public class TokenMergerTest {
     Assert.assertThat(newTokens, hasSize(stanfordTokens.size()));
     Assert.assertThat(newTokens, hasItem(mergedToken));
   }
-}
\ No newline at end of file
+
+  private static Token tokenAt(String text, String type, int beginPosition) {
+    Token token = new Token(text, type);
+    token.setOffsets(beginPosition, beginPosition + text.length());
+    return token;
+  }
+
+  private static Token linkedTokenAt(String text, int beginPosition, String... uris) {
+    Token token = new Token(text, null, new HashSet<>(Arrays.asList(uris)));
+    token.setOffsets(beginPosition, beginPosition + text.length());
+    return token;
+  }
+
+  private static List<Token> tokensWithOffsets() {
+    // Wie alt ist Angela Merkel?
+    return Arrays.asList(tokenAt("Wie", "PWAV", 0), tokenAt("alt", "ADJD", 4),
+      tokenAt("ist", "VAFIN", 8), tokenAt("Angela", "NE", 12), tokenAt("Merkel", "NE", 19),
+      tokenAt("?", "$.", 25));
+  }
+
+  @Test
+  public void testIntegrateTokens_MergeSpan() {
+    TokenMerger tm = new TokenMerger();
+    List<Token> newTokens = tm.integrateTokens(tokensWithOffsets(), Arrays.asList(
+      linkedTokenAt("merkel", 19, "dbr:Merkel"),
+      linkedTokenAt("angela merkel", 12, "dbr:Angela_Merkel")));
+    Assert.assertThat(newTokens, hasSize(5));
+    Assert.assertThat(newTokens, hasItem(new Token("angela merkel", "NE", "angela merkel",
+      new HashSet<>(Arrays.asList("dbr:Angela_Merkel")))));
+  }
+
+  @Test
+  public void testIntegrateTokens_SameSpanCollectsUris() {
+    TokenMerger tm = new TokenMerger();
+    List<Token> newTokens = tm.integrateTokens(tokensWithOffsets(), Arrays.asList(
+      linkedTokenAt("alt", 4, "foaf:age"), linkedTokenAt("alt", 4, "dbo:age")));
+    Assert.assertThat(newTokens, hasSize(6));
+    Assert.assertThat(newTokens, hasItem(new Token("alt", "ADJD", "alt",
+      new HashSet<>(Arrays.asList("foaf:age", "dbo:age")))));
+  }
+
+  @Test
+  public void testIntegrateTokens_RepeatedWord() {
+    TokenMerger tm = new TokenMerger();
+    // Angela und Angela Merkel
+    List<Token> oldTokens = Arrays.asList(tokenAt("Angela", "NE", 0), tokenAt("und", "KON", 7),
+      tokenAt("Angela", "NE", 11), tokenAt("Merkel", "NE", 18));
+    List<Token> newTokens = tm.integrateTokens(oldTokens,
+      Arrays.asList(linkedTokenAt("angela merkel", 11, "dbr:Angela_Merkel")));
+    Assert.assertThat(newTokens, hasSize(3));
+    Assert.assertThat(newTokens.get(0), equalTo(oldTokens.get(0)));
+    Assert.assertThat(newTokens.get(2).getUris(), hasItem("dbr:Angela_Merkel"));
+  }
+
+  @Test
+  public void testIntegrateTokens_SpanCoveringNoTokenIsDropped() {
+    TokenMerger tm = new TokenMerger();
+    // Angela  Merkel, with two spaces
+    List<Token> oldTokens = Arrays.asList(tokenAt("Angela", "NE", 0), tokenAt("Merkel", "NE", 8));
+    List<Token> newTokens = tm.integrateTokens(oldTokens, Arrays.asList(
+      linkedTokenAt("  ", 6, "dbr:Space"), linkedTokenAt(" merkel", 7, "dbr:Merkel")));
+    Assert.assertThat(newTokens, hasSize(2));
+    Assert.assertThat(newTokens.get(0), equalTo(oldTokens.get(0)));
+    Assert.assertThat(newTokens.get(1).getUris(), equalTo(Collections.singleton("dbr:Merkel")));
+  }
+}
@@ -0,0 +1,40 @@
+package de.upb.ds.surnia.preprocessing.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class LabelMatcherTest {
+
+  private final LabelMatcher labelMatcher = new LabelMatcher(
+    Arrays.asList("Employer", "capital", "Capitol", "population total", "Jenny\\ McCarthy"));
+
+  @Test
+  public void testMatch_WithinTwoEdits() {
+    Assert.assertThat(labelMatcher.match("capital"), equalTo(Arrays.asList("capital", "Capitol")));
+    Assert.assertThat(labelMatcher.match("employes"), equalTo(Arrays.asList("Employer")));
+    Assert.assertThat(labelMatcher.match("population"), equalTo(Collections.<String>emptyList()));
+  }
+
+  @Test
+  public void testMatch_Plural() {
+    Assert.assertThat(labelMatcher.match("employerses"), equalTo(Collections.<String>emptyList()));
+    Assert.assertThat(labelMatcher.match("capitals"), equalTo(Arrays.asList("capital", "Capitol")));
+  }
+
+  @Test
+  public void testMatch_NormalizesLabels() {
+    Assert.assertThat(labelMatcher.match("jenny mccarthy"),
+      equalTo(Arrays.asList("Jenny\\ McCarthy")));
+  }
+
+  @Test
+  public void testMatch_NoLabels() {
+    Assert.assertThat(new LabelMatcher(Collections.<String>emptyList()).match("capital"),
+      equalTo(Collections.<String>emptyList()));
+  }
+}
@@ -0,0 +1,64 @@
+package de.upb.ds.surnia.preprocessing.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class NGramEntryPositionTest {
+
+  // "birthplace bill gates wife"
+  private final NGramEntryPosition billGatesWife = new NGramEntryPosition(3, 1);
+  private final NGramEntryPosition birthplaceBill = new NGramEntryPosition(2, 0);
+  private final NGramEntryPosition gates = new NGramEntryPosition(1, 2);
+
+  @Test
+  public void testIsAncestorOf() {
+    Assert.assertThat(billGatesWife.isAncestorOf(gates), equalTo(true));
+    Assert.assertThat(gates.isAncestorOf(billGatesWife), equalTo(false));
+    Assert.assertThat(billGatesWife.isAncestorOf(billGatesWife), equalTo(false));
+    Assert.assertThat(billGatesWife.isAncestorOf(birthplaceBill), equalTo(false));
+  }
+
+  @Test
+  public void testIsAncestorOf_AgreesWithDescendants() {
+    NGramHierarchy hierarchy = new NGramHierarchy("a b c d e f g h");
+    for (NGramEntryPosition position : hierarchy.getAllPositions()) {
+      for (NGramEntryPosition otherPosition : hierarchy.getAllPositions()) {
+        Assert.assertThat(position.isAncestorOf(otherPosition),
+          equalTo(position.getAllDescendants().contains(otherPosition)));
+      }
+    }
+  }
+
+  @Test
+  public void testIsMergeable() {
+    Assert.assertThat(billGatesWife.isMergeable(gates), equalTo(true));
+    Assert.assertThat(billGatesWife.isMergeable(birthplaceBill), equalTo(false));
+    Assert.assertThat(birthplaceBill.isMergeable(gates), equalTo(true));
+  }
+
+  @Test
+  public void testKey() {
+    long key = NGramEntryPosition.toKey(3, 20000);
+    Assert.assertThat(NGramEntryPosition.getLength(key), equalTo(3));
+    Assert.assertThat(NGramEntryPosition.getPosition(key), equalTo(20000));
+    Assert.assertThat(new NGramEntryPosition(1, 10000).equals(new NGramEntryPosition(10001, 0)),
+      equalTo(false));
+  }
+
+  @Test
+  public void testSpans_SameOrderAsStringArray() {
+    NGramHierarchy hierarchy = new NGramHierarchy("birthplace bill gates wife");
+    NGramHierarchy.SpanCursor cursor = hierarchy.spans();
+    List<String> spans = new ArrayList<>();
+    while (cursor.next()) {
+      spans.add(hierarchy.getNGram(cursor.getLength(), cursor.getPosition()));
+    }
+    Assert.assertThat(spans, equalTo(Arrays.asList(hierarchy.toStringArray())));
+  }
+}
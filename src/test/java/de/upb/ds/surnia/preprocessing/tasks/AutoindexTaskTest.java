@@ -2,14 +2,22 @@ package de.upb.ds.surnia.preprocessing.tasks;
 
 import de.upb.ds.surnia.preprocessing.model.Token;
 import org.junit.Assert;
+import org.springframework.web.client.RestTemplate;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.core.IsEqual.equalTo;
 
@@ -56,4 +64,38 @@ public class AutoindexTaskTest {
         List<Token> autoIndexTokens = autoindexTask.processTokens(QUESTION, stanfordTokens);
         Assert.assertThat(autoIndexTokens, equalTo(actualTokens));
     }
+
+    @Test
+    public void testGetAnswerMapFromAutoindexAsync_RunsOnGivenExecutor() throws Exception {
+        HashMap<String, Set<String>> answerMap = new HashMap<>();
+        answerMap.put("jenny mccarthy",
+            Collections.singleton("http://dbpedia.org/resource/Jenny_McCarthy"));
+        AutoindexCache cache = new AutoindexCache(10, 10, 60000);
+        cache.putAnswerMap(QUESTION, answerMap);
+        AutoindexTask cachedTask = new AutoindexTask(AutoindexTask.DEFAULT_URL, null, cache);
+
+        AtomicInteger executions = new AtomicInteger();
+        Executor executor = command -> {
+            executions.incrementAndGet();
+            new Thread(command).start();
+        };
+        Map<String, Set<String>> result = cachedTask.getAnswerMapFromAutoindexAsync(QUESTION,
+            executor).get(5, TimeUnit.SECONDS);
+        Assert.assertThat(result, equalTo(answerMap));
+        Assert.assertThat(executions.get(), equalTo(1));
+    }
+
+    @Test
+    public void testGetAnswerMapFromAutoindexAsync_EmptyIfRequestFails() throws Exception {
+        // Nothing listens on port 1, so the connection is refused
+        RestTemplate client = AutoindexTask.createRestTemplate(1, 1, 1000, 1000, 1000);
+        try {
+            AutoindexTask unreachableTask = new AutoindexTask("http://localhost:1/search", client);
+            Map<String, Set<String>> result = unreachableTask.getAnswerMapFromAutoindexAsync(
+                QUESTION, Runnable::run).get(5, TimeUnit.SECONDS);
+            Assert.assertThat(result.isEmpty(), equalTo(true));
+        } finally {
+            AutoindexTask.closeRestTemplate(client);
+        }
+    }
 }
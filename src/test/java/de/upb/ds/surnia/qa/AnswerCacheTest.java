@@ -0,0 +1,93 @@
+package de.upb.ds.surnia.qa;
+
+import de.upb.ds.surnia.qa.AnswerContainer.AnswerType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class AnswerCacheTest {
+
+  private AnswerCache cache;
+  private AtomicInteger loads;
+
+  @Before
+  public void init() {
+    cache = new AnswerCache(10, 60000);
+    loads = new AtomicInteger();
+  }
+
+  private AnswerContainer load(String sparqlQuery) {
+    loads.incrementAndGet();
+    AnswerContainer answer = new AnswerContainer();
+    answer.setType(AnswerType.RESOURCE);
+    answer.setAnswers(Collections.singleton("http://dbpedia.org/resource/Berlin"));
+    answer.setSparqlQuery(sparqlQuery);
+    return answer;
+  }
+
+  @Test
+  public void testGet_NormalizesWhitespace() {
+    AnswerContainer first = cache.get("What is the capital of Germany?", "en",
+      () -> load("SELECT ?x {}"));
+    AnswerContainer second = cache.get("  What is the   capital of\tGermany? ", "EN",
+      () -> load("SELECT ?x {}"));
+    Assert.assertThat(second, sameInstance(first));
+    Assert.assertThat(loads.get(), equalTo(1));
+  }
+
+  @Test
+  public void testGet_KeepsLanguagesApart() {
+    cache.get("Berlin?", "en", () -> load("SELECT ?x {}"));
+    cache.get("Berlin?", "de", () -> load("SELECT ?x {}"));
+    Assert.assertThat(loads.get(), equalTo(2));
+  }
+
+  @Test
+  public void testGet_DoesNotCacheAnswersWithoutQuery() {
+    cache.get("Berlin?", "en", () -> load(null));
+    cache.get("Berlin?", "en", () -> load(null));
+    Assert.assertThat(loads.get(), equalTo(2));
+  }
+
+  @Test
+  public void testGet_CoalescesConcurrentRequests() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<AnswerContainer> first = executor.submit(() -> cache.get("Berlin?", "en", () -> {
+        loading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return load("SELECT ?x {}");
+      }));
+      loading.await();
+      Future<AnswerContainer> second = executor.submit(() -> cache.get("Berlin?", "en",
+        () -> load("SELECT ?y {}")));
+      while (cache.getStatistics().get("coalesced").equals(0L)) {
+        Thread.sleep(1);
+      }
+      Assert.assertThat(cache.getInFlightCount(), equalTo(1));
+      release.countDown();
+      Assert.assertThat(second.get(5, TimeUnit.SECONDS), sameInstance(first.get()));
+      Assert.assertThat(loads.get(), equalTo(1));
+      Assert.assertThat(cache.getInFlightCount(), equalTo(0));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
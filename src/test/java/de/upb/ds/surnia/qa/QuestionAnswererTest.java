@@ -0,0 +1,112 @@
+package de.upb.ds.surnia.qa;
+
+import de.upb.ds.surnia.qa.QuestionAnswerer.Probe;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class QuestionAnswererTest {
+
+  private static final List<String> CANDIDATES = Arrays.asList("a", "b", "c", "d");
+
+  private ExecutorService executor;
+  private List<String> probed;
+  private List<String> fetched;
+  private List<String> evaluated;
+
+  @Before
+  public void init() {
+    executor = Executors.newFixedThreadPool(4);
+    probed = Collections.synchronizedList(new ArrayList<>());
+    fetched = Collections.synchronizedList(new ArrayList<>());
+    evaluated = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @After
+  public void cleanUp() {
+    executor.shutdownNow();
+  }
+
+  private static AnswerContainer answer(String candidate) {
+    AnswerContainer answer = new AnswerContainer();
+    answer.setSparqlQuery(candidate);
+    answer.setAnswers(Collections.singleton(candidate));
+    return answer;
+  }
+
+  private AnswerContainer findAnswer(boolean probeCandidates, SpeculativeQueryRunner runner,
+    List<String> withResults, List<String> withAnswer) {
+    BiFunction<String, QueryExecutionHandle, AnswerContainer> evaluator = (candidate, handle) -> {
+      evaluated.add(candidate);
+      return withAnswer.contains(candidate) ? answer(candidate) : null;
+    };
+    BiFunction<String, QueryExecutionHandle, Probe<String>> prober = (candidate, handle) -> {
+      probed.add(candidate);
+      return withResults.contains(candidate) ? new Probe<>(candidate, null) : null;
+    };
+    BiFunction<Probe<String>, QueryExecutionHandle, AnswerContainer> probeEvaluator =
+      (probe, handle) -> {
+        fetched.add(probe.candidate);
+        return withAnswer.contains(probe.candidate) ? answer(probe.candidate) : null;
+      };
+    return QuestionAnswerer.findAnswer(CANDIDATES, probeCandidates, runner, evaluator, prober,
+      probeEvaluator);
+  }
+
+  @Test
+  public void testFindAnswer_ProbesAgainAfterEmptyFetch() {
+    // b has results when probed, but the full query gives no answer, e.g. after a timeout
+    AnswerContainer answer = findAnswer(true, null, Arrays.asList("b", "d"),
+      Collections.singletonList("d"));
+    Assert.assertThat(answer.getSparqlQuery(), equalTo("d"));
+    Assert.assertThat(probed, equalTo(Arrays.asList("a", "b", "c", "d")));
+    Assert.assertThat(fetched, equalTo(Arrays.asList("b", "d")));
+    Assert.assertThat(evaluated.isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testFindAnswer_ProbesAgainAfterEmptyFetchSpeculatively() {
+    SpeculativeQueryRunner runner = new SpeculativeQueryRunner(executor, 2, 5000);
+    AnswerContainer answer = findAnswer(true, runner, Arrays.asList("b", "d"),
+      Collections.singletonList("d"));
+    Assert.assertThat(answer.getSparqlQuery(), equalTo("d"));
+    Assert.assertThat(fetched, equalTo(Arrays.asList("b", "d")));
+  }
+
+  @Test
+  public void testFindAnswer_FetchesNothingWithoutProbeResults() {
+    AnswerContainer answer = findAnswer(true, null, Collections.emptyList(), CANDIDATES);
+    Assert.assertThat(answer, equalTo(null));
+    Assert.assertThat(probed, equalTo(CANDIDATES));
+    Assert.assertThat(fetched.isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testFindAnswer_StopsAfterLastProbedCandidate() {
+    AnswerContainer answer = findAnswer(true, null, Arrays.asList("a", "d"),
+      Collections.emptyList());
+    Assert.assertThat(answer, equalTo(null));
+    Assert.assertThat(probed, equalTo(CANDIDATES));
+    Assert.assertThat(fetched, equalTo(Arrays.asList("a", "d")));
+  }
+
+  @Test
+  public void testFindAnswer_EvaluatesDirectlyWithoutProbing() {
+    AnswerContainer answer = findAnswer(false, null, Collections.emptyList(),
+      Arrays.asList("c", "d"));
+    Assert.assertThat(answer.getSparqlQuery(), equalTo("c"));
+    Assert.assertThat(evaluated, equalTo(Arrays.asList("a", "b", "c")));
+    Assert.assertThat(probed.isEmpty(), equalTo(true));
+  }
+}
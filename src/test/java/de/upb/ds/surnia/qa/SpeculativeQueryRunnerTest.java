@@ -0,0 +1,114 @@
+package de.upb.ds.surnia.qa;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class SpeculativeQueryRunnerTest {
+
+  private ExecutorService executor;
+
+  @Before
+  public void init() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void cleanUp() {
+    executor.shutdownNow();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void testFindFirst_PrefersHigherRankedCandidate() {
+    CountDownLatch fastAnswered = new CountDownLatch(1);
+    SpeculativeQueryRunner runner = new SpeculativeQueryRunner(executor, 2, 5000);
+    String result = runner.findFirst(Arrays.asList("slow", "fast"), (candidate, handle) -> {
+      if (candidate.equals("fast")) {
+        fastAnswered.countDown();
+      } else {
+        await(fastAnswered);
+      }
+      return candidate;
+    });
+    Assert.assertThat(result, equalTo("slow"));
+  }
+
+  @Test
+  public void testFindFirst_FallsBackToLowerRankedCandidates() {
+    SpeculativeQueryRunner runner = new SpeculativeQueryRunner(executor, 2, 5000);
+    String result = runner.findFirst(Arrays.asList("empty", "failing", "answer", "later"),
+      (candidate, handle) -> {
+        if (candidate.equals("failing")) {
+          throw new IllegalStateException("Endpoint unavailable");
+        }
+        return candidate.equals("empty") ? null : candidate;
+      });
+    Assert.assertThat(result, equalTo("answer"));
+  }
+
+  @Test
+  public void testFindFirst_ReturnsNullWithoutAnswer() {
+    SpeculativeQueryRunner runner = new SpeculativeQueryRunner(executor, 2, 5000);
+    Assert.assertThat(runner.findFirst(Arrays.asList("a", "b", "c"),
+      (candidate, handle) -> null), equalTo(null));
+  }
+
+  @Test
+  public void testFindFirst_GivesUpAtDeadline() {
+    CountDownLatch release = new CountDownLatch(1);
+    SpeculativeQueryRunner runner = new SpeculativeQueryRunner(executor, 2, 100);
+    long start = System.nanoTime();
+    String result = runner.findFirst(Arrays.asList("blocked", "answer"), (candidate, handle) -> {
+      if (candidate.equals("blocked")) {
+        await(release);
+      }
+      return candidate;
+    });
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    Assert.assertThat(result, equalTo(null));
+    Assert.assertThat(millis >= 100 && millis < 2000, equalTo(true));
+  }
+
+  @Test
+  public void testFindFirst_CancelsLosers() {
+    CountDownLatch loserStarted = new CountDownLatch(1);
+    CountDownLatch loserInterrupted = new CountDownLatch(1);
+    QueryExecutionHandle[] loserHandle = new QueryExecutionHandle[1];
+    SpeculativeQueryRunner runner = new SpeculativeQueryRunner(executor, 2, 5000);
+    String result = runner.findFirst(Arrays.asList("winner", "loser"), (candidate, handle) -> {
+      if (candidate.equals("winner")) {
+        await(loserStarted);
+        return candidate;
+      }
+      loserHandle[0] = handle;
+      loserStarted.countDown();
+      try {
+        Thread.sleep(10000);
+      } catch (InterruptedException e) {
+        loserInterrupted.countDown();
+      }
+      return candidate;
+    });
+    Assert.assertThat(result, equalTo("winner"));
+    await(loserInterrupted);
+    Assert.assertThat(loserInterrupted.getCount(), equalTo(0L));
+    Assert.assertThat(loserHandle[0].isCancelled(), equalTo(true));
+  }
+}
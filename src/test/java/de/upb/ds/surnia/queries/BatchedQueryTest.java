@@ -0,0 +1,182 @@
+package de.upb.ds.surnia.queries;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.QuerySolutionMap;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.syntax.ElementData;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class BatchedQueryTest {
+
+  private static final String DBR = "http://dbpedia.org/resource/";
+  private static final String DBO = "http://dbpedia.org/ontology/";
+
+  private Model model;
+
+  @Before
+  public void init() {
+    model = ModelFactory.createDefaultModel();
+    Property birthPlace = model.createProperty(DBO + "birthPlace");
+    Property deathPlace = model.createProperty(DBO + "deathPlace");
+    Resource berlin = model.createResource(DBR + "Berlin");
+    Resource paris = model.createResource(DBR + "Paris");
+    model.createResource(DBR + "Alice").addProperty(birthPlace, berlin);
+    model.createResource(DBR + "Bob").addProperty(birthPlace, paris);
+    model.createResource(DBR + "Carol").addProperty(deathPlace, berlin);
+    // No combination covers the death place Paris
+    model.createResource(DBR + "Dave").addProperty(deathPlace, paris);
+  }
+
+  private static QueryTemplate template(String sparqlTemplate, String... sparqlParams) {
+    QueryTemplate queryTemplate = new QueryTemplate();
+    queryTemplate.setSparqlTemplate(sparqlTemplate);
+    queryTemplate.setSparqlParams(sparqlParams);
+    return queryTemplate;
+  }
+
+  private static Map<String, String> combination(String... paramsAndUris) {
+    Map<String, String> combination = new HashMap<>();
+    for (int i = 0; i < paramsAndUris.length; i += 2) {
+      combination.put(paramsAndUris[i], paramsAndUris[i + 1]);
+    }
+    return combination;
+  }
+
+  private static List<Map<String, String>> placeCombinations() {
+    return Arrays.asList(
+      combination("O1", DBO + "birthPlace", "R1", DBR + "Berlin"),
+      combination("O1", DBO + "birthPlace", "R1", DBR + "Paris"),
+      combination("O1", DBO + "deathPlace", "R1", DBR + "Berlin"));
+  }
+
+  /**
+   * Runs the query on the test model and maps the answer of each row to its combination index.
+   */
+  private Map<String, Integer> execute(BatchedQuery batchedQuery, String answerVar) {
+    Map<String, Integer> combinationIndices = new HashMap<>();
+    try (QueryExecution execution = QueryExecutionFactory.create(batchedQuery.getQuery(), model)) {
+      ResultSet results = execution.execSelect();
+      while (results.hasNext()) {
+        QuerySolution solution = results.next();
+        combinationIndices.put(solution.getResource(answerVar).getURI(),
+          batchedQuery.getCombinationIndex(solution));
+      }
+    }
+    return combinationIndices;
+  }
+
+  @Test
+  public void testGetQuery_PutsCombinationsIntoValues() {
+    QueryTemplate queryTemplate = template("SELECT DISTINCT ?x WHERE { ?x ?O1 ?R1 . }",
+      "O1", "R1");
+    BatchedQuery batchedQuery = new BatchedQuery(queryTemplate, placeCombinations());
+    Assert.assertThat(batchedQuery.isBatched(), equalTo(true));
+    Assert.assertThat(batchedQuery.getCombinationCount(), equalTo(3));
+    Assert.assertThat(batchedQuery.getAnswerVar(), equalTo("x"));
+
+    Query query = batchedQuery.getQuery();
+    Assert.assertThat(query.isDistinct(), equalTo(true));
+    Assert.assertThat(query.getProjectVars(),
+      equalTo(Arrays.asList(Var.alloc("x"), Var.alloc("O1"), Var.alloc("R1"))));
+    ElementData data = (ElementData) ((ElementGroup) query.getQueryPattern()).getElements().get(0);
+    Assert.assertThat(data.getVars(), equalTo(Arrays.asList(Var.alloc("O1"), Var.alloc("R1"))));
+    Assert.assertThat(data.getRows().size(), equalTo(3));
+    Assert.assertThat(data.getRows().get(1).get(Var.alloc("R1")),
+      equalTo(NodeFactory.createURI(DBR + "Paris")));
+    // The parsed template is shared and must stay unchanged
+    Assert.assertThat(queryTemplate.getCompiledQuery().getProjectVars(),
+      equalTo(Collections.singletonList(Var.alloc("x"))));
+  }
+
+  @Test
+  public void testGetCombinationIndex() {
+    BatchedQuery batchedQuery = new BatchedQuery(
+      template("SELECT DISTINCT ?x WHERE { ?x ?O1 ?R1 . }", "O1", "R1"), placeCombinations());
+    Map<String, Integer> expected = new HashMap<>();
+    expected.put(DBR + "Alice", 0);
+    expected.put(DBR + "Bob", 1);
+    expected.put(DBR + "Carol", 2);
+    Assert.assertThat(execute(batchedQuery, "x"), equalTo(expected));
+
+    QuerySolutionMap otherCombination = new QuerySolutionMap();
+    otherCombination.add("O1", ResourceFactory.createResource(DBO + "deathPlace"));
+    otherCombination.add("R1", ResourceFactory.createResource(DBR + "Paris"));
+    Assert.assertThat(batchedQuery.getCombinationIndex(otherCombination), equalTo(-1));
+    QuerySolutionMap missingParam = new QuerySolutionMap();
+    missingParam.add("O1", ResourceFactory.createResource(DBO + "birthPlace"));
+    Assert.assertThat(batchedQuery.getCombinationIndex(missingParam), equalTo(-1));
+  }
+
+  @Test
+  public void testGetQuery_TurnsAskIntoSelectDistinct() {
+    BatchedQuery batchedQuery = new BatchedQuery(
+      template("ASK WHERE { ?R1 <" + DBO + "birthPlace> ?R2 . }", "R1", "R2"),
+      Arrays.asList(
+        combination("R1", DBR + "Alice", "R2", DBR + "Paris"),
+        combination("R1", DBR + "Alice", "R2", DBR + "Berlin")));
+    Assert.assertThat(batchedQuery.isBatched(), equalTo(true));
+    Assert.assertThat(batchedQuery.isAsk(), equalTo(true));
+    Assert.assertThat(batchedQuery.getAnswerVar(), equalTo(null));
+
+    Query query = batchedQuery.getQuery();
+    Assert.assertThat(query.isSelectType(), equalTo(true));
+    Assert.assertThat(query.isDistinct(), equalTo(true));
+    Assert.assertThat(query.isQueryResultStar(), equalTo(false));
+    Assert.assertThat(query.getProjectVars(),
+      equalTo(Arrays.asList(Var.alloc("R1"), Var.alloc("R2"))));
+    Assert.assertThat(execute(batchedQuery, "R2"),
+      equalTo(Collections.singletonMap(DBR + "Berlin", 1)));
+  }
+
+  @Test
+  public void testGetQuery_DoesNotBatchAggregatesAndLimits() {
+    List<String> unbatchableTemplates = Arrays.asList(
+      "SELECT (COUNT(DISTINCT ?x) AS ?c) WHERE { ?x ?O1 ?R1 . }",
+      "SELECT ?x (COUNT(?y) AS ?c) WHERE { ?x ?O1 ?R1 . ?x ?O1 ?y . } GROUP BY ?x",
+      "SELECT DISTINCT ?x WHERE { ?x ?O1 ?R1 . } LIMIT 1",
+      "SELECT DISTINCT ?x WHERE { ?x ?O1 ?R1 . } OFFSET 1");
+    for (String sparqlTemplate : unbatchableTemplates) {
+      BatchedQuery batchedQuery = new BatchedQuery(template(sparqlTemplate, "O1", "R1"),
+        placeCombinations());
+      Assert.assertThat(sparqlTemplate, batchedQuery.isBatched(), equalTo(false));
+      Assert.assertThat(batchedQuery.getCombinationCount(), equalTo(1));
+      Assert.assertThat(batchedQuery.getCombinationIndex(new QuerySolutionMap()), equalTo(0));
+      String query = batchedQuery.getQuery().serialize();
+      Assert.assertThat(query.contains("VALUES"), equalTo(false));
+      Assert.assertThat(query.contains("<" + DBO + "birthPlace>")
+        && query.contains("<" + DBR + "Berlin>"), equalTo(true));
+    }
+  }
+
+  @Test
+  public void testGetQuery_DoesNotBatchSingleCombination() {
+    List<Map<String, String>> combinations = new ArrayList<>(placeCombinations().subList(1, 2));
+    BatchedQuery batchedQuery = new BatchedQuery(
+      template("SELECT DISTINCT ?x WHERE { ?x ?O1 ?R1 . }", "O1", "R1"), combinations);
+    Assert.assertThat(batchedQuery.isBatched(), equalTo(false));
+    Assert.assertThat(execute(batchedQuery, "x"),
+      equalTo(Collections.singletonMap(DBR + "Bob", 0)));
+  }
+}
@@ -0,0 +1,60 @@
+package de.upb.ds.surnia.queries;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class CombinationIteratorTest {
+
+  private static final String[] PARAMS = {"R1", "O1"};
+
+  private static List<String> collect(CombinationIterator iterator) {
+    List<String> combinations = new ArrayList<>();
+    while (iterator.hasNext()) {
+      HashMap<String, String> combination = iterator.next();
+      combinations.add(combination.get("R1") + combination.get("O1"));
+    }
+    return combinations;
+  }
+
+  @Test
+  public void testNext_BestCombinationsFirst() {
+    CombinationIterator iterator = new CombinationIterator(PARAMS,
+      Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("x", "y")), 100);
+    Assert.assertThat(collect(iterator),
+      equalTo(Arrays.asList("ax", "ay", "bx", "by", "cx", "cy")));
+  }
+
+  @Test
+  public void testNext_EveryCombinationOnce() {
+    List<String> uris = Arrays.asList("a", "b", "c", "d", "e");
+    CombinationIterator iterator = new CombinationIterator(PARAMS, Arrays.asList(uris, uris), 100);
+    List<String> combinations = collect(iterator);
+    Set<String> distinctCombinations = new HashSet<>(combinations);
+    Assert.assertThat(combinations.size(), equalTo(25));
+    Assert.assertThat(distinctCombinations.size(), equalTo(25));
+  }
+
+  @Test
+  public void testNext_StopsAtMaximum() {
+    CombinationIterator iterator = new CombinationIterator(PARAMS,
+      Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("x", "y")), 3);
+    Assert.assertThat(collect(iterator), equalTo(Arrays.asList("ax", "ay", "bx")));
+  }
+
+  @Test
+  public void testHasNext_NoUrisForParameter() {
+    CombinationIterator iterator = new CombinationIterator(PARAMS,
+      Arrays.asList(Arrays.asList("a", "b"), Collections.<String>emptyList()), 100);
+    Assert.assertThat(iterator.hasNext(), equalTo(false));
+  }
+}
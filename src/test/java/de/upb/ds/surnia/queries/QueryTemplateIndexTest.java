@@ -0,0 +1,209 @@
+package de.upb.ds.surnia.queries;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import de.upb.ds.surnia.preprocessing.model.Token;
+import de.upb.ds.surnia.queries.QueryTemplateIndex.TemplateMatch;
+import de.upb.ds.surnia.util.Json;
+import de.upb.ds.surnia.util.SurniaUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Compares the index to scoring every example question of Queries.json with
+ * {@link SurniaUtil#stringSimilarity(String, String)}, like the linear scan did. The elements of
+ * the representation forms are mapped to single characters for the scan, so the character edit
+ * distance is the element edit distance of the index.
+ */
+public class QueryTemplateIndexTest {
+
+  private static final float THRESHOLD = QueryPatternMatcher.QUERY_RANKING_THRESHOlD;
+
+  private List<QueryTemplate> queryTemplates;
+  private List<String> elements;
+  private List<String> startWords;
+  private Map<String, Character> characters;
+
+  @Before
+  public void init() throws IOException {
+    // The templates twice, the second time needing a superlative, for ties between templates
+    queryTemplates = new ArrayList<>(readTemplates());
+    for (QueryTemplate queryTemplate : readTemplates()) {
+      queryTemplate.setContainsSuperlative(true);
+      queryTemplates.add(queryTemplate);
+    }
+    Set<String> exampleElements = new LinkedHashSet<>();
+    Set<String> exampleStartWords = new LinkedHashSet<>();
+    for (QueryTemplate queryTemplate : queryTemplates) {
+      for (String exampleQuestion : queryTemplate.getExampleQuestions()) {
+        for (String element : exampleQuestion.split(" ")) {
+          exampleElements.add(normalize(element));
+        }
+      }
+      exampleStartWords.addAll(Arrays.asList(queryTemplate.getQuestionStartWord()));
+    }
+    elements = new ArrayList<>(exampleElements);
+    startWords = new ArrayList<>(exampleStartWords);
+    startWords.add("WHY");
+    characters = new HashMap<>();
+    for (String element : elements) {
+      characters.put(element, (char) ('A' + characters.size()));
+    }
+  }
+
+  private static List<QueryTemplate> readTemplates() throws IOException {
+    try (InputStream in = QueryTemplateIndexTest.class.getClassLoader()
+      .getResourceAsStream("Queries.json")) {
+      return Json.MAPPER.readValue(in, new TypeReference<ArrayList<QueryTemplate>>() {
+      });
+    }
+  }
+
+  @Test
+  public void testFindMatchingTemplates_SameAsLinearScan() {
+    QueryTemplateIndex index = new QueryTemplateIndex(queryTemplates, THRESHOLD);
+    Random random = new Random(42);
+    int matchingQuestions = 0;
+    for (int i = 0; i < 2000; i++) {
+      QuestionProperties questionProperties = randomQuestion(random);
+      List<String> expected = scan(questionProperties);
+      List<String> actual = new ArrayList<>();
+      for (TemplateMatch match : index.findMatchingTemplates(questionProperties)) {
+        actual.add(match.getTemplatePosition() + " " + match.getExampleQuestion() + " "
+          + match.getSimilarity());
+      }
+      Assert.assertThat(questionProperties.getRepresentationForm(), actual, equalTo(expected));
+      if (!expected.isEmpty()) {
+        matchingQuestions++;
+      }
+    }
+    Assert.assertThat(matchingQuestions > 500, equalTo(true));
+  }
+
+  @Test
+  public void testFindMatchingTemplates_PrefersFirstOfEqualExamples() {
+    QueryTemplate queryTemplate = queryTemplates.get(0);
+    queryTemplate.setExampleQuestions(new String[]{"WP VBZ DT O1 IN R1 .", "WP VBZ DT O1 IN R2 ."});
+    QueryTemplateIndex index = new QueryTemplateIndex(Collections.singletonList(queryTemplate),
+      THRESHOLD);
+    List<TemplateMatch> matches = index.findMatchingTemplates(question("WHO", false,
+      Arrays.asList("WP", "VBZ", "DT", "O", "IN", "R", ".")));
+    Assert.assertThat(matches.size(), equalTo(1));
+    Assert.assertThat(matches.get(0).getExampleQuestion(), equalTo("WP VBZ DT O1 IN R1 ."));
+    Assert.assertThat(matches.get(0).getSimilarity(), equalTo(1.0d));
+  }
+
+  /**
+   * Rates every template like the linear scan: the first example question with the highest
+   * similarity counts.
+   */
+  private List<String> scan(QuestionProperties questionProperties) {
+    String question = toCharacters(questionProperties.getRepresentationForm());
+    List<String> matches = new ArrayList<>();
+    for (int position = 0; position < queryTemplates.size(); position++) {
+      QueryTemplate queryTemplate = queryTemplates.get(position);
+      if (!Arrays.asList(queryTemplate.getQuestionStartWord())
+        .contains(questionProperties.getQuestionStart())) {
+        continue;
+      }
+      if (queryTemplate.containsSuperlative() && !questionProperties.containsSuperlative()) {
+        continue;
+      }
+      double max = 0.0d;
+      String bestFitQuestion = null;
+      for (String exampleQuestion : queryTemplate.getExampleQuestions()) {
+        double similarity = SurniaUtil.stringSimilarity(toCharacters(exampleQuestion), question);
+        if (similarity > max) {
+          max = similarity;
+          bestFitQuestion = exampleQuestion;
+        }
+      }
+      if (max >= THRESHOLD) {
+        matches.add(position + " " + bestFitQuestion + " " + max);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Maps each element to one character. Elements that occur in no example question get a
+   * character of their own that occurs in no example question either.
+   */
+  private String toCharacters(String representationForm) {
+    StringBuilder characterForm = new StringBuilder();
+    for (String element : representationForm.split(" ")) {
+      Character character = characters.get(normalize(element));
+      characterForm.append(character == null ? '~' : character);
+    }
+    return characterForm.toString();
+  }
+
+  private static String normalize(String element) {
+    return element.matches("[ROP][0-9]*") ? element.substring(0, 1) : element;
+  }
+
+  /**
+   * Returns a random example question of Queries.json with up to four random edits, some of them
+   * with elements that occur in no example question.
+   */
+  private QuestionProperties randomQuestion(Random random) {
+    QueryTemplate queryTemplate = queryTemplates.get(random.nextInt(queryTemplates.size()));
+    String[] exampleQuestions = queryTemplate.getExampleQuestions();
+    List<String> form = new ArrayList<>();
+    for (String element : exampleQuestions[random.nextInt(exampleQuestions.length)].split(" ")) {
+      form.add(normalize(element));
+    }
+    int edits = random.nextInt(5);
+    for (int i = 0; i < edits; i++) {
+      String element = random.nextInt(5) == 0 ? (random.nextBoolean() ? "JJS" : "FW")
+        : elements.get(random.nextInt(elements.size()));
+      int position = random.nextInt(form.size());
+      int edit = random.nextInt(3);
+      if (edit == 0) {
+        form.add(position, element);
+      } else if (edit == 1 && form.size() > 1) {
+        form.remove(position);
+      } else {
+        form.set(position, element);
+      }
+    }
+    String startWord = random.nextInt(4) == 0 ? startWords.get(random.nextInt(startWords.size()))
+      : queryTemplate.getQuestionStartWord()[0];
+    return question(startWord, random.nextBoolean(), form);
+  }
+
+  private static QuestionProperties question(String startWord, boolean superlative,
+    List<String> form) {
+    List<Token> tokens = new ArrayList<>();
+    for (String element : form) {
+      String text = tokens.isEmpty() ? startWord.toLowerCase() : "word";
+      if (element.equals("R")) {
+        tokens.add(new Token(text, "NNP", Collections.singleton("http://dbpedia.org/resource/X")));
+      } else if (element.equals("O")) {
+        tokens.add(new Token(text, "NN", Collections.singleton("http://dbpedia.org/ontology/x")));
+      } else if (element.equals("P")) {
+        tokens.add(new Token(text, "NN", Collections.singleton("http://dbpedia.org/property/x")));
+      } else {
+        tokens.add(new Token(text, element));
+      }
+    }
+    if (superlative) {
+      tokens.add(new Token("most", "RBS"));
+    }
+    return new QuestionProperties(tokens);
+  }
+}
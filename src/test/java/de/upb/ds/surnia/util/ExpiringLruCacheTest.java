@@ -0,0 +1,113 @@
+package de.upb.ds.surnia.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class ExpiringLruCacheTest {
+
+  private long now;
+  private ExpiringLruCache<String, String> cache;
+
+  @Before
+  public void init() {
+    now = 0;
+    cache = new ExpiringLruCache<>(2, 100, () -> now);
+  }
+
+  @Test
+  public void testGet_CountsHitsAndMisses() {
+    cache.put("berlin", "dbr:Berlin");
+    Assert.assertThat(cache.get("berlin"), equalTo("dbr:Berlin"));
+    Assert.assertThat(cache.get("paris"), nullValue());
+    Assert.assertThat(cache.getHitCount(), equalTo(1L));
+    Assert.assertThat(cache.getMissCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testPut_EvictsLeastRecentlyUsed() {
+    cache.put("berlin", "dbr:Berlin");
+    cache.put("paris", "dbr:Paris");
+    cache.get("berlin");
+    cache.put("rome", "dbr:Rome");
+    Assert.assertThat(cache.get("paris"), nullValue());
+    Assert.assertThat(cache.get("berlin"), equalTo("dbr:Berlin"));
+    Assert.assertThat(cache.get("rome"), equalTo("dbr:Rome"));
+    Assert.assertThat(cache.getEvictionCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testGet_ExpiresOldEntries() {
+    cache.put("berlin", "dbr:Berlin");
+    now = 99;
+    Assert.assertThat(cache.get("berlin"), equalTo("dbr:Berlin"));
+    now = 100;
+    Assert.assertThat(cache.get("berlin"), nullValue());
+    Assert.assertThat(cache.getExpirationCount(), equalTo(1L));
+    Assert.assertThat(cache.size(), equalTo(0));
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    cache.put("berlin", "dbr:Berlin");
+    cache.invalidateAll();
+    Assert.assertThat(cache.get("berlin"), nullValue());
+  }
+
+  @Test
+  public void testPut_UsesTimeToLiveOfEntry() {
+    cache.put("berlin", "dbr:Berlin", 10);
+    cache.put("paris", "dbr:Paris");
+    now = 10;
+    Assert.assertThat(cache.get("berlin"), nullValue());
+    Assert.assertThat(cache.get("paris"), equalTo("dbr:Paris"));
+  }
+
+  @Test
+  public void testPut_EvictsByWeight() {
+    ExpiringLruCache<String, String> weighedCache = new ExpiringLruCache<>(10, 20, 100,
+      (key, value) -> value.length(), () -> now);
+    weighedCache.put("berlin", "dbr:Berlin");
+    weighedCache.put("paris", "dbr:Paris");
+    Assert.assertThat(weighedCache.getWeight(), equalTo(19L));
+    weighedCache.put("rome", "dbr:Rome");
+    Assert.assertThat(weighedCache.get("berlin"), nullValue());
+    Assert.assertThat(weighedCache.getWeight(), equalTo(17L));
+    weighedCache.put("london", "dbr:London_is_too_heavy");
+    Assert.assertThat(weighedCache.get("london"), nullValue());
+    Assert.assertThat(weighedCache.size(), equalTo(2));
+  }
+
+  @Test
+  public void testPut_DropsExpiredEntriesBeforeLeastRecentlyUsed() {
+    cache.put("berlin", "dbr:Berlin");
+    cache.put("paris", "dbr:Paris", 10);
+    now = 10;
+    cache.put("rome", "dbr:Rome");
+    Assert.assertThat(cache.get("berlin"), equalTo("dbr:Berlin"));
+    Assert.assertThat(cache.get("rome"), equalTo("dbr:Rome"));
+    Assert.assertThat(cache.getExpirationCount(), equalTo(1L));
+    Assert.assertThat(cache.getEvictionCount(), equalTo(0L));
+  }
+
+  @Test
+  public void testPut_SweepsExpiredEntriesAtMostOncePerInterval() {
+    cache.put("berlin", "dbr:Berlin");
+    cache.put("paris", "dbr:Paris", 5);
+    now = 5;
+    cache.put("rome", "dbr:Rome");
+    Assert.assertThat(cache.getExpirationCount(), equalTo(1L));
+    cache.put("london", "dbr:London", 1);
+    now = 6;
+    cache.put("madrid", "dbr:Madrid");
+    Assert.assertThat(cache.getEvictionCount(), equalTo(2L));
+    now = 15;
+    cache.put("lisbon", "dbr:Lisbon");
+    Assert.assertThat(cache.getEvictionCount(), equalTo(2L));
+    Assert.assertThat(cache.getExpirationCount(), equalTo(2L));
+    Assert.assertThat(cache.get("madrid"), equalTo("dbr:Madrid"));
+  }
+}
@@ -0,0 +1,52 @@
+package de.upb.ds.surnia.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testIndex_CoversEveryValueOnce() {
+    int previousIndex = -1;
+    for (long value = 0; value < 100000; value++) {
+      int index = LatencyHistogram.index(value);
+      Assert.assertThat(index == previousIndex || index == previousIndex + 1, equalTo(true));
+      Assert.assertThat(LatencyHistogram.highestValue(index) >= value, equalTo(true));
+      previousIndex = index;
+    }
+    Assert.assertThat(LatencyHistogram.highestValue(LatencyHistogram.index(
+      LatencyHistogram.MAX_VALUE)), equalTo(LatencyHistogram.MAX_VALUE));
+  }
+
+  @Test
+  public void testGetValuesAtQuantiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value);
+    }
+    long[] values = histogram.getValuesAtQuantiles(0.5, 0.99, 0.999, 1.0);
+    Assert.assertThat(values[0] >= 500 && values[0] <= 500 * 33 / 32, equalTo(true));
+    Assert.assertThat(values[1] >= 990 && values[1] <= 1000, equalTo(true));
+    Assert.assertThat(values[2] >= 999 && values[2] <= 1000, equalTo(true));
+    Assert.assertThat(values[3], equalTo(1000L));
+    Assert.assertThat(histogram.getCount(), equalTo(1000L));
+    Assert.assertThat(histogram.getSum(), equalTo(500500L));
+    Assert.assertThat(histogram.getMax(), equalTo(1000L));
+  }
+
+  @Test
+  public void testGetValuesAtQuantiles_Empty() {
+    Assert.assertThat(new LatencyHistogram().getValueAtQuantile(0.5), equalTo(0L));
+  }
+
+  @Test
+  public void testRecord_ClampsValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    Assert.assertThat(histogram.getValueAtQuantile(0.5), equalTo(0L));
+    Assert.assertThat(histogram.getValueAtQuantile(1.0), equalTo(LatencyHistogram.MAX_VALUE));
+  }
+}
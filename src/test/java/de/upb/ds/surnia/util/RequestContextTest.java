@@ -0,0 +1,40 @@
+package de.upb.ds.surnia.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class RequestContextTest {
+
+  @Test
+  public void testOpen_RestoresPreviousRequest() {
+    Assert.assertThat(RequestContext.getRequestId(), equalTo(RequestContext.NO_REQUEST));
+    try (RequestContext.Scope outer = RequestContext.open()) {
+      long outerId = RequestContext.getRequestId();
+      Assert.assertThat(outerId != RequestContext.NO_REQUEST, equalTo(true));
+      try (RequestContext.Scope inner = RequestContext.open()) {
+        Assert.assertThat(RequestContext.getRequestId() != outerId, equalTo(true));
+      }
+      Assert.assertThat(RequestContext.getRequestId(), equalTo(outerId));
+    }
+    Assert.assertThat(RequestContext.getRequestId(), equalTo(RequestContext.NO_REQUEST));
+  }
+
+  @Test
+  public void testWrap_RunsWithRequestOfSubmitter() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (RequestContext.Scope scope = RequestContext.open()) {
+      long requestId = RequestContext.getRequestId();
+      Assert.assertThat(executor.submit(RequestContext.wrap(RequestContext::getRequestId)).get(),
+        equalTo(requestId));
+      Assert.assertThat(executor.submit(RequestContext::getRequestId).get(),
+        equalTo(RequestContext.NO_REQUEST));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
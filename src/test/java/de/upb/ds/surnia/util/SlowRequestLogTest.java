@@ -0,0 +1,106 @@
+package de.upb.ds.surnia.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class SlowRequestLogTest {
+
+  private Path directory;
+
+  @Before
+  public void init() throws IOException {
+    directory = Files.createTempDirectory("slow-requests");
+  }
+
+  @After
+  public void cleanUp() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  private static RequestTrace trace(String question, long durationMillis) {
+    RequestTrace trace = new RequestTrace(question, "en");
+    trace.setDurationMicros(TimeUnit.MILLISECONDS.toMicros(durationMillis));
+    return trace;
+  }
+
+  private static List<String> questions(List<RequestTrace> traces) {
+    List<String> questions = new ArrayList<>();
+    for (RequestTrace trace : traces) {
+      questions.add(trace.getQuestion());
+    }
+    return questions;
+  }
+
+  @Test
+  public void testRecord_KeepsSlowestAndLatestOverThreshold() {
+    SlowRequestLog log = new SlowRequestLog(2, TimeUnit.HOURS.toMillis(1), 100, 2, 0, null, 0,
+      1);
+    log.record(trace("a", 50));
+    log.record(trace("b", 300));
+    log.record(trace("c", 20));
+    log.record(trace("d", 200));
+    log.record(trace("e", 150));
+    Assert.assertThat(questions(log.getSlowest()), equalTo(Arrays.asList("b", "d")));
+    Assert.assertThat(questions(log.getOverThreshold()), equalTo(Arrays.asList("e", "d")));
+    log.clear();
+    Assert.assertThat(log.getSlowest().isEmpty(), equalTo(true));
+    Assert.assertThat(log.getOverThreshold().isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testRecord_DropsRequestsOutsideOfWindow() {
+    SlowRequestLog log = new SlowRequestLog(2, -1, 100, 2, 0, null, 0, 1);
+    log.record(trace("a", 300));
+    Assert.assertThat(log.getSlowest().isEmpty(), equalTo(true));
+    Assert.assertThat(log.getOverThreshold().size(), equalTo(1));
+  }
+
+  @Test
+  public void testRecord_SpillsToRollingFiles() throws Exception {
+    Path file = directory.resolve("slow.jsonl");
+    SlowRequestLog log = new SlowRequestLog(2, TimeUnit.HOURS.toMillis(1), 100, 10, 0, file, 500,
+      3);
+    for (int i = 0; i < 20; i++) {
+      log.record(trace("question " + i, 200));
+    }
+    log.record(trace("fast", 10));
+    log.shutdown();
+    Assert.assertThat(Files.exists(directory.resolve("slow.jsonl.1")), equalTo(true));
+    Assert.assertThat(Files.exists(directory.resolve("slow.jsonl.2")), equalTo(true));
+    Assert.assertThat(Files.exists(directory.resolve("slow.jsonl.3")), equalTo(false));
+    Assert.assertThat(Files.size(file) <= 500, equalTo(true));
+    List<String> lines = Files.readAllLines(file);
+    Assert.assertThat(lines.get(lines.size() - 1).contains("\"question\":\"question 19\""),
+      equalTo(true));
+  }
+
+  @Test
+  public void testToLogLine() {
+    RequestTrace trace = trace("Who is \"the\" mayor?", 12);
+    trace.addStage("sparql", 2500);
+    trace.addStage("sparql", 500);
+    trace.addQuery("ASK {}", 3000, "ok");
+    Assert.assertThat(SlowRequestLog.toLogLine(trace), equalTo("request=0 lang=en duration_ms=12.0"
+      + " sparql_ms=3.0 templates=0 queries=1 answer_type=null answers=0"
+      + " question=\"Who is \\\"the\\\" mayor?\""));
+  }
+}
@@ -0,0 +1,72 @@
+package de.upb.ds.surnia.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class SurniaUtilTest {
+
+  @Test
+  public void testWithinDistance() {
+    Assert.assertThat(SurniaUtil.withinDistance("berlin", "berlin", 0), equalTo(true));
+    Assert.assertThat(SurniaUtil.withinDistance("berlin", "berli", 1), equalTo(true));
+    Assert.assertThat(SurniaUtil.withinDistance("berlin", "brelin", 1), equalTo(false));
+    Assert.assertThat(SurniaUtil.withinDistance("berlin", "brelin", 2), equalTo(true));
+    Assert.assertThat(SurniaUtil.withinDistance("berlin", "Berlin", 0), equalTo(false));
+    Assert.assertThat(SurniaUtil.withinDistanceIgnoreCase("berlin", "Berlin", 0), equalTo(true));
+  }
+
+  @Test
+  public void testWithinDistance_RejectsLengthDifference() {
+    Assert.assertThat(SurniaUtil.withinDistance("", "abc", 2), equalTo(false));
+    Assert.assertThat(SurniaUtil.withinDistance("", "ab", 2), equalTo(true));
+    Assert.assertThat(SurniaUtil.withinDistance("capital", "capital of germany", 2),
+      equalTo(false));
+  }
+
+  @Test
+  public void testBoundedDistance_AgreesWithLevenshtein() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      // Lengths above 64 use the banded DP instead of the bit-parallel algorithm
+      String a = randomString(random, random.nextInt(i % 2 == 0 ? 10 : 80));
+      String b = randomString(random, Math.max(0, a.length() + random.nextInt(5) - 2));
+      int k = random.nextInt(5);
+      int expected = Math.min(SurniaUtil.levenshtein(a, b), k + 1);
+      Assert.assertThat(a + " / " + b, SurniaUtil.boundedDistance(a, b, k, true),
+        equalTo(expected));
+    }
+  }
+
+  @Test
+  public void testSimilarityAtLeast_AgreesWithStringSimilarity() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      String a = randomString(random, 1 + random.nextInt(20));
+      String b = randomString(random, 1 + random.nextInt(20));
+      double min = random.nextDouble();
+      Assert.assertThat(a + " / " + b, SurniaUtil.similarityAtLeast(a, b, min),
+        equalTo(SurniaUtil.stringSimilarity(a, b) >= min));
+    }
+  }
+
+  @Test
+  public void testBoundedDistance_Sequences() {
+    short[] example = {0, 1, 2, 3, 4};
+    // Negative codes stand for unknown elements
+    short[] question = {0, 2, 3, 4, -1};
+    Assert.assertThat(SurniaUtil.boundedDistance(example, question, 3), equalTo(2));
+    Assert.assertThat(SurniaUtil.boundedDistance(example, question, 1), equalTo(2));
+  }
+
+  private static String randomString(Random random, int length) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      builder.append("abcAB".charAt(random.nextInt(5)));
+    }
+    return builder.toString();
+  }
+}
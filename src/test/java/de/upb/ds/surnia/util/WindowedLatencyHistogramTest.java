@@ -0,0 +1,44 @@
+package de.upb.ds.surnia.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class WindowedLatencyHistogramTest {
+
+  private static final long MILLIS = 1000000;
+
+  private long now;
+  private WindowedLatencyHistogram histogram;
+
+  @Before
+  public void init() {
+    now = 0;
+    histogram = new WindowedLatencyHistogram(100, () -> now);
+  }
+
+  @Test
+  public void testGetValuesAtQuantiles_CoversPreviousAndCurrentInterval() {
+    histogram.record(1000);
+    now = 100 * MILLIS;
+    histogram.record(10);
+    Assert.assertThat(histogram.getValueAtQuantile(1.0), equalTo(1000L));
+    Assert.assertThat(histogram.getValueAtQuantile(0.5), equalTo(10L));
+    now = 200 * MILLIS;
+    Assert.assertThat(histogram.getValueAtQuantile(1.0), equalTo(10L));
+    Assert.assertThat(histogram.getMax(), equalTo(10L));
+    Assert.assertThat(histogram.getCount(), equalTo(2L));
+    Assert.assertThat(histogram.getSum(), equalTo(1010L));
+  }
+
+  @Test
+  public void testGetValuesAtQuantiles_ForgetsValuesAfterPause() {
+    histogram.record(1000);
+    now = 250 * MILLIS;
+    Assert.assertThat(histogram.getValueAtQuantile(0.5), equalTo(0L));
+    Assert.assertThat(histogram.getMax(), equalTo(0L));
+    Assert.assertThat(histogram.getCount(), equalTo(1L));
+  }
+}